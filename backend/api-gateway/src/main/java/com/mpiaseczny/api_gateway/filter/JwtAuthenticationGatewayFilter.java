@@ -1,68 +1,133 @@
 package com.mpiaseczny.api_gateway.filter;
 
+import com.mpiaseczny.api_gateway.jfr.JwtVerified;
 import com.mpiaseczny.api_gateway.util.JwtUtil;
-import io.jsonwebtoken.Claims;
+import com.mpiaseczny.api_gateway.util.VerifiedToken;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.cloud.gateway.filter.GatewayFilter;
-import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.filter.NettyWriteResponseFilter;
+import org.springframework.core.Ordered;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
-import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.PathContainer;
 import org.springframework.http.server.reactive.ServerHttpResponse;
 import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
 import reactor.core.publisher.Mono;
 
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
 @Component
-public class JwtAuthenticationGatewayFilter extends AbstractGatewayFilterFactory<JwtAuthenticationGatewayFilter.Config> {
+public class JwtAuthenticationGatewayFilter implements GlobalFilter, Ordered {
+
+    // Ahead of ResponseCacheGatewayFilter, which keys its entries by the X-User-Id set here
+    public static final int ORDER = NettyWriteResponseFilter.WRITE_RESPONSE_FILTER_ORDER - 2;
+
+    private static final String BEARER_PREFIX = "Bearer ";
+
+    private static final String USER_ID_HEADER = "X-User-Id";
+
+    private static final byte[] MISSING_TOKEN_BODY =
+            "{\"error\":\"Missing or invalid Authorization header\"}".getBytes(StandardCharsets.UTF_8);
+
+    private static final byte[] INVALID_TOKEN_BODY =
+            "{\"error\":\"Invalid or expired JWT token\"}".getBytes(StandardCharsets.UTF_8);
 
     @Autowired
     private JwtUtil jwtUtil;
 
-    public JwtAuthenticationGatewayFilter() {
-        super(Config.class);
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private Timer validTokenTimer;
+
+    private Timer invalidTokenTimer;
+
+    private final List<PathPattern> publicPaths;
+
+    public JwtAuthenticationGatewayFilter(@Value("${jwt.public-paths:/api/auth/**,/actuator/**}") List<String> publicPaths) {
+        this.publicPaths = publicPaths.stream()
+                .map(PathPatternParser.defaultInstance::parse)
+                .toList();
+    }
+
+    @PostConstruct
+    void registerMeters() {
+        validTokenTimer = Timer.builder("gateway.jwt.verification")
+                .description("Time spent verifying the bearer token of a request")
+                .tag("outcome", "valid")
+                .register(meterRegistry);
+        invalidTokenTimer = Timer.builder("gateway.jwt.verification")
+                .description("Time spent verifying the bearer token of a request")
+                .tag("outcome", "invalid")
+                .register(meterRegistry);
     }
 
     @Override
-    public GatewayFilter apply(Config config) {
-        return (exchange, chain) -> {
-            ServerHttpRequest request = exchange.getRequest();
-            String path = request.getURI().getPath();
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        if (isPublic(exchange.getRequest().getPath().pathWithinApplication())) {
+            return chain.filter(exchange);
+        }
 
-            if (path.startsWith("/api/auth/") || path.startsWith("/actuator/")) {
-                return chain.filter(exchange);
-            }
+        String authHeader = exchange.getRequest().getHeaders().getFirst(HttpHeaders.AUTHORIZATION);
 
-            String authHeader = request.getHeaders().getFirst(HttpHeaders.AUTHORIZATION);
-            
-            if (authHeader == null || !authHeader.startsWith("Bearer ")) {
-                return onError(exchange, "Missing or invalid Authorization header", HttpStatus.UNAUTHORIZED);
-            }
+        if (authHeader == null || !authHeader.regionMatches(true, 0, BEARER_PREFIX, 0, BEARER_PREFIX.length())) {
+            return onError(exchange, MISSING_TOKEN_BODY);
+        }
 
-            String token = authHeader.substring(7);
-            Claims claims = jwtUtil.getClaimsFromToken(token);
-            String username = claims.getSubject();
-            
-            if (username == null || !jwtUtil.validateToken(token) || jwtUtil.isTokenExpired(token)) {
-                return onError(exchange, "Invalid or expired JWT token", HttpStatus.UNAUTHORIZED);
-            }
+        JwtVerified flightEvent = new JwtVerified();
+        flightEvent.begin();
+        long verificationStart = System.nanoTime();
+        VerifiedToken verifiedToken = jwtUtil.verify(authHeader.substring(BEARER_PREFIX.length()));
+        long verificationTime = System.nanoTime() - verificationStart;
+        if (flightEvent.shouldCommit()) {
+            flightEvent.valid = verifiedToken != null;
+            flightEvent.userId = verifiedToken != null ? verifiedToken.getUserId() : null;
+            flightEvent.path = exchange.getRequest().getPath().value();
+            flightEvent.commit();
+        }
 
-            Object userIdRaw = claims.get("userId");
-            String userId = String.valueOf(userIdRaw);
+        if (verifiedToken == null) {
+            invalidTokenTimer.record(verificationTime, TimeUnit.NANOSECONDS);
+            return onError(exchange, INVALID_TOKEN_BODY);
+        }
+        validTokenTimer.record(verificationTime, TimeUnit.NANOSECONDS);
 
-            // Required for downstream services
-            ServerHttpRequest modifiedRequest = request.mutate()
-                    .header("X-User-Id", userId)
-                    .build();
-            
-            return chain.filter(exchange.mutate().request(modifiedRequest).build());
-        };
+        // Required for downstream services; overrides any value supplied by the client
+        return chain.filter(exchange.mutate()
+                .request(request -> request.header(USER_ID_HEADER, verifiedToken.getUserId()))
+                .build());
     }
 
-    private Mono<Void> onError(org.springframework.web.server.ServerWebExchange exchange, String err, HttpStatus httpStatus) {
-        ServerHttpResponse response = exchange.getResponse();
-        response.setStatusCode(httpStatus);
-        return response.setComplete();
+    @Override
+    public int getOrder() {
+        return ORDER;
     }
 
-    public static class Config {}
+    private boolean isPublic(PathContainer path) {
+        for (PathPattern publicPath : publicPaths) {
+            if (publicPath.matches(path)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private Mono<Void> onError(ServerWebExchange exchange, byte[] body) {
+        ServerHttpResponse response = exchange.getResponse();
+        response.setStatusCode(HttpStatus.UNAUTHORIZED);
+        response.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+        response.getHeaders().setContentLength(body.length);
+        return response.writeWith(Mono.just(response.bufferFactory().wrap(body)));
+    }
 }
@@ -0,0 +1,316 @@
+package com.mpiaseczny.api_gateway.filter;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.reactivestreams.Publisher;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.filter.NettyWriteResponseFilter;
+import org.springframework.core.Ordered;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.PathContainer;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.ByteArrayOutputStream;
+import java.net.URI;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Short-lived per-user cache of GET responses on {@code gateway.response-cache.paths}, keyed by {@code X-User-Id},
+ * path and query. An entry younger than {@code gateway.response-cache.ttl} is served without calling the service, so
+ * a client polling its order list may see a change up to that late. An older entry is revalidated with its ETag, and
+ * a 304 from the service refreshes it without transferring the body again. Only 200 responses with a strong ETag and
+ * without {@code Cache-Control: no-store} are stored.
+ */
+@Component
+@ConditionalOnProperty(name = "gateway.response-cache.enabled", havingValue = "true")
+public class ResponseCacheGatewayFilter implements GlobalFilter, Ordered {
+
+    // After JwtAuthenticationGatewayFilter, and ahead of the filter that writes the service's response
+    public static final int ORDER = NettyWriteResponseFilter.WRITE_RESPONSE_FILTER_ORDER - 1;
+
+    private static final String USER_ID_HEADER = "X-User-Id";
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${gateway.response-cache.ttl:5s}")
+    private Duration ttl;
+
+    @Value("${gateway.response-cache.retention:1m}")
+    private Duration retention;
+
+    @Value("${gateway.response-cache.max-size:64MB}")
+    private DataSize maxSize;
+
+    @Value("${gateway.response-cache.max-body-size:256KB}")
+    private DataSize maxBodySize;
+
+    private Cache<String, CachedResponse> responses;
+
+    private Counter hitCounter;
+
+    private Counter revalidatedCounter;
+
+    private Counter missCounter;
+
+    private final List<PathPattern> cachedPaths;
+
+    public ResponseCacheGatewayFilter(@Value("${gateway.response-cache.paths:/api/orders}") List<String> cachedPaths) {
+        this.cachedPaths = cachedPaths.stream()
+                .map(PathPatternParser.defaultInstance::parse)
+                .toList();
+    }
+
+    @PostConstruct
+    void init() {
+        // Kept past the ttl so that a stale entry can still be revalidated instead of fetched again
+        responses = Caffeine.newBuilder()
+                .maximumWeight(maxSize.toBytes())
+                .weigher((String key, CachedResponse response) -> key.length() + response.body.length)
+                .expireAfterWrite(retention)
+                .build();
+        hitCounter = registerCounter("hit");
+        revalidatedCounter = registerCounter("revalidated");
+        missCounter = registerCounter("miss");
+    }
+
+    private Counter registerCounter(String result) {
+        return Counter.builder("gateway.response.cache")
+                .description("Cacheable requests by whether the gateway answered them, revalidated or fetched them")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        ServerHttpRequest request = exchange.getRequest();
+        String userId = request.getHeaders().getFirst(USER_ID_HEADER);
+        if (request.getMethod() != HttpMethod.GET || userId == null
+                || !isCached(request.getPath().pathWithinApplication())) {
+            return chain.filter(exchange);
+        }
+
+        String key = cacheKey(userId, request.getURI());
+        CachedResponse cached = responses.getIfPresent(key);
+        List<String> clientETags = request.getHeaders().getIfNoneMatch();
+        if (cached != null && cached.isFresh(ttl) && !requiresRevalidation(request.getHeaders())) {
+            hitCounter.increment();
+            return cached.writeTo(exchange.getResponse(), clientETags);
+        }
+
+        // A client validator is passed through untouched; ours only replaces a missing one
+        boolean ownValidator = cached != null && clientETags.isEmpty();
+        ServerWebExchange forwarded = ownValidator
+                ? exchange.mutate().request(r -> r.header(HttpHeaders.IF_NONE_MATCH, cached.etag)).build()
+                : exchange;
+        return chain.filter(forwarded.mutate()
+                .response(new CachingResponse(forwarded.getResponse(), key, cached, ownValidator))
+                .build());
+    }
+
+    @Override
+    public int getOrder() {
+        return ORDER;
+    }
+
+    private boolean isCached(PathContainer path) {
+        for (PathPattern cachedPath : cachedPaths) {
+            if (cachedPath.matches(path)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String cacheKey(String userId, URI uri) {
+        String query = uri.getRawQuery();
+        return userId + ':' + uri.getRawPath() + (query != null ? '?' + query : "");
+    }
+
+    private static boolean requiresRevalidation(HttpHeaders headers) {
+        String cacheControl = headers.getCacheControl();
+        return cacheControl != null && (cacheControl.contains("no-cache") || cacheControl.contains("max-age=0"));
+    }
+
+    private static boolean matches(List<String> clientETags, String etag) {
+        for (String clientETag : clientETags) {
+            // If-None-Match uses the weak comparison
+            String opaque = clientETag.startsWith("W/") ? clientETag.substring(2) : clientETag;
+            if (opaque.equals("*") || opaque.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Stores or refreshes the entry once the service's response is written through it.
+     */
+    private class CachingResponse extends ServerHttpResponseDecorator {
+
+        private final String key;
+
+        private final CachedResponse stale;
+
+        private final boolean ownValidator;
+
+        CachingResponse(ServerHttpResponse delegate, String key, CachedResponse stale, boolean ownValidator) {
+            super(delegate);
+            this.key = key;
+            this.stale = stale;
+            this.ownValidator = ownValidator;
+        }
+
+        @Override
+        public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+            HttpHeaders headers = getHeaders();
+            if (stale != null && HttpStatus.NOT_MODIFIED.equals(getStatusCode())
+                    && stale.etag.equals(headers.getETag())) {
+                CachedResponse refreshed = stale.refreshed();
+                responses.put(key, refreshed);
+                revalidatedCounter.increment();
+                if (!ownValidator) {
+                    return super.writeWith(body);
+                }
+                // The client did not ask conditionally, so it gets the body the service confirmed
+                return Flux.from(body)
+                        .doOnNext(DataBufferUtils::release)
+                        .then(Mono.defer(() -> refreshed.writeTo(getDelegate(), List.of())));
+            }
+
+            missCounter.increment();
+            String etag = headers.getETag();
+            String cacheControl = headers.getCacheControl();
+            long contentLength = headers.getContentLength();
+            if (!HttpStatus.OK.equals(getStatusCode()) || etag == null || etag.startsWith("W/")
+                    || (cacheControl != null && cacheControl.contains("no-store"))
+                    || contentLength > maxBodySize.toBytes()) {
+                return super.writeWith(body);
+            }
+
+            // The body streams through as it arrives; only a copy of up to max-body-size is held back for the cache
+            MediaType contentType = headers.getContentType();
+            BodyCopy copy = new BodyCopy(Math.toIntExact(maxBodySize.toBytes()));
+            return super.writeWith(Flux.from(body)
+                    .doOnNext(copy::append)
+                    .doOnComplete(() -> {
+                        if (!copy.isOverflowed()) {
+                            responses.put(key, new CachedResponse(copy.toByteArray(), etag, contentType, cacheControl,
+                                    System.nanoTime()));
+                        }
+                    }));
+        }
+    }
+
+    /**
+     * Copy of a body written in chunks, given up for good once it grows past its limit.
+     */
+    private static final class BodyCopy {
+
+        private final int limit;
+
+        private ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+        BodyCopy(int limit) {
+            this.limit = limit;
+        }
+
+        void append(DataBuffer buffer) {
+            if (bytes == null) {
+                return;
+            }
+            int length = buffer.readableByteCount();
+            if (bytes.size() + length > limit) {
+                bytes = null;
+                return;
+            }
+            // Reads without moving the buffer's position, which the response still has to write from
+            int position = buffer.readPosition();
+            byte[] chunk = new byte[length];
+            buffer.read(chunk);
+            buffer.readPosition(position);
+            bytes.writeBytes(chunk);
+        }
+
+        boolean isOverflowed() {
+            return bytes == null;
+        }
+
+        byte[] toByteArray() {
+            return bytes.toByteArray();
+        }
+    }
+
+    private static final class CachedResponse {
+
+        private final byte[] body;
+
+        private final String etag;
+
+        private final MediaType contentType;
+
+        private final String cacheControl;
+
+        // System.nanoTime() when the service last confirmed the body
+        private final long validatedAt;
+
+        CachedResponse(byte[] body, String etag, MediaType contentType, String cacheControl, long validatedAt) {
+            this.body = body;
+            this.etag = etag;
+            this.contentType = contentType;
+            this.cacheControl = cacheControl;
+            this.validatedAt = validatedAt;
+        }
+
+        boolean isFresh(Duration ttl) {
+            return System.nanoTime() - validatedAt < ttl.toNanos();
+        }
+
+        CachedResponse refreshed() {
+            return new CachedResponse(body, etag, contentType, cacheControl, System.nanoTime());
+        }
+
+        Mono<Void> writeTo(ServerHttpResponse response, List<String> clientETags) {
+            HttpHeaders headers = response.getHeaders();
+            headers.setETag(etag);
+            if (cacheControl != null) {
+                headers.setCacheControl(cacheControl);
+            }
+            headers.set(HttpHeaders.AGE,
+                    String.valueOf(TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - validatedAt)));
+            if (matches(clientETags, etag)) {
+                response.setStatusCode(HttpStatus.NOT_MODIFIED);
+                return response.setComplete();
+            }
+            response.setStatusCode(HttpStatus.OK);
+            if (contentType != null) {
+                headers.setContentType(contentType);
+            }
+            headers.setContentLength(body.length);
+            return response.writeWith(Mono.just(response.bufferFactory().wrap(body)));
+        }
+    }
+}
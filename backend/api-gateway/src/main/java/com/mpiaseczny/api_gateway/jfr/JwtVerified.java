@@ -0,0 +1,30 @@
+package com.mpiaseczny.api_gateway.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * Verification normally takes microseconds, mostly served from the token cache, so only slow ones are recorded.
+ */
+@Name("com.mpiaseczny.JwtVerified")
+@Label("JWT Verified")
+@Description("Bearer token verification of a request routed by the gateway")
+@Category({"Order Management", "API Gateway"})
+@Threshold("1 ms")
+@StackTrace(false)
+public class JwtVerified extends Event {
+
+    @Label("Valid")
+    public boolean valid;
+
+    @Label("User Id")
+    public String userId;
+
+    @Label("Path")
+    public String path;
+}
@@ -0,0 +1,34 @@
+package com.mpiaseczny.api_gateway.util;
+
+import java.util.Date;
+
+/**
+ * Outcome of a successful token verification, with the downstream header value precomputed
+ * so cache hits do not have to re-derive it.
+ */
+public final class VerifiedToken {
+
+    private final String subject;
+
+    private final String userId;
+
+    private final Date expiration;
+
+    public VerifiedToken(String subject, String userId, Date expiration) {
+        this.subject = subject;
+        this.userId = userId;
+        this.expiration = expiration;
+    }
+
+    public String getSubject() {
+        return subject;
+    }
+
+    public String getUserId() {
+        return userId;
+    }
+
+    public Date getExpiration() {
+        return expiration;
+    }
+}
@@ -0,0 +1,71 @@
+package com.mpiaseczny.api_gateway.config;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FlightRecordingEndpointTest {
+
+    @TempDir
+    private Path dumpDirectory;
+
+    private final FlightRecordingEndpoint endpoint = new FlightRecordingEndpoint();
+
+    private boolean started;
+
+    @AfterEach
+    void tearDown() {
+        if (started) {
+            endpoint.stop();
+        }
+    }
+
+    @Test
+    void start_ShouldRefuseToServeTheEndpointOnTheRoutedPort() {
+        // Given
+        ReflectionTestUtils.setField(endpoint, "applicationName", "api-gateway");
+        ReflectionTestUtils.setField(endpoint, "serverPort", 8080);
+
+        // When & Then
+        assertThrows(IllegalStateException.class, endpoint::start);
+        ReflectionTestUtils.setField(endpoint, "managementPort", 8080);
+        assertThrows(IllegalStateException.class, endpoint::start);
+    }
+
+    @Test
+    void dump_ShouldKeepOnlyTheNewestDumps() throws Exception {
+        // Given
+        ReflectionTestUtils.setField(endpoint, "applicationName", "api-gateway");
+        ReflectionTestUtils.setField(endpoint, "dumpDirectory", dumpDirectory);
+        ReflectionTestUtils.setField(endpoint, "maxDumps", 2);
+        ReflectionTestUtils.setField(endpoint, "managementPort", 9080);
+        endpoint.start();
+        started = true;
+        Files.createFile(dumpDirectory.resolve("api-gateway-20240101-000000.jfr"));
+        Files.createFile(dumpDirectory.resolve("api-gateway-20240101-000001.jfr"));
+        Files.createFile(dumpDirectory.resolve("unrelated.jfr"));
+
+        // When
+        Map<String, Object> dumped = endpoint.dump();
+
+        // Then
+        Path file = Path.of((String) dumped.get("file"));
+        assertTrue(Files.size(file) > 0);
+        try (Stream<Path> files = Files.list(dumpDirectory)) {
+            List<String> names = files.map(path -> path.getFileName().toString()).sorted().toList();
+            assertEquals(List.of("api-gateway-20240101-000001.jfr", file.getFileName().toString(), "unrelated.jfr"),
+                    names);
+        }
+    }
+}
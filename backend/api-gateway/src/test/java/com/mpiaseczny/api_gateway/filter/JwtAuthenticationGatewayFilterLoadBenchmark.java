@@ -0,0 +1,164 @@
+package com.mpiaseczny.api_gateway.filter;
+
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.HistogramSnapshot;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.http.server.HttpServer;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.time.Duration;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Drives the gateway at a fixed request rate against an in-process stub backend and logs p50/p99 latency.
+ * Not picked up by the default surefire includes; run with
+ * {@code mvn test -Dtest=JwtAuthenticationGatewayFilterLoadBenchmark [-DloadTest.rps=10000] [-DloadTest.durationSeconds=20]}.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.cloud.consul.enabled=false",
+        "spring.cloud.consul.discovery.enabled=false",
+        "spring.cloud.gateway.server.webflux.httpclient.use-global-resolver=false",
+        "logging.level.root=WARN",
+        "logging.level.com.mpiaseczny.api_gateway.filter.JwtAuthenticationGatewayFilterLoadBenchmark=INFO"
+})
+class JwtAuthenticationGatewayFilterLoadBenchmark {
+
+    private static final Logger logger = LoggerFactory.getLogger(JwtAuthenticationGatewayFilterLoadBenchmark.class);
+
+    private static final int REQUESTS_PER_SECOND = Integer.getInteger("loadTest.rps", 10_000);
+
+    private static final Duration WARMUP = Duration.ofSeconds(Long.getLong("loadTest.warmupSeconds", 5));
+
+    private static final Duration MEASUREMENT = Duration.ofSeconds(Long.getLong("loadTest.durationSeconds", 20));
+
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(5);
+
+    private static final DisposableServer stubBackend = HttpServer.create()
+            .port(0)
+            .route(routes -> routes.get("/api/orders", (request, response) -> response
+                    .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                    .header("X-Seen-User-Id", String.valueOf(request.requestHeaders().get("X-User-Id")))
+                    .sendString(Mono.just("[]"))))
+            .bindNow();
+
+    @LocalServerPort
+    private int port;
+
+    @Value("${jwt.secret}")
+    private String secret;
+
+    @DynamicPropertySource
+    static void routeToStubBackend(DynamicPropertyRegistry registry) {
+        registry.add("spring.cloud.gateway.server.webflux.routes[0].id", () -> "order_service");
+        registry.add("spring.cloud.gateway.server.webflux.routes[0].uri", () -> "http://localhost:" + stubBackend.port());
+        registry.add("spring.cloud.gateway.server.webflux.routes[0].predicates[0]", () -> "Path=/api/orders/**");
+    }
+
+    @AfterAll
+    static void stopStubBackend() {
+        stubBackend.disposeNow();
+    }
+
+    @Test
+    void authenticatedRequestsAtFixedRate() {
+        String token = Jwts.builder()
+                .setSubject("load-test")
+                .claim("userId", 42)
+                .setExpiration(new Date(System.currentTimeMillis() + TimeUnit.HOURS.toMillis(1)))
+                .signWith(Keys.hmacShaKeyFor(secret.getBytes()), SignatureAlgorithm.HS512)
+                .compact();
+
+        WebTestClient webTestClient = WebTestClient.bindToServer().baseUrl("http://localhost:" + port).build();
+        webTestClient.get().uri("/api/orders")
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + token)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals("X-Seen-User-Id", "42");
+        webTestClient.get().uri("/api/orders")
+                .exchange()
+                .expectStatus().isUnauthorized()
+                .expectBody().json("{\"error\":\"Missing or invalid Authorization header\"}");
+
+        ConnectionProvider connections = ConnectionProvider.builder("load-test")
+                .maxConnections(1_000)
+                .pendingAcquireMaxCount(-1)
+                .build();
+        WebClient client = WebClient.builder()
+                .baseUrl("http://localhost:" + port)
+                .clientConnector(new ReactorClientHttpConnector(HttpClient.create(connections)))
+                .defaultHeader(HttpHeaders.AUTHORIZATION, "Bearer " + token)
+                .build();
+
+        try {
+            run(client, WARMUP, new SimpleMeterRegistry());
+
+            SimpleMeterRegistry registry = new SimpleMeterRegistry();
+            long failures = run(client, MEASUREMENT, registry);
+            Timer latency = registry.get("gateway.load-test").timer();
+            HistogramSnapshot snapshot = latency.takeSnapshot();
+
+            logger.info("target: {} req/s, completed: {}, failures: {}, throughput: {} req/s",
+                    REQUESTS_PER_SECOND, latency.count(), failures, Math.round(latency.count() / (double) MEASUREMENT.toSeconds()));
+            for (ValueAtPercentile percentile : snapshot.percentileValues()) {
+                logger.info("p{}: {} ms", Math.round(percentile.percentile() * 100),
+                        String.format("%.3f", percentile.value(TimeUnit.MILLISECONDS)));
+            }
+        } finally {
+            connections.disposeLater().block();
+        }
+    }
+
+    private long run(WebClient client, Duration duration, SimpleMeterRegistry registry) {
+        Timer latency = Timer.builder("gateway.load-test")
+                .publishPercentiles(0.5, 0.99)
+                .register(registry);
+        AtomicLong failures = new AtomicLong();
+        // Timer resolution is about a millisecond, so high rates are sent as small bursts per tick
+        long tickNanos = Math.max(TimeUnit.MILLISECONDS.toNanos(1), TimeUnit.SECONDS.toNanos(1) / REQUESTS_PER_SECOND);
+        int requestsPerTick = (int) Math.max(1, REQUESTS_PER_SECOND * tickNanos / TimeUnit.SECONDS.toNanos(1));
+
+        Flux.interval(Duration.ofNanos(tickNanos))
+                .take(duration)
+                .onBackpressureDrop()
+                .flatMap(tick -> Flux.range(0, requestsPerTick))
+                .flatMap(i -> {
+                    long start = System.nanoTime();
+                    return client.get().uri("/api/orders")
+                            .retrieve()
+                            .toBodilessEntity()
+                            .timeout(REQUEST_TIMEOUT)
+                            .doOnSuccess(response -> latency.record(System.nanoTime() - start, TimeUnit.NANOSECONDS))
+                            .onErrorResume(e -> {
+                                failures.incrementAndGet();
+                                return Mono.empty();
+                            });
+                }, Integer.MAX_VALUE)
+                .blockLast();
+
+        return failures.get();
+    }
+}
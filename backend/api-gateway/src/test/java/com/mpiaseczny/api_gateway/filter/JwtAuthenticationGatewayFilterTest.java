@@ -0,0 +1,112 @@
+package com.mpiaseczny.api_gateway.filter;
+
+import com.mpiaseczny.api_gateway.util.JwtUtil;
+import com.mpiaseczny.api_gateway.util.VerifiedToken;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class JwtAuthenticationGatewayFilterTest {
+
+    private static final String TOKEN = "header.payload.signature";
+
+    private final JwtUtil jwtUtil = mock(JwtUtil.class);
+
+    private final AtomicReference<ServerWebExchange> forwarded = new AtomicReference<>();
+
+    private final GatewayFilterChain chain = exchange -> {
+        forwarded.set(exchange);
+        return Mono.empty();
+    };
+
+    private JwtAuthenticationGatewayFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        filter = new JwtAuthenticationGatewayFilter(List.of("/api/auth/**", "/actuator/**"));
+        ReflectionTestUtils.setField(filter, "jwtUtil", jwtUtil);
+        ReflectionTestUtils.setField(filter, "meterRegistry", new SimpleMeterRegistry());
+        filter.registerMeters();
+        when(jwtUtil.verify(TOKEN)).thenReturn(new VerifiedToken("alice", "42",
+                new Date(System.currentTimeMillis() + TimeUnit.HOURS.toMillis(1))));
+    }
+
+    @Test
+    void filter_ShouldPassPublicPathsThroughWithoutAToken() {
+        // Given
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.post("/api/auth/login"));
+
+        // When
+        filter.filter(exchange, chain).block();
+
+        // Then
+        assertNotNull(forwarded.get());
+        verifyNoInteractions(jwtUtil);
+    }
+
+    @Test
+    void filter_ShouldAcceptTheBearerSchemeInAnyCase() {
+        // Given
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/api/orders")
+                .header(HttpHeaders.AUTHORIZATION, "bEARER " + TOKEN));
+
+        // When
+        filter.filter(exchange, chain).block();
+
+        // Then
+        assertNotNull(forwarded.get());
+        assertEquals("42", forwarded.get().getRequest().getHeaders().getFirst("X-User-Id"));
+    }
+
+    @Test
+    void filter_ShouldReplaceAUserIdSuppliedByTheClient() {
+        // Given
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/api/orders")
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + TOKEN)
+                .header("X-User-Id", "1", "2"));
+
+        // When
+        filter.filter(exchange, chain).block();
+
+        // Then
+        assertEquals(List.of("42"), forwarded.get().getRequest().getHeaders().get("X-User-Id"));
+    }
+
+    @Test
+    void filter_ShouldRejectARequestWithoutAValidToken() {
+        // Given
+        MockServerWebExchange missing = MockServerWebExchange.from(MockServerHttpRequest.get("/api/orders")
+                .header("X-User-Id", "1"));
+        MockServerWebExchange invalid = MockServerWebExchange.from(MockServerHttpRequest.get("/api/orders")
+                .header(HttpHeaders.AUTHORIZATION, "Bearer forged"));
+
+        // When
+        filter.filter(missing, chain).block();
+        filter.filter(invalid, chain).block();
+
+        // Then
+        assertNull(forwarded.get());
+        assertEquals(HttpStatus.UNAUTHORIZED, missing.getResponse().getStatusCode());
+        assertEquals(HttpStatus.UNAUTHORIZED, invalid.getResponse().getStatusCode());
+    }
+}
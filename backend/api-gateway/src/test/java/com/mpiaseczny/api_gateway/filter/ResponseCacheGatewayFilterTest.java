@@ -0,0 +1,210 @@
+package com.mpiaseczny.api_gateway.filter;
+
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.reactivestreams.Publisher;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Flux;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+import reactor.netty.http.server.HttpServerRequest;
+import reactor.netty.http.server.HttpServerResponse;
+
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.cloud.consul.enabled=false",
+        "spring.cloud.consul.discovery.enabled=false",
+        "spring.cloud.gateway.server.webflux.httpclient.use-global-resolver=false",
+        "gateway.response-cache.enabled=true",
+        "gateway.response-cache.paths=/api/orders,/api/orders/*",
+        "gateway.response-cache.max-body-size=4KB"
+})
+class ResponseCacheGatewayFilterTest {
+
+    private static final String ETAG = "\"v1\"";
+
+    // Sent in several chunks, so the gateway sees a chunked body without Content-Length
+    private static final List<String> ORDERS = List.of("[{\"id\":1},", "{\"id\":2}]");
+
+    private static final List<String> LARGE_ORDERS = Collections.nCopies(16, "x".repeat(1024));
+
+    private static final Map<String, AtomicInteger> backendRequests = new ConcurrentHashMap<>();
+
+    private static final Map<String, String> forwardedETags = new ConcurrentHashMap<>();
+
+    private static final AtomicLong nextUserId = new AtomicLong();
+
+    private static final DisposableServer stubBackend = HttpServer.create()
+            .port(0)
+            .route(routes -> routes
+                    .get("/api/orders", (request, response) -> respond(request, response, ETAG, null, ORDERS))
+                    .get("/api/orders/no-store",
+                            (request, response) -> respond(request, response, ETAG, "no-store", ORDERS))
+                    .get("/api/orders/weak",
+                            (request, response) -> respond(request, response, "W/" + ETAG, null, ORDERS))
+                    .get("/api/orders/large",
+                            (request, response) -> respond(request, response, ETAG, null, LARGE_ORDERS)))
+            .bindNow();
+
+    @LocalServerPort
+    private int port;
+
+    @Value("${jwt.secret}")
+    private String secret;
+
+    private WebTestClient webTestClient;
+
+    private String userId;
+
+    @DynamicPropertySource
+    static void routeToStubBackend(DynamicPropertyRegistry registry) {
+        registry.add("spring.cloud.gateway.server.webflux.routes[0].id", () -> "order_service");
+        registry.add("spring.cloud.gateway.server.webflux.routes[0].uri", () -> "http://localhost:" + stubBackend.port());
+        registry.add("spring.cloud.gateway.server.webflux.routes[0].predicates[0]", () -> "Path=/api/orders/**");
+    }
+
+    @AfterAll
+    static void stopStubBackend() {
+        stubBackend.disposeNow();
+    }
+
+    @BeforeEach
+    void setUp() {
+        // A user per test, so that no test sees another one's cache entries
+        userId = String.valueOf(nextUserId.incrementAndGet());
+        String token = Jwts.builder()
+                .setSubject("user-" + userId)
+                .claim("userId", Long.parseLong(userId))
+                .setExpiration(new Date(System.currentTimeMillis() + TimeUnit.HOURS.toMillis(1)))
+                .signWith(Keys.hmacShaKeyFor(secret.getBytes()), SignatureAlgorithm.HS512)
+                .compact();
+        webTestClient = WebTestClient.bindToServer()
+                .baseUrl("http://localhost:" + port)
+                .defaultHeader(HttpHeaders.AUTHORIZATION, "Bearer " + token)
+                .build();
+    }
+
+    @Test
+    void get_WithinTtl_ShouldBeAnsweredFromTheCache() {
+        // Given
+        getOrders("/api/orders").expectStatus().isOk();
+
+        // When & Then
+        getOrders("/api/orders")
+                .expectStatus().isOk()
+                .expectHeader().valueEquals(HttpHeaders.ETAG, ETAG)
+                .expectHeader().exists(HttpHeaders.AGE)
+                .expectBody(String.class).isEqualTo(String.join("", ORDERS));
+        webTestClient.get().uri("/api/orders")
+                .header(HttpHeaders.IF_NONE_MATCH, ETAG)
+                .exchange()
+                .expectStatus().isNotModified();
+        assertEquals(1, backendRequests());
+    }
+
+    @Test
+    void get_WithClientsCurrentETag_ShouldPassTheServicesNotModifiedThrough() {
+        // Given
+        getOrders("/api/orders").expectStatus().isOk();
+
+        // When & Then
+        webTestClient.get().uri("/api/orders")
+                .header(HttpHeaders.CACHE_CONTROL, "no-cache")
+                .header(HttpHeaders.IF_NONE_MATCH, ETAG)
+                .exchange()
+                .expectStatus().isNotModified()
+                .expectBody().isEmpty();
+        assertEquals(2, backendRequests());
+        assertEquals(ETAG, forwardedETags.get(userId));
+    }
+
+    @Test
+    void get_WhenStale_ShouldRevalidateWithItsOwnETagAndReturnTheCachedBody() {
+        // Given
+        getOrders("/api/orders").expectStatus().isOk();
+        assertNull(forwardedETags.get(userId));
+
+        // When & Then
+        webTestClient.get().uri("/api/orders")
+                .header(HttpHeaders.CACHE_CONTROL, "no-cache")
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals(HttpHeaders.ETAG, ETAG)
+                .expectBody(String.class).isEqualTo(String.join("", ORDERS));
+        assertEquals(2, backendRequests());
+        assertEquals(ETAG, forwardedETags.get(userId));
+    }
+
+    @Test
+    void get_WithNoStoreOrWeakETag_ShouldNotBeCached() {
+        // When
+        getOrders("/api/orders/no-store").expectStatus().isOk();
+        getOrders("/api/orders/no-store").expectStatus().isOk();
+        getOrders("/api/orders/weak").expectStatus().isOk();
+        getOrders("/api/orders/weak").expectStatus().isOk();
+
+        // Then
+        assertEquals(4, backendRequests());
+    }
+
+    @Test
+    void get_WithBodyOverMaxBodySize_ShouldStreamItWithoutCaching() {
+        // When & Then
+        for (int i = 0; i < 2; i++) {
+            getOrders("/api/orders/large")
+                    .expectStatus().isOk()
+                    .expectBody(String.class).isEqualTo(String.join("", LARGE_ORDERS));
+        }
+        assertEquals(2, backendRequests());
+    }
+
+    private WebTestClient.ResponseSpec getOrders(String path) {
+        return webTestClient.get().uri(path).exchange();
+    }
+
+    private int backendRequests() {
+        AtomicInteger requests = backendRequests.get(userId);
+        return requests != null ? requests.get() : 0;
+    }
+
+    private static Publisher<Void> respond(HttpServerRequest request, HttpServerResponse response, String etag,
+                                           String cacheControl, List<String> chunks) {
+        String userId = request.requestHeaders().get("X-User-Id");
+        backendRequests.computeIfAbsent(userId, id -> new AtomicInteger()).incrementAndGet();
+        String ifNoneMatch = request.requestHeaders().get(HttpHeaders.IF_NONE_MATCH);
+        if (ifNoneMatch != null) {
+            forwardedETags.put(userId, ifNoneMatch);
+        }
+        response.header(HttpHeaders.ETAG, etag);
+        if (cacheControl != null) {
+            response.header(HttpHeaders.CACHE_CONTROL, cacheControl);
+        }
+        if (etag.equals(ifNoneMatch)) {
+            return response.status(304).send();
+        }
+        return response.header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                .sendString(Flux.fromIterable(chunks));
+    }
+}
@@ -0,0 +1,103 @@
+package com.mpiaseczny.api_gateway.util;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Date;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class JwtUtilTest {
+
+    private static final String SECRET = "testSecretKeyForJwtUtilTestThatIsLongEnoughForHmacSha512Signatures0123456789";
+
+    private final JwtUtil jwtUtil = new JwtUtil();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(jwtUtil, "secret", SECRET);
+        ReflectionTestUtils.setField(jwtUtil, "cacheMaxSize", 100L);
+        ReflectionTestUtils.setField(jwtUtil, "meterRegistry", new SimpleMeterRegistry());
+        jwtUtil.init();
+    }
+
+    @Test
+    void verify_ShouldCacheTheVerifiedTokenUnderAHashOfTheToken() {
+        // Given
+        String token = token(SECRET, new Date(System.currentTimeMillis() + TimeUnit.HOURS.toMillis(1)));
+
+        // When
+        VerifiedToken first = jwtUtil.verify(token);
+        VerifiedToken second = jwtUtil.verify(token);
+
+        // Then
+        assertNotNull(first);
+        assertEquals("alice", first.getSubject());
+        assertEquals("42", first.getUserId());
+        assertSame(first, second);
+        Set<String> keys = verifiedTokens().asMap().keySet();
+        assertEquals(1, keys.size());
+        String key = keys.iterator().next();
+        // Base64 of a SHA-256 digest; the bearer token itself is never kept
+        assertEquals(43, key.length());
+        assertFalse(token.contains(key));
+    }
+
+    @Test
+    void verify_ShouldStopServingACachedTokenOnceItExpires() throws Exception {
+        // Given
+        // The exp claim has whole seconds
+        long expiresAt = (System.currentTimeMillis() / 1000 + 2) * 1000;
+        String token = token(SECRET, new Date(expiresAt));
+        assertNotNull(jwtUtil.verify(token));
+
+        // When
+        Thread.sleep(expiresAt - System.currentTimeMillis() + 50);
+
+        // Then
+        verifiedTokens().cleanUp();
+        assertEquals(0, verifiedTokens().estimatedSize());
+        assertNull(jwtUtil.verify(token));
+    }
+
+    @Test
+    void verify_ShouldNotCacheATokenWithAForeignSignature() {
+        // Given
+        String token = token("someOtherSecretKeyThatIsAlsoLongEnoughForHmacSha512Signatures0123456789abcdef",
+                new Date(System.currentTimeMillis() + TimeUnit.HOURS.toMillis(1)));
+
+        // When
+        VerifiedToken verifiedToken = jwtUtil.verify(token);
+
+        // Then
+        assertNull(verifiedToken);
+        assertTrue(verifiedTokens().asMap().isEmpty());
+    }
+
+    @SuppressWarnings("unchecked")
+    private Cache<String, VerifiedToken> verifiedTokens() {
+        return (Cache<String, VerifiedToken>) ReflectionTestUtils.getField(jwtUtil, "verifiedTokens");
+    }
+
+    private static String token(String secret, Date expiration) {
+        return Jwts.builder()
+                .setSubject("alice")
+                .claim("userId", 42)
+                .setExpiration(expiration)
+                .signWith(Keys.hmacShaKeyFor(secret.getBytes()), SignatureAlgorithm.HS512)
+                .compact();
+    }
+}
@@ -4,8 +4,14 @@ import com.mpiaseczny.auth_service.dto.AuthResponse;
 import com.mpiaseczny.auth_service.dto.LoginRequest;
 import com.mpiaseczny.auth_service.dto.RegisterRequest;
 import com.mpiaseczny.auth_service.service.AuthService;
+import com.mpiaseczny.auth_service.service.PasswordHashingBusyException;
+import com.mpiaseczny.auth_service.service.PasswordHashingException;
+import com.mpiaseczny.auth_service.service.UsernameTakenException;
 import jakarta.validation.Valid;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -15,6 +21,8 @@ import java.util.Map;
 @RestController
 @RequestMapping("/api/auth")
 public class AuthController {
+
+    private static final Logger logger = LoggerFactory.getLogger(AuthController.class);
     
     @Autowired
     private AuthService authService;
@@ -24,6 +32,12 @@ public class AuthController {
         try {
             AuthResponse response = authService.register(request);
             return ResponseEntity.ok(response);
+        } catch (PasswordHashingBusyException e) {
+            return tooManyRequests(e);
+        } catch (PasswordHashingException e) {
+            return hashingFailed(e);
+        } catch (UsernameTakenException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", e.getMessage()));
         } catch (RuntimeException e) {
             return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
         }
@@ -34,8 +48,24 @@ public class AuthController {
         try {
             AuthResponse response = authService.login(request);
             return ResponseEntity.ok(response);
+        } catch (PasswordHashingBusyException e) {
+            return tooManyRequests(e);
+        } catch (PasswordHashingException e) {
+            return hashingFailed(e);
         } catch (RuntimeException e) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(Map.of("error", e.getMessage()));
         }
     }
+
+    private ResponseEntity<?> tooManyRequests(PasswordHashingBusyException e) {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(Map.of("error", e.getMessage()));
+    }
+
+    // Not the client's fault, so neither a 400 nor a failed login
+    private ResponseEntity<?> hashingFailed(PasswordHashingException e) {
+        logger.error("Password hashing failed", e);
+        return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(Map.of("error", e.getMessage()));
+    }
 }
@@ -6,33 +6,58 @@ import com.mpiaseczny.auth_service.dto.RegisterRequest;
 import com.mpiaseczny.auth_service.entity.User;
 import com.mpiaseczny.auth_service.repository.UserRepository;
 import com.mpiaseczny.auth_service.util.JwtUtil;
+import org.hibernate.exception.ConstraintViolationException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 
+import java.util.Locale;
+
 @Service
 public class AuthService {
 
+    private static final Logger logger = LoggerFactory.getLogger(AuthService.class);
+
+    // See V1__create_users.sql
+    private static final String USERNAME_CONSTRAINT = "uk_users_username";
+
     @Autowired
     private UserRepository userRepository;
 
     @Autowired
-    private PasswordEncoder passwordEncoder;
+    private PasswordHashingService passwordHashingService;
+
+    @Autowired
+    private UserLookupCache userLookupCache;
 
     @Autowired
     private JwtUtil jwtUtil;
 
     public AuthResponse register(RegisterRequest request) {
-        if (userRepository.existsByUsername(request.getUsername())) {
-            throw new RuntimeException("Username is already taken!");
+        if (userLookupCache.isKnownTaken(request.getUsername())) {
+            throw new UsernameTakenException();
         }
 
         User user = new User(
                 request.getUsername(),
-                passwordEncoder.encode(request.getPassword())
+                passwordHashingService.encode(request.getPassword())
         );
 
-        User savedUser = userRepository.save(user);
+        // The unique constraint on username is the only check; a separate exists query would cost a round-trip
+        // and still race with concurrent registrations
+        User savedUser;
+        try {
+            savedUser = userRepository.saveAndFlush(user);
+        } catch (DataIntegrityViolationException e) {
+            if (!violates(e, USERNAME_CONSTRAINT)) {
+                throw e;
+            }
+            userLookupCache.invalidate(request.getUsername());
+            throw new UsernameTakenException();
+        }
+        userLookupCache.put(UserCredentials.of(savedUser));
 
         String token = jwtUtil.generateToken(savedUser.getId(), savedUser.getUsername());
 
@@ -40,15 +65,46 @@ public class AuthService {
     }
 
     public AuthResponse login(LoginRequest request) {
-        User user = userRepository.findByUsername(request.getUsername())
+        UserCredentials user = userLookupCache.findByUsername(request.getUsername())
                 .orElseThrow(() -> new RuntimeException("Invalid username or password"));
 
-        if (!passwordEncoder.matches(request.getPassword(), user.getPassword())) {
-            throw new RuntimeException("Invalid username or password");
+        if (!passwordHashingService.matches(request.getPassword(), user.getPassword())) {
+            // The cached hash may predate a password change made through another instance
+            UserCredentials current = userLookupCache.reload(request.getUsername())
+                    .orElseThrow(() -> new RuntimeException("Invalid username or password"));
+            if (current.getPassword().equals(user.getPassword())
+                    || !passwordHashingService.matches(request.getPassword(), current.getPassword())) {
+                throw new RuntimeException("Invalid username or password");
+            }
+            user = current;
+        }
+
+        if (passwordHashingService.upgradeEncoding(user.getPassword())) {
+            // Best effort: the password is already verified, so a busy hashing pool only postpones the upgrade
+            try {
+                String upgradedPassword = passwordHashingService.encode(request.getPassword());
+                userRepository.updatePassword(user.getId(), upgradedPassword);
+                userLookupCache.put(new UserCredentials(user.getId(), user.getUsername(), upgradedPassword));
+            } catch (PasswordHashingBusyException e) {
+                logger.info("Skipping password hash upgrade of user {}: {}", user.getId(), e.getMessage());
+            }
         }
 
         String token = jwtUtil.generateToken(user.getId(), user.getUsername());
 
         return new AuthResponse(token, user.getUsername());
     }
+
+    /**
+     * Whether the violation is the named constraint, as reported by Hibernate or, failing that, by the driver.
+     */
+    private static boolean violates(DataIntegrityViolationException e, String constraint) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ConstraintViolationException violation && violation.getConstraintName() != null) {
+                return violation.getConstraintName().toLowerCase(Locale.ROOT).contains(constraint);
+            }
+        }
+        String message = e.getMostSpecificCause().getMessage();
+        return message != null && message.toLowerCase(Locale.ROOT).contains(constraint);
+    }
 }
@@ -0,0 +1,8 @@
+package com.mpiaseczny.auth_service.service;
+
+public class PasswordHashingBusyException extends RuntimeException {
+
+    public PasswordHashingBusyException() {
+        super("Too many authentication requests, please retry shortly");
+    }
+}
@@ -0,0 +1,8 @@
+package com.mpiaseczny.auth_service.service;
+
+public class PasswordHashingException extends RuntimeException {
+
+    public PasswordHashingException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,88 @@
+package com.mpiaseczny.auth_service.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * Runs password hashing on the bounded {@code passwordHashingExecutor}. Request threads still wait for the result,
+ * but at most one hash per pool thread burns CPU at a time and a full queue fails fast with
+ * {@link PasswordHashingBusyException}. A hash that fails or is interrupted ends in {@link PasswordHashingException}.
+ */
+@Service
+public class PasswordHashingService {
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Autowired
+    private ThreadPoolExecutor passwordHashingExecutor;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private Timer encodeTimer;
+
+    private Timer matchesTimer;
+
+    @PostConstruct
+    void registerMeters() {
+        encodeTimer = Timer.builder("auth.password.hash")
+                .description("Time spent hashing a password")
+                .tag("operation", "encode")
+                .register(meterRegistry);
+        matchesTimer = Timer.builder("auth.password.hash")
+                .description("Time spent hashing a password")
+                .tag("operation", "matches")
+                .register(meterRegistry);
+        Gauge.builder("auth.password.hash.queue", passwordHashingExecutor, executor -> executor.getQueue().size())
+                .description("Hashing tasks waiting for a free thread")
+                .register(meterRegistry);
+        Gauge.builder("auth.password.hash.active", passwordHashingExecutor, ThreadPoolExecutor::getActiveCount)
+                .description("Hashing tasks currently running")
+                .register(meterRegistry);
+    }
+
+    public String encode(String rawPassword) {
+        Callable<String> task = () -> passwordEncoder.encode(rawPassword);
+        return submit(encodeTimer.wrap(task));
+    }
+
+    public boolean matches(String rawPassword, String encodedPassword) {
+        Callable<Boolean> task = () -> passwordEncoder.matches(rawPassword, encodedPassword);
+        return submit(matchesTimer.wrap(task));
+    }
+
+    public boolean upgradeEncoding(String encodedPassword) {
+        return passwordEncoder.upgradeEncoding(encodedPassword);
+    }
+
+    private <T> T submit(Callable<T> task) {
+        Future<T> future;
+        try {
+            future = passwordHashingExecutor.submit(task);
+        } catch (RejectedExecutionException e) {
+            throw new PasswordHashingBusyException();
+        }
+
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new PasswordHashingException("Interrupted while hashing password", e);
+        } catch (ExecutionException e) {
+            throw new PasswordHashingException("Password hashing failed", e.getCause());
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.mpiaseczny.auth_service.service;
+
+import com.mpiaseczny.auth_service.entity.User;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Immutable copy of the columns login needs, so cached entries are never shared JPA entities.
+ */
+@Getter
+@AllArgsConstructor
+public class UserCredentials {
+
+    private final Long id;
+
+    private final String username;
+
+    private final String password;
+
+    public static UserCredentials of(User user) {
+        return new UserCredentials(user.getId(), user.getUsername(), user.getPassword());
+    }
+}
@@ -0,0 +1,111 @@
+package com.mpiaseczny.auth_service.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.mpiaseczny.auth_service.repository.UserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * Bounded local cache of username lookups in front of {@link UserRepository}. Known users live for
+ * {@code auth.user-cache.ttl}; unknown usernames are remembered for the much shorter
+ * {@code auth.user-cache.negative-ttl} because another instance may register them in the meantime.
+ * <p>
+ * Entries include the password hash. A login that fails against it {@link #reload reloads} the user, so a new
+ * password set through another instance works at once, but the old one keeps working on this instance until the
+ * entry expires. Keep {@code auth.user-cache.ttl} as short as that window may be.
+ */
+@Component
+public class UserLookupCache {
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${auth.user-cache.max-size:10000}")
+    private long maxSize = 10000;
+
+    @Value("${auth.user-cache.ttl:1m}")
+    private Duration ttl = Duration.ofMinutes(1);
+
+    @Value("${auth.user-cache.negative-ttl:5s}")
+    private Duration negativeTtl = Duration.ofSeconds(5);
+
+    private Cache<String, Optional<UserCredentials>> users;
+
+    @PostConstruct
+    void init() {
+        users = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new LookupExpiry(ttl.toNanos(), negativeTtl.toNanos()))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, users, "auth.users");
+    }
+
+    public Optional<UserCredentials> findByUsername(String username) {
+        return users.get(username, key -> userRepository.findByUsername(key).map(UserCredentials::of));
+    }
+
+    /**
+     * Reads the user from the database and replaces the cached entry with it.
+     */
+    public Optional<UserCredentials> reload(String username) {
+        Optional<UserCredentials> credentials = userRepository.findByUsername(username).map(UserCredentials::of);
+        users.put(username, credentials);
+        return credentials;
+    }
+
+    /**
+     * Returns {@code true} only when the username is cached as taken; a miss never goes to the database.
+     */
+    public boolean isKnownTaken(String username) {
+        Optional<UserCredentials> cached = users.getIfPresent(username);
+        return cached != null && cached.isPresent();
+    }
+
+    public void put(UserCredentials credentials) {
+        users.put(credentials.getUsername(), Optional.of(credentials));
+    }
+
+    public void invalidate(String username) {
+        users.invalidate(username);
+    }
+
+    private static class LookupExpiry implements Expiry<String, Optional<UserCredentials>> {
+
+        private final long ttlNanos;
+
+        private final long negativeTtlNanos;
+
+        LookupExpiry(long ttlNanos, long negativeTtlNanos) {
+            this.ttlNanos = ttlNanos;
+            this.negativeTtlNanos = negativeTtlNanos;
+        }
+
+        @Override
+        public long expireAfterCreate(String key, Optional<UserCredentials> value, long currentTime) {
+            return value.isPresent() ? ttlNanos : negativeTtlNanos;
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, Optional<UserCredentials> value, long currentTime, long currentDuration) {
+            return value.isPresent() ? ttlNanos : negativeTtlNanos;
+        }
+
+        @Override
+        public long expireAfterRead(String key, Optional<UserCredentials> value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
@@ -0,0 +1,8 @@
+package com.mpiaseczny.auth_service.service;
+
+public class UsernameTakenException extends RuntimeException {
+
+    public UsernameTakenException() {
+        super("Username is already taken!");
+    }
+}
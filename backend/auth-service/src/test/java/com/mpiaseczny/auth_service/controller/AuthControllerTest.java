@@ -0,0 +1,86 @@
+package com.mpiaseczny.auth_service.controller;
+
+import com.mpiaseczny.auth_service.service.AuthService;
+import com.mpiaseczny.auth_service.service.PasswordHashingBusyException;
+import com.mpiaseczny.auth_service.service.PasswordHashingException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+class AuthControllerTest {
+
+    private static final String CREDENTIALS = "{\"username\":\"user\",\"password\":\"password\"}";
+
+    private final AuthService authService = mock(AuthService.class);
+
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        AuthController authController = new AuthController();
+        ReflectionTestUtils.setField(authController, "authService", authService);
+        mockMvc = MockMvcBuilders.standaloneSetup(authController).build();
+    }
+
+    @Test
+    void login_WhenHashingPoolIsFull_ShouldReturnTooManyRequests() throws Exception {
+        // Given
+        when(authService.login(any())).thenThrow(new PasswordHashingBusyException());
+
+        // When & Then
+        mockMvc.perform(post("/api/auth/login")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(CREDENTIALS))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().string(HttpHeaders.RETRY_AFTER, "1"));
+    }
+
+    @Test
+    void login_WhenHashingFails_ShouldReturnInternalServerError() throws Exception {
+        // Given
+        when(authService.login(any()))
+                .thenThrow(new PasswordHashingException("Password hashing failed", new IllegalArgumentException()));
+
+        // When & Then
+        mockMvc.perform(post("/api/auth/login")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(CREDENTIALS))
+                .andExpect(status().isInternalServerError())
+                .andExpect(jsonPath("$.error").value("Password hashing failed"));
+    }
+
+    @Test
+    void login_WithWrongPassword_ShouldReturnUnauthorized() throws Exception {
+        // Given
+        when(authService.login(any())).thenThrow(new RuntimeException("Invalid username or password"));
+
+        // When & Then
+        mockMvc.perform(post("/api/auth/login")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(CREDENTIALS))
+                .andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    void register_WhenHashingFails_ShouldReturnInternalServerError() throws Exception {
+        // Given
+        when(authService.register(any()))
+                .thenThrow(new PasswordHashingException("Password hashing failed", new IllegalArgumentException()));
+
+        // When & Then
+        mockMvc.perform(post("/api/auth/register")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(CREDENTIALS))
+                .andExpect(status().isInternalServerError());
+    }
+}
@@ -0,0 +1,34 @@
+package com.mpiaseczny.auth_service.service;
+
+import com.mpiaseczny.auth_service.dto.RegisterRequest;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@SpringBootTest(properties = {
+        "spring.cloud.consul.enabled=false",
+        "spring.cloud.consul.discovery.enabled=false",
+        "auth.password.bcrypt-strength=4"
+})
+class AuthServiceIntegrationTest {
+
+    @Autowired
+    private AuthService authService;
+
+    @Autowired
+    private UserLookupCache userLookupCache;
+
+    @Test
+    void register_WithTakenUsername_ShouldRecognizeTheUniqueConstraint() {
+        // Given
+        authService.register(new RegisterRequest("taken-user", "password"));
+        // As if registered through another instance, so the insert itself has to fail
+        userLookupCache.invalidate("taken-user");
+
+        // When & Then
+        assertThrows(UsernameTakenException.class,
+                () -> authService.register(new RegisterRequest("taken-user", "password")));
+    }
+}
@@ -0,0 +1,94 @@
+package com.mpiaseczny.auth_service.service;
+
+import com.mpiaseczny.auth_service.dto.RegisterRequest;
+import com.mpiaseczny.auth_service.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Registers every username from several threads at once and prints registrations/sec. Each username is attempted
+ * {@code CONTENDERS} times, so exactly one attempt per name must win and the rest must end as a conflict.
+ * BCrypt runs at the minimum strength so the database path dominates. Not picked up by the default surefire
+ * includes; run with {@code mvn test -Dtest=AuthServiceRegistrationBenchmark}.
+ */
+@SpringBootTest(properties = {
+        "spring.cloud.consul.enabled=false",
+        "spring.cloud.consul.discovery.enabled=false",
+        "spring.jpa.show-sql=false",
+        "auth.password.bcrypt-strength=4",
+        "auth.password.hashing.queue-capacity=10000",
+        "logging.level.root=WARN",
+        "logging.level.org.hibernate.engine.jdbc.spi.SqlExceptionHelper=OFF"
+})
+class AuthServiceRegistrationBenchmark {
+
+    private static final int THREADS = 32;
+
+    private static final int WARMUP_USERNAMES = 1_000;
+
+    private static final int MEASURED_USERNAMES = 5_000;
+
+    private static final int CONTENDERS = 2;
+
+    @Autowired
+    private AuthService authService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Test
+    void concurrentRegistrations() throws Exception {
+        ExecutorService clients = Executors.newFixedThreadPool(THREADS);
+        try {
+            register(clients, "warmup-", WARMUP_USERNAMES);
+
+            long start = System.nanoTime();
+            int[] outcome = register(clients, "user-", MEASURED_USERNAMES);
+            double seconds = (System.nanoTime() - start) / 1_000_000_000.0;
+
+            System.out.printf("threads: %d, attempts: %d, registered: %d, conflicts: %d, %.0f attempts/sec%n",
+                    THREADS, MEASURED_USERNAMES * CONTENDERS, outcome[0], outcome[1],
+                    MEASURED_USERNAMES * CONTENDERS / seconds);
+            assertEquals(MEASURED_USERNAMES, outcome[0]);
+            assertEquals(MEASURED_USERNAMES * (CONTENDERS - 1), outcome[1]);
+            assertEquals(WARMUP_USERNAMES + MEASURED_USERNAMES, userRepository.count());
+        } finally {
+            clients.shutdownNow();
+            clients.awaitTermination(10, TimeUnit.SECONDS);
+        }
+    }
+
+    private int[] register(ExecutorService clients, String prefix, int usernames) throws Exception {
+        AtomicInteger registered = new AtomicInteger();
+        AtomicInteger conflicts = new AtomicInteger();
+        List<Future<?>> attempts = new ArrayList<>(usernames * CONTENDERS);
+        for (int i = 0; i < usernames; i++) {
+            RegisterRequest request = new RegisterRequest(prefix + i, "password");
+            for (int c = 0; c < CONTENDERS; c++) {
+                attempts.add(clients.submit(() -> {
+                    try {
+                        authService.register(request);
+                        registered.incrementAndGet();
+                    } catch (UsernameTakenException e) {
+                        conflicts.incrementAndGet();
+                    }
+                }));
+            }
+        }
+        for (Future<?> attempt : attempts) {
+            attempt.get();
+        }
+        return new int[]{registered.get(), conflicts.get()};
+    }
+}
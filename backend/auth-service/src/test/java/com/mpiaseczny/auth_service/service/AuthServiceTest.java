@@ -0,0 +1,148 @@
+package com.mpiaseczny.auth_service.service;
+
+import com.mpiaseczny.auth_service.dto.AuthResponse;
+import com.mpiaseczny.auth_service.dto.LoginRequest;
+import com.mpiaseczny.auth_service.dto.RegisterRequest;
+import com.mpiaseczny.auth_service.entity.User;
+import com.mpiaseczny.auth_service.repository.UserRepository;
+import com.mpiaseczny.auth_service.util.JwtUtil;
+import org.hibernate.exception.ConstraintViolationException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.sql.SQLException;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class AuthServiceTest {
+
+    private static final UserCredentials USER = new UserCredentials(1L, "user", "$2a$04$legacy");
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private PasswordHashingService passwordHashingService;
+
+    @Mock
+    private UserLookupCache userLookupCache;
+
+    @Mock
+    private JwtUtil jwtUtil;
+
+    @InjectMocks
+    private AuthService authService;
+
+    @Test
+    void login_WithOutdatedHash_ShouldStoreTheUpgradedHash() {
+        // Given
+        givenVerifiedLoginWithOutdatedHash();
+        when(passwordHashingService.encode("password")).thenReturn("{bcrypt}upgraded");
+
+        // When
+        authService.login(new LoginRequest("user", "password"));
+
+        // Then
+        verify(userRepository).updatePassword(1L, "{bcrypt}upgraded");
+        ArgumentCaptor<UserCredentials> cached = ArgumentCaptor.forClass(UserCredentials.class);
+        verify(userLookupCache).put(cached.capture());
+        assertEquals("{bcrypt}upgraded", cached.getValue().getPassword());
+    }
+
+    @Test
+    void login_WhenHashingIsBusyDuringUpgrade_ShouldStillLogIn() {
+        // Given
+        givenVerifiedLoginWithOutdatedHash();
+        when(passwordHashingService.encode("password")).thenThrow(new PasswordHashingBusyException());
+
+        // When
+        AuthResponse response = authService.login(new LoginRequest("user", "password"));
+
+        // Then
+        assertEquals("token", response.getToken());
+        verify(userRepository, never()).updatePassword(anyLong(), anyString());
+        verify(userLookupCache, never()).put(any());
+    }
+
+    @Test
+    void register_WhenUsernameConstraintIsViolated_ShouldThrowUsernameTaken() {
+        // Given
+        when(passwordHashingService.encode("password")).thenReturn("{bcrypt}hash");
+        when(userRepository.saveAndFlush(any(User.class))).thenThrow(violation("PUBLIC.UK_USERS_USERNAME_INDEX_4"));
+
+        // When & Then
+        assertThrows(UsernameTakenException.class, () -> authService.register(new RegisterRequest("user", "password")));
+        verify(userLookupCache).invalidate("user");
+    }
+
+    @Test
+    void register_WhenAnotherConstraintIsViolated_ShouldRethrowIt() {
+        // Given
+        DataIntegrityViolationException violation = violation("ck_users_password");
+        when(passwordHashingService.encode("password")).thenReturn("{bcrypt}hash");
+        when(userRepository.saveAndFlush(any(User.class))).thenThrow(violation);
+
+        // When & Then
+        assertSame(violation, assertThrows(DataIntegrityViolationException.class,
+                () -> authService.register(new RegisterRequest("user", "password"))));
+        verify(userLookupCache, never()).invalidate(anyString());
+    }
+
+    @Test
+    void login_WhenCachedHashIsStale_ShouldRetryWithTheCurrentHash() {
+        // Given
+        UserCredentials changed = new UserCredentials(1L, "user", "{bcrypt}changed");
+        when(userLookupCache.findByUsername("user")).thenReturn(Optional.of(USER));
+        when(passwordHashingService.matches("new-password", USER.getPassword())).thenReturn(false);
+        when(userLookupCache.reload("user")).thenReturn(Optional.of(changed));
+        when(passwordHashingService.matches("new-password", changed.getPassword())).thenReturn(true);
+        when(jwtUtil.generateToken(1L, "user")).thenReturn("token");
+
+        // When
+        AuthResponse response = authService.login(new LoginRequest("user", "new-password"));
+
+        // Then
+        assertEquals("token", response.getToken());
+    }
+
+    @Test
+    void login_WithWrongPassword_ShouldHashOnlyOnceWhenTheHashIsCurrent() {
+        // Given
+        when(userLookupCache.findByUsername("user")).thenReturn(Optional.of(USER));
+        when(passwordHashingService.matches("wrong", USER.getPassword())).thenReturn(false);
+        when(userLookupCache.reload("user")).thenReturn(Optional.of(USER));
+
+        // When & Then
+        assertThrows(RuntimeException.class, () -> authService.login(new LoginRequest("user", "wrong")));
+        verify(passwordHashingService, times(1)).matches(anyString(), anyString());
+    }
+
+    private static DataIntegrityViolationException violation(String constraintName) {
+        SQLException sqlException = new SQLException("Constraint violation", "23505");
+        return new DataIntegrityViolationException("could not execute statement",
+                new ConstraintViolationException("could not execute statement", sqlException, constraintName));
+    }
+
+    private void givenVerifiedLoginWithOutdatedHash() {
+        when(userLookupCache.findByUsername("user")).thenReturn(Optional.of(USER));
+        when(passwordHashingService.matches("password", USER.getPassword())).thenReturn(true);
+        when(passwordHashingService.upgradeEncoding(USER.getPassword())).thenReturn(true);
+        when(jwtUtil.generateToken(1L, "user")).thenReturn("token");
+    }
+}
@@ -0,0 +1,81 @@
+package com.mpiaseczny.auth_service.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class PasswordHashingServiceTest {
+
+    private final PasswordEncoder passwordEncoder = mock(PasswordEncoder.class);
+
+    private final ThreadPoolExecutor passwordHashingExecutor =
+            new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(1));
+
+    private PasswordHashingService passwordHashingService;
+
+    @BeforeEach
+    void setUp() {
+        passwordHashingService = new PasswordHashingService();
+        ReflectionTestUtils.setField(passwordHashingService, "passwordEncoder", passwordEncoder);
+        ReflectionTestUtils.setField(passwordHashingService, "passwordHashingExecutor", passwordHashingExecutor);
+        ReflectionTestUtils.setField(passwordHashingService, "meterRegistry", new SimpleMeterRegistry());
+        passwordHashingService.registerMeters();
+    }
+
+    @AfterEach
+    void tearDown() {
+        passwordHashingExecutor.shutdownNow();
+    }
+
+    @Test
+    void encode_ShouldReturnTheEncodersHash() {
+        // Given
+        when(passwordEncoder.encode("password")).thenReturn("{bcrypt}hash");
+
+        // When & Then
+        assertEquals("{bcrypt}hash", passwordHashingService.encode("password"));
+    }
+
+    @Test
+    void encode_WhenPoolAndQueueAreFull_ShouldFailFast() throws Exception {
+        // Given
+        CountDownLatch release = new CountDownLatch(1);
+        passwordHashingExecutor.submit(() -> release.await(5, TimeUnit.SECONDS));
+        passwordHashingExecutor.submit(() -> release.await(5, TimeUnit.SECONDS));
+
+        // When & Then
+        try {
+            assertThrows(PasswordHashingBusyException.class, () -> passwordHashingService.encode("password"));
+        } finally {
+            release.countDown();
+        }
+    }
+
+    @Test
+    void matches_WhenEncoderFails_ShouldThrowPasswordHashingException() {
+        // Given
+        IllegalArgumentException failure = new IllegalArgumentException("Invalid salt");
+        when(passwordEncoder.matches(anyString(), anyString())).thenThrow(failure);
+
+        // When
+        PasswordHashingException e = assertThrows(PasswordHashingException.class,
+                () -> passwordHashingService.matches("password", "{bcrypt}hash"));
+
+        // Then
+        assertEquals(failure, e.getCause());
+    }
+}
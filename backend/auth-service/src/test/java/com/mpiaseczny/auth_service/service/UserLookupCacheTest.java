@@ -0,0 +1,95 @@
+package com.mpiaseczny.auth_service.service;
+
+import com.mpiaseczny.auth_service.entity.User;
+import com.mpiaseczny.auth_service.repository.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class UserLookupCacheTest {
+
+    private final UserRepository userRepository = mock(UserRepository.class);
+
+    private UserLookupCache userLookupCache;
+
+    @BeforeEach
+    void setUp() {
+        userLookupCache = new UserLookupCache();
+        ReflectionTestUtils.setField(userLookupCache, "userRepository", userRepository);
+        ReflectionTestUtils.setField(userLookupCache, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(userLookupCache, "negativeTtl", Duration.ofMillis(1));
+        userLookupCache.init();
+    }
+
+    @Test
+    void findByUsername_ShouldQueryAKnownUserOnce() {
+        // Given
+        when(userRepository.findByUsername("user")).thenReturn(Optional.of(user("{bcrypt}hash")));
+
+        // When
+        userLookupCache.findByUsername("user");
+        Optional<UserCredentials> credentials = userLookupCache.findByUsername("user");
+
+        // Then
+        assertEquals("{bcrypt}hash", credentials.orElseThrow().getPassword());
+        verify(userRepository, times(1)).findByUsername("user");
+    }
+
+    @Test
+    void findByUsername_ShouldForgetAnUnknownUserAfterTheNegativeTtl() throws Exception {
+        // Given
+        when(userRepository.findByUsername("user")).thenReturn(Optional.empty());
+        userLookupCache.findByUsername("user");
+        // Registered through another instance
+        when(userRepository.findByUsername("user")).thenReturn(Optional.of(user("{bcrypt}hash")));
+        Thread.sleep(20);
+
+        // When & Then
+        assertTrue(userLookupCache.findByUsername("user").isPresent());
+    }
+
+    @Test
+    void reload_ShouldReplaceTheCachedHash() {
+        // Given
+        when(userRepository.findByUsername("user")).thenReturn(Optional.of(user("{bcrypt}old")));
+        userLookupCache.findByUsername("user");
+        // Changed through another instance
+        when(userRepository.findByUsername("user")).thenReturn(Optional.of(user("{bcrypt}new")));
+
+        // When
+        userLookupCache.reload("user");
+
+        // Then
+        assertEquals("{bcrypt}new", userLookupCache.findByUsername("user").orElseThrow().getPassword());
+        verify(userRepository, times(2)).findByUsername("user");
+    }
+
+    @Test
+    void isKnownTaken_ShouldNeverQueryTheDatabase() {
+        // When & Then
+        assertFalse(userLookupCache.isKnownTaken("user"));
+        userLookupCache.put(new UserCredentials(1L, "user", "{bcrypt}hash"));
+        assertTrue(userLookupCache.isKnownTaken("user"));
+        verify(userRepository, never()).findByUsername(anyString());
+    }
+
+    private static User user(String password) {
+        User user = new User("user", password);
+        user.setId(1L);
+        return user;
+    }
+}
@@ -0,0 +1,60 @@
+package com.mpiaseczny.benchmarks;
+
+import org.openjdk.jmh.Main;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Entry point of {@code benchmarks.jar}. Takes the usual JMH command line, but always profiles allocations with
+ * {@code -prof gc} and, unless {@code -rf}/{@code -rff} say otherwise, writes JSON results to
+ * {@code results/<version>.json} so two releases can be compared file to file.
+ */
+public final class BenchmarkRunner {
+
+    private static final String RESULTS_DIRECTORY = "results";
+
+    private BenchmarkRunner() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        CommandLineOptions commandLine = new CommandLineOptions(args);
+        if (commandLine.shouldHelp() || commandLine.shouldList() || commandLine.shouldListProfilers()
+                || commandLine.shouldListResultFormats() || commandLine.shouldListWithParams()) {
+            Main.main(args);
+            return;
+        }
+
+        ChainedOptionsBuilder options = new OptionsBuilder().parent(commandLine);
+
+        boolean gcProfiled = commandLine.getProfilers().stream()
+                .anyMatch(profiler -> profiler.getKlass().equals("gc") || profiler.getKlass().equals(GCProfiler.class.getName()));
+        if (!gcProfiled) {
+            options.addProfiler(GCProfiler.class);
+        }
+
+        if (!commandLine.getResultFormat().hasValue()) {
+            options.resultFormat(ResultFormatType.JSON);
+        }
+        if (!commandLine.getResult().hasValue()) {
+            Path resultFile = Paths.get(RESULTS_DIRECTORY, version() + ".json");
+            Files.createDirectories(resultFile.getParent());
+            options.result(resultFile.toString());
+        }
+
+        new Runner(options.build()).run();
+    }
+
+    // Set by the shade plugin; -Dbenchmarks.version names a run after something else, e.g. a branch
+    private static String version() {
+        String implementationVersion = BenchmarkRunner.class.getPackage().getImplementationVersion();
+        return System.getProperty("benchmarks.version", implementationVersion != null ? implementationVersion : "dev");
+    }
+}
@@ -0,0 +1,91 @@
+package com.mpiaseczny.benchmarks;
+
+import com.mpiaseczny.api_gateway.util.JwtUtil;
+import com.mpiaseczny.api_gateway.util.VerifiedToken;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link JwtUtil#verify} as the gateway filter calls it for every request. With {@code cacheMaxSize=0} every call
+ * parses and checks the signature; with the default size the tokens stay cached and a call is a hash and a lookup.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtVerificationBenchmark {
+
+    private static final String SECRET = "benchmarkSecretKeyThatIsLongEnoughForHmacSha512SignaturesAsIssuedByAuthService";
+
+    private static final int TOKENS = 1024;
+
+    @Param({"0", "10000"})
+    private long cacheMaxSize;
+
+    private JwtUtil jwtUtil;
+
+    private String[] tokens;
+
+    private String forgedToken;
+
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        jwtUtil = new JwtUtil();
+        ReflectionTestUtils.setField(jwtUtil, "secret", SECRET);
+        ReflectionTestUtils.setField(jwtUtil, "cacheMaxSize", cacheMaxSize);
+        ReflectionTestUtils.setField(jwtUtil, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.invokeMethod(jwtUtil, "init");
+
+        // One token per simulated user, as issued by auth-service
+        Date expiration = new Date(System.currentTimeMillis() + TimeUnit.HOURS.toMillis(1));
+        tokens = new String[TOKENS];
+        for (int i = 0; i < TOKENS; i++) {
+            tokens[i] = sign("user" + i, (long) i, expiration, SECRET);
+        }
+        forgedToken = sign("user0", 0L, expiration, SECRET.replace('b', 'c'));
+    }
+
+    @Benchmark
+    public VerifiedToken verify() {
+        next = (next + 1) & (TOKENS - 1);
+        return jwtUtil.verify(tokens[next]);
+    }
+
+    @Benchmark
+    public VerifiedToken verifyForged() {
+        return jwtUtil.verify(forgedToken);
+    }
+
+    private static String sign(String subject, Long userId, Date expiration, String secret) {
+        return Jwts.builder()
+                .setSubject(subject)
+                .claim("userId", userId)
+                .setIssuedAt(new Date())
+                .setExpiration(expiration)
+                .signWith(Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8)), SignatureAlgorithm.HS512)
+                .compact();
+    }
+}
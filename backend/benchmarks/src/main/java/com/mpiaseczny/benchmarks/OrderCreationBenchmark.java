@@ -0,0 +1,196 @@
+package com.mpiaseczny.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mpiaseczny.order_service.config.KafkaConfig;
+import com.mpiaseczny.order_service.dto.CreateOrderRequest;
+import com.mpiaseczny.order_service.entity.Order;
+import com.mpiaseczny.order_service.entity.OrderOutboxEvent;
+import com.mpiaseczny.order_service.repository.OrderOutboxRepository;
+import com.mpiaseczny.order_service.repository.OrderRepository;
+import com.mpiaseczny.order_service.service.OrderListCache;
+import com.mpiaseczny.order_service.service.OrderMetrics;
+import com.mpiaseczny.order_service.service.OrderOutboxRelay;
+import com.mpiaseczny.order_service.service.OrderOutboxService;
+import com.mpiaseczny.order_service.service.OrderService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.clients.producer.RecordMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.serialization.Serializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.Limit;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.core.ProducerFactory;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * {@link OrderService#createOrder} against in-memory repositories, without a database or transaction. Shows the
+ * service's own cost: building the order, serializing the outbox payload, invalidating the user's cached lists and
+ * timing the operation. {@code createOrderAndPublish} also runs the outbox relay once, through a
+ * {@link KafkaTemplate} that serializes the record like the producer would on the calling thread and acknowledges it
+ * immediately.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OrderCreationBenchmark {
+
+    private static final Long USER_ID = 42L;
+
+    private final AtomicLong orderIds = new AtomicLong();
+
+    private final AtomicLong outboxIds = new AtomicLong();
+
+    private final Deque<OrderOutboxEvent> outbox = new ArrayDeque<>();
+
+    private final CreateOrderRequest request = new CreateOrderRequest(100L, "Two boxes of printer paper");
+
+    private OrderService orderService;
+
+    private OrderOutboxRelay orderOutboxRelay;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        OrderOutboxRepository orderOutboxRepository = outboxRepository();
+
+        OrderListCache orderListCache = new OrderListCache();
+        ReflectionTestUtils.setField(orderListCache, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.invokeMethod(orderListCache, "init");
+
+        OrderOutboxService orderOutboxService = new OrderOutboxService();
+        ReflectionTestUtils.setField(orderOutboxService, "orderOutboxRepository", orderOutboxRepository);
+        ReflectionTestUtils.setField(orderOutboxService, "objectMapper", objectMapper);
+
+        orderService = new OrderService();
+        ReflectionTestUtils.setField(orderService, "orderRepository", orderRepository());
+        ReflectionTestUtils.setField(orderService, "orderOutboxService", orderOutboxService);
+        ReflectionTestUtils.setField(orderService, "orderListCache", orderListCache);
+        ReflectionTestUtils.setField(orderService, "orderMetrics", new OrderMetrics(meterRegistry));
+
+        KafkaConfig kafkaConfig = new KafkaConfig();
+        ReflectionTestUtils.setField(kafkaConfig, "bootstrapServers", "localhost:9092");
+        ReflectionTestUtils.setField(kafkaConfig, "acks", "all");
+        ReflectionTestUtils.setField(kafkaConfig, "compressionType", "none");
+        ReflectionTestUtils.setField(kafkaConfig, "meterRegistry", meterRegistry);
+
+        orderOutboxRelay = new OrderOutboxRelay();
+        ReflectionTestUtils.setField(orderOutboxRelay, "orderOutboxRepository", orderOutboxRepository);
+        ReflectionTestUtils.setField(orderOutboxRelay, "kafkaTemplate", new AcknowledgingKafkaTemplate(kafkaConfig.producerFactory()));
+        ReflectionTestUtils.setField(orderOutboxRelay, "objectMapper", objectMapper);
+        ReflectionTestUtils.setField(orderOutboxRelay, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.invokeMethod(orderOutboxRelay, "registerMeters");
+    }
+
+    @Benchmark
+    public Order createOrder() {
+        Order order = orderService.createOrder(USER_ID, request);
+        // Nothing relays here, so keep the outbox from growing over the iteration
+        outbox.clear();
+        return order;
+    }
+
+    @Benchmark
+    public Order createOrderAndPublish() {
+        Order order = orderService.createOrder(USER_ID, request);
+        orderOutboxRelay.relay();
+        return order;
+    }
+
+    private OrderRepository orderRepository() {
+        return RepositoryStubs.stub(OrderRepository.class, Map.of(
+                "save", args -> {
+                    // What the sequence and @PrePersist would have filled in
+                    Order order = (Order) args[0];
+                    order.setId(orderIds.incrementAndGet());
+                    order.setCreatedAt(Instant.now().truncatedTo(ChronoUnit.MICROS));
+                    order.setVersion(0L);
+                    return order;
+                }
+        ));
+    }
+
+    private OrderOutboxRepository outboxRepository() {
+        return RepositoryStubs.stub(OrderOutboxRepository.class, Map.of(
+                "save", args -> {
+                    OrderOutboxEvent event = (OrderOutboxEvent) args[0];
+                    event.setId(outboxIds.incrementAndGet());
+                    event.setCreatedAt(Instant.now());
+                    outbox.add(event);
+                    return event;
+                },
+                "findAllByOrderByIdAsc", args -> {
+                    int max = ((Limit) args[0]).max();
+                    List<OrderOutboxEvent> batch = new ArrayList<>(Math.min(max, outbox.size()));
+                    for (OrderOutboxEvent event : outbox) {
+                        if (batch.size() == max) {
+                            break;
+                        }
+                        batch.add(event);
+                    }
+                    return batch;
+                },
+                "deleteAllByIdInBatch", args -> {
+                    Collection<?> ids = (Collection<?>) args[0];
+                    outbox.removeIf(event -> ids.contains(event.getId()));
+                    return null;
+                }
+        ));
+    }
+
+    /**
+     * Serializes key and value with the serializers configured in order-service, then acknowledges at once.
+     */
+    private static class AcknowledgingKafkaTemplate extends KafkaTemplate<String, Object> {
+
+        private final Serializer<String> keySerializer = new StringSerializer();
+
+        private final Serializer<Object> valueSerializer = new JsonSerializer<>();
+
+        private final AtomicLong offsets = new AtomicLong();
+
+        AcknowledgingKafkaTemplate(ProducerFactory<String, Object> producerFactory) {
+            super(producerFactory);
+            valueSerializer.configure(producerFactory.getConfigurationProperties(), false);
+        }
+
+        @Override
+        public CompletableFuture<SendResult<String, Object>> send(ProducerRecord<String, Object> record) {
+            byte[] key = keySerializer.serialize(record.topic(), record.headers(), record.key());
+            byte[] value = valueSerializer.serialize(record.topic(), record.headers(), record.value());
+            RecordMetadata metadata = new RecordMetadata(new TopicPartition(record.topic(), 0), offsets.getAndIncrement(), 0,
+                    System.currentTimeMillis(), key.length, value.length);
+            return CompletableFuture.completedFuture(new SendResult<>(record, metadata));
+        }
+    }
+}
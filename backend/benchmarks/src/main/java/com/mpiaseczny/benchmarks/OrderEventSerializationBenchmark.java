@@ -0,0 +1,135 @@
+package com.mpiaseczny.benchmarks;
+
+import com.mpiaseczny.notification_service.enums.NotificationRoutingMode;
+import com.mpiaseczny.order_service.common.enums.OrderStatus;
+import com.mpiaseczny.order_service.dto.OrderCreatedEvent;
+import com.mpiaseczny.order_service.dto.OrderStatusChangedEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.apache.kafka.common.serialization.Deserializer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.kafka.support.mapping.AbstractJavaTypeMapper;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The order event payloads on the wire: serialized by order-service's producer {@link JsonSerializer} and read back
+ * by notification-service's consumer deserializer, both built from the services' own Kafka configuration.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OrderEventSerializationBenchmark {
+
+    private static final String ORDER_CREATED_TOPIC = "order-created";
+
+    private static final String ORDER_STATUS_CHANGED_TOPIC = "order-status-changed";
+
+    private JsonSerializer<Object> serializer;
+
+    private Deserializer<Object> deserializer;
+
+    private OrderCreatedEvent orderCreatedEvent;
+
+    private OrderStatusChangedEvent orderStatusChangedEvent;
+
+    private byte[] orderCreatedPayload;
+
+    private Header orderCreatedType;
+
+    private byte[] orderStatusChangedPayload;
+
+    private Header orderStatusChangedType;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        serializer = producerSerializer();
+        deserializer = consumerDeserializer();
+
+        Instant now = Instant.now();
+        orderCreatedEvent = new OrderCreatedEvent(1L, now, OrderStatus.PENDING, 42L, 100L, "Two boxes of printer paper");
+        orderStatusChangedEvent = new OrderStatusChangedEvent(1L, OrderStatus.PENDING, OrderStatus.CONFIRMED, 42L, now);
+
+        Headers headers = new RecordHeaders();
+        orderCreatedPayload = serializer.serialize(ORDER_CREATED_TOPIC, headers, orderCreatedEvent);
+        orderCreatedType = headers.lastHeader(AbstractJavaTypeMapper.DEFAULT_CLASSID_FIELD_NAME);
+
+        headers = new RecordHeaders();
+        orderStatusChangedPayload = serializer.serialize(ORDER_STATUS_CHANGED_TOPIC, headers, orderStatusChangedEvent);
+        orderStatusChangedType = headers.lastHeader(AbstractJavaTypeMapper.DEFAULT_CLASSID_FIELD_NAME);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        serializer.close();
+        deserializer.close();
+    }
+
+    @Benchmark
+    public byte[] serializeOrderCreated() {
+        return serializer.serialize(ORDER_CREATED_TOPIC, new RecordHeaders(), orderCreatedEvent);
+    }
+
+    @Benchmark
+    public byte[] serializeOrderStatusChanged() {
+        return serializer.serialize(ORDER_STATUS_CHANGED_TOPIC, new RecordHeaders(), orderStatusChangedEvent);
+    }
+
+    @Benchmark
+    public Object deserializeOrderCreated() {
+        // The deserializer removes the type header it read, so every record needs its own headers
+        return deserializer.deserialize(ORDER_CREATED_TOPIC, new RecordHeaders(new Header[]{orderCreatedType}), orderCreatedPayload);
+    }
+
+    @Benchmark
+    public Object deserializeOrderStatusChanged() {
+        return deserializer.deserialize(ORDER_STATUS_CHANGED_TOPIC, new RecordHeaders(new Header[]{orderStatusChangedType}),
+                orderStatusChangedPayload);
+    }
+
+    // The value serializer Kafka instantiates from order-service's producer configuration
+    private static JsonSerializer<Object> producerSerializer() {
+        com.mpiaseczny.order_service.config.KafkaConfig kafkaConfig = new com.mpiaseczny.order_service.config.KafkaConfig();
+        ReflectionTestUtils.setField(kafkaConfig, "bootstrapServers", "localhost:9092");
+        ReflectionTestUtils.setField(kafkaConfig, "acks", "all");
+        ReflectionTestUtils.setField(kafkaConfig, "compressionType", "none");
+        ReflectionTestUtils.setField(kafkaConfig, "meterRegistry", new SimpleMeterRegistry());
+
+        JsonSerializer<Object> serializer = new JsonSerializer<>();
+        serializer.configure(kafkaConfig.producerFactory().getConfigurationProperties(), false);
+        return serializer;
+    }
+
+    // notification-service's consumer value deserializer, on an ObjectMapper configured like Spring Boot's
+    private static Deserializer<Object> consumerDeserializer() {
+        com.mpiaseczny.notification_service.config.KafkaConfig kafkaConfig = new com.mpiaseczny.notification_service.config.KafkaConfig();
+        ReflectionTestUtils.setField(kafkaConfig, "bootstrapServers", "localhost:9092");
+        ReflectionTestUtils.setField(kafkaConfig, "consumerGroupId", "notification-service");
+        ReflectionTestUtils.setField(kafkaConfig, "routingMode", NotificationRoutingMode.BROADCAST);
+        ReflectionTestUtils.setField(kafkaConfig, "instanceId", "benchmark");
+        ReflectionTestUtils.setField(kafkaConfig, "objectMapper", Jackson2ObjectMapperBuilder.json().build());
+        ReflectionTestUtils.setField(kafkaConfig, "meterRegistry", new SimpleMeterRegistry());
+
+        return kafkaConfig.consumerFactory().getValueDeserializer();
+    }
+}
@@ -0,0 +1,132 @@
+package com.mpiaseczny.benchmarks;
+
+import com.mpiaseczny.notification_service.config.SseConfig;
+import com.mpiaseczny.notification_service.dto.EventId;
+import com.mpiaseczny.notification_service.dto.NotificationEvent;
+import com.mpiaseczny.notification_service.dto.OrderCreatedEvent;
+import com.mpiaseczny.notification_service.enums.OrderStatus;
+import com.mpiaseczny.notification_service.service.DeliveryTracker;
+import com.mpiaseczny.notification_service.service.NotificationHistory;
+import com.mpiaseczny.notification_service.service.NotificationService;
+import com.mpiaseczny.notification_service.service.SseFanoutEngine;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.env.StandardEnvironment;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * One order created event sent to a user with {@code connections} open SSE emitters, measured until every emitter
+ * has been handed the frame by the writer pool. Covers building the frames, recording them in the replay history,
+ * queueing per connection and draining on {@code sseWriterExecutor}; the emitters only count, so socket writes and
+ * JSON encoding of the payload are not included.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SseFanoutBenchmark {
+
+    private static final Long USER_ID = 42L;
+
+    @Param({"1", "10", "100", "1000"})
+    private int connections;
+
+    private final AtomicLong delivered = new AtomicLong();
+
+    private ThreadPoolExecutor sseWriterExecutor;
+
+    private NotificationService notificationService;
+
+    private List<NotificationEvent> events;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+        SseConfig sseConfig = new SseConfig();
+        ReflectionTestUtils.setField(sseConfig, "writerThreads", 16);
+        ReflectionTestUtils.setField(sseConfig, "environment", new StandardEnvironment());
+        sseWriterExecutor = sseConfig.sseWriterExecutor();
+
+        DeliveryTracker deliveryTracker = new DeliveryTracker();
+        ReflectionTestUtils.setField(deliveryTracker, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.invokeMethod(deliveryTracker, "registerMeters");
+
+        SseFanoutEngine sseFanoutEngine = new SseFanoutEngine();
+        ReflectionTestUtils.setField(sseFanoutEngine, "sseWriterExecutor", sseWriterExecutor);
+        ReflectionTestUtils.setField(sseFanoutEngine, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(sseFanoutEngine, "deliveryTracker", deliveryTracker);
+        ReflectionTestUtils.invokeMethod(sseFanoutEngine, "registerMeters");
+
+        NotificationHistory notificationHistory = new NotificationHistory();
+        ReflectionTestUtils.setField(notificationHistory, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.invokeMethod(notificationHistory, "init");
+
+        notificationService = new NotificationService();
+        ReflectionTestUtils.setField(notificationService, "sseFanoutEngine", sseFanoutEngine);
+        ReflectionTestUtils.setField(notificationService, "notificationHistory", notificationHistory);
+        ReflectionTestUtils.setField(notificationService, "deliveryTracker", deliveryTracker);
+
+        for (int i = 0; i < connections; i++) {
+            sseFanoutEngine.register(USER_ID, new CountingEmitter(), SseEmitter.event().name("connected").data("").build());
+        }
+        awaitDelivered(connections);
+
+        OrderCreatedEvent event = new OrderCreatedEvent(1L, Instant.now(), OrderStatus.PENDING, USER_ID, 100L,
+                "Two boxes of printer paper");
+        events = List.of(new NotificationEvent(new EventId(System.currentTimeMillis(), 0, 0L), "order-created", event,
+                System.nanoTime()));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        sseWriterExecutor.shutdownNow();
+    }
+
+    @Benchmark
+    public void publishAndDeliver() {
+        long target = delivered.get() + connections;
+        notificationService.sendOrderCreatedNotifications(USER_ID, events);
+        awaitDelivered(target);
+    }
+
+    private void awaitDelivered(long target) {
+        while (delivered.get() < target) {
+            Thread.onSpinWait();
+        }
+    }
+
+    private class CountingEmitter extends SseEmitter {
+
+        CountingEmitter() {
+            super(Long.MAX_VALUE);
+        }
+
+        @Override
+        public void send(Set<DataWithMediaType> items) {
+            delivered.incrementAndGet();
+        }
+    }
+}
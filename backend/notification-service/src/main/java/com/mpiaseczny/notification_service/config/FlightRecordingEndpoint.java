@@ -0,0 +1,132 @@
+package com.mpiaseczny.notification_service.config;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Keeps a JDK Flight Recorder recording running from startup, rolled over on disk so it holds at most the last
+ * {@code notifications.jfr.max-age} and {@code notifications.jfr.max-size}. {@code POST /actuator/jfr} dumps what it
+ * holds to {@code notifications.jfr.dump-directory}, so a latency spike can be looked at after the fact. Only the
+ * newest {@code notifications.jfr.max-dumps} dumps are kept there. Events that would copy environment variables,
+ * system properties and JVM arguments into the dump are left out.
+ */
+@Component
+@Endpoint(id = "jfr")
+@ConditionalOnProperty(name = "notifications.jfr.enabled", havingValue = "true")
+public class FlightRecordingEndpoint {
+
+    private static final String[] SENSITIVE_EVENTS = {
+            "jdk.InitialEnvironmentVariable", "jdk.InitialSystemProperty", "jdk.JVMInformation"
+    };
+
+    private static final DateTimeFormatter DUMP_TIMESTAMP =
+            DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss").withZone(ZoneOffset.UTC);
+
+    @Value("${spring.application.name}")
+    private String applicationName;
+
+    @Value("${notifications.jfr.settings:default}")
+    private String settings = "default";
+
+    @Value("${notifications.jfr.max-age:6h}")
+    private Duration maxAge = Duration.ofHours(6);
+
+    @Value("${notifications.jfr.max-size:256MB}")
+    private DataSize maxSize = DataSize.ofMegabytes(256);
+
+    @Value("${notifications.jfr.dump-directory:jfr}")
+    private Path dumpDirectory = Path.of("jfr");
+
+    @Value("${notifications.jfr.max-dumps:3}")
+    private int maxDumps = 3;
+
+    private Recording recording;
+
+    @PostConstruct
+    void start() throws IOException, ParseException {
+        recording = new Recording(Configuration.getConfiguration(settings));
+        recording.setName(applicationName);
+        recording.setToDisk(true);
+        recording.setMaxAge(maxAge);
+        recording.setMaxSize(maxSize.toBytes());
+        for (String event : SENSITIVE_EVENTS) {
+            recording.disable(event);
+        }
+        recording.start();
+    }
+
+    @PreDestroy
+    void stop() {
+        recording.close();
+    }
+
+    @ReadOperation
+    public Map<String, Object> recording() {
+        Map<String, Object> description = new LinkedHashMap<>();
+        description.put("name", recording.getName());
+        description.put("state", recording.getState());
+        description.put("settings", settings);
+        description.put("startTime", recording.getStartTime());
+        description.put("maxAge", maxAge);
+        description.put("maxSize", maxSize);
+        description.put("dumpDirectory", dumpDirectory.toAbsolutePath().toString());
+        description.put("maxDumps", maxDumps);
+        return description;
+    }
+
+    /**
+     * Dumps the recording, replacing a dump taken in the same second, and deletes the oldest dumps beyond
+     * {@code max-dumps}, so repeated calls cannot fill the disk.
+     */
+    @WriteOperation
+    public synchronized Map<String, Object> dump() throws IOException {
+        Files.createDirectories(dumpDirectory);
+        Path file = dumpDirectory.resolve(applicationName + "-" + DUMP_TIMESTAMP.format(Instant.now()) + ".jfr");
+        Files.deleteIfExists(file);
+        recording.dump(file);
+        deleteOldDumps();
+
+        Map<String, Object> dumped = new LinkedHashMap<>();
+        dumped.put("file", file.toAbsolutePath().toString());
+        dumped.put("size", Files.size(file));
+        return dumped;
+    }
+
+    private void deleteOldDumps() throws IOException {
+        List<Path> dumps;
+        try (Stream<Path> files = Files.list(dumpDirectory)) {
+            // Named by time, so the oldest sort first
+            dumps = files.filter(this::isDump).sorted().toList();
+        }
+        for (int i = 0; i < dumps.size() - maxDumps; i++) {
+            Files.deleteIfExists(dumps.get(i));
+        }
+    }
+
+    private boolean isDump(Path file) {
+        String name = file.getFileName().toString();
+        return name.startsWith(applicationName + "-") && name.endsWith(".jfr");
+    }
+}
@@ -1,16 +1,42 @@
 package com.mpiaseczny.notification_service.config;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mpiaseczny.notification_service.dto.OrderCreatedEvent;
+import com.mpiaseczny.notification_service.dto.OrderStatusChangedEvent;
+import com.mpiaseczny.notification_service.enums.NotificationRoutingMode;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
 import org.apache.kafka.common.serialization.StringDeserializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.thread.Threading;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
 import org.springframework.kafka.annotation.EnableKafka;
 import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
 import org.springframework.kafka.core.ConsumerFactory;
 import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.core.MicrometerConsumerListener;
+import org.springframework.kafka.core.MicrometerProducerListener;
+import org.springframework.kafka.listener.ContainerProperties;
+import org.springframework.kafka.listener.DeadLetterPublishingRecoverer;
+import org.springframework.kafka.listener.DefaultErrorHandler;
+import org.springframework.kafka.support.mapping.DefaultJackson2JavaTypeMapper;
+import org.springframework.kafka.support.mapping.Jackson2JavaTypeMapper;
+import org.springframework.kafka.support.serializer.ErrorHandlingDeserializer;
 import org.springframework.kafka.support.serializer.JsonDeserializer;
+import org.springframework.util.backoff.FixedBackOff;
 
+import java.net.InetAddress;
+import java.net.UnknownHostException;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -18,27 +44,160 @@ import java.util.Map;
 @EnableKafka
 public class KafkaConfig {
 
+    public static final String ORDER_CREATED_TYPE = "orderCreated";
+
+    public static final String ORDER_STATUS_CHANGED_TYPE = "orderStatusChanged";
+
+    private static final String DEAD_LETTER_SUFFIX = ".DLT";
+
     @Value("${spring.kafka.bootstrap-servers}")
     private String bootstrapServers;
 
     @Value("${spring.kafka.consumer.group-id}")
     private String consumerGroupId;
 
+    @Value("${notifications.routing.mode:BROADCAST}")
+    private NotificationRoutingMode routingMode;
+
+    @Value("${notifications.routing.instance-id:}")
+    private String instanceId;
+
+    @Value("${notifications.kafka.listener.concurrency:3}")
+    private int listenerConcurrency;
+
+    @Value("${notifications.kafka.listener.max-poll-records:500}")
+    private int maxPollRecords;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private Environment environment;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
     @Bean
     public ConsumerFactory<String, Object> consumerFactory() {
+        Map<String, Object> configProps = consumerProps();
+        configProps.put(ConsumerConfig.GROUP_ID_CONFIG, listenerGroupId());
+        // A new broadcast group has no connections for events published before it
+        configProps.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG,
+                routingMode == NotificationRoutingMode.BROADCAST ? "latest" : "earliest");
+        configProps.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, maxPollRecords);
+        DefaultKafkaConsumerFactory<String, Object> consumerFactory = new DefaultKafkaConsumerFactory<>(
+                configProps,
+                new StringDeserializer(),
+                new ErrorHandlingDeserializer<>(eventDeserializer())
+        );
+        // Client metrics, including the records-lag gauges, for every consumer this factory creates
+        consumerFactory.addListener(new MicrometerConsumerListener<>(meterRegistry));
+        return consumerFactory;
+    }
+
+    /**
+     * For the short-lived consumers that read missed events back for a resumed connection. They assign partitions
+     * themselves and are left out of the client metrics, which would otherwise register and remove a set of
+     * meters on every replay.
+     */
+    @Bean
+    public ConsumerFactory<String, Object> replayConsumerFactory() {
+        return new DefaultKafkaConsumerFactory<>(
+                consumerProps(),
+                new StringDeserializer(),
+                new ErrorHandlingDeserializer<>(eventDeserializer())
+        );
+    }
+
+    private Map<String, Object> consumerProps() {
         Map<String, Object> configProps = new HashMap<>();
         configProps.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
-        configProps.put(ConsumerConfig.GROUP_ID_CONFIG, consumerGroupId);
-        configProps.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
-        configProps.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
-        configProps.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
-        return new DefaultKafkaConsumerFactory<>(configProps);
+        configProps.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
+        return configProps;
+    }
+
+    private String listenerGroupId() {
+        return routingMode == NotificationRoutingMode.BROADCAST
+                ? consumerGroupId + "-" + instanceId()
+                : consumerGroupId;
+    }
+
+    /**
+     * Stays the same across restarts, so a restarted instance rejoins its broadcast group and its committed offsets
+     * instead of leaving an orphaned group behind. Defaults to the host name, which is the pod name on Kubernetes.
+     */
+    private String instanceId() {
+        if (!instanceId.isBlank()) {
+            return instanceId;
+        }
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            throw new IllegalStateException("Host name unavailable, set notifications.routing.instance-id", e);
+        }
+    }
+
+    /**
+     * Reads the payload straight into the event class named by the {@code __TypeId__} header,
+     * using the application's shared {@link ObjectMapper}.
+     */
+    private JsonDeserializer<Object> eventDeserializer() {
+        DefaultJackson2JavaTypeMapper typeMapper = new DefaultJackson2JavaTypeMapper();
+        typeMapper.setTypePrecedence(Jackson2JavaTypeMapper.TypePrecedence.TYPE_ID);
+        typeMapper.setIdClassMapping(Map.of(
+                ORDER_CREATED_TYPE, OrderCreatedEvent.class,
+                ORDER_STATUS_CHANGED_TYPE, OrderStatusChangedEvent.class
+        ));
+
+        JsonDeserializer<Object> deserializer = new JsonDeserializer<>(objectMapper);
+        deserializer.setTypeMapper(typeMapper);
+        return deserializer;
+    }
+
+    @Bean
+    public KafkaTemplate<String, byte[]> deadLetterKafkaTemplate() {
+        Map<String, Object> configProps = new HashMap<>();
+        configProps.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        configProps.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+        configProps.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, ByteArraySerializer.class);
+        DefaultKafkaProducerFactory<String, byte[]> producerFactory = new DefaultKafkaProducerFactory<>(configProps);
+        producerFactory.addListener(new MicrometerProducerListener<>(meterRegistry));
+        return new KafkaTemplate<>(producerFactory);
+    }
+
+    @Bean
+    public DeadLetterPublishingRecoverer deadLetterPublishingRecoverer() {
+        // Poison records keep their original bytes and land on <topic>.DLT, partition chosen by the producer
+        return new DeadLetterPublishingRecoverer(deadLetterKafkaTemplate(),
+                (record, exception) -> new TopicPartition(record.topic() + DEAD_LETTER_SUFFIX, -1));
     }
 
     @Bean
     public ConcurrentKafkaListenerContainerFactory<String, Object> kafkaListenerContainerFactory() {
+        return listenerContainerFactory(ContainerProperties.AckMode.BATCH);
+    }
+
+    /**
+     * For listeners that acknowledge each batch themselves once it has been delivered, possibly from another thread.
+     */
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, Object> manualAckListenerContainerFactory() {
+        return listenerContainerFactory(ContainerProperties.AckMode.MANUAL);
+    }
+
+    private ConcurrentKafkaListenerContainerFactory<String, Object> listenerContainerFactory(
+            ContainerProperties.AckMode ackMode) {
         ConcurrentKafkaListenerContainerFactory<String, Object> factory = new ConcurrentKafkaListenerContainerFactory<>();
         factory.setConsumerFactory(consumerFactory());
+        factory.setBatchListener(true);
+        // One consumer thread per partition; threads beyond the partition count would sit idle
+        factory.setConcurrency(listenerConcurrency);
+        factory.getContainerProperties().setAckMode(ackMode);
+        factory.setCommonErrorHandler(new DefaultErrorHandler(deadLetterPublishingRecoverer(), new FixedBackOff(1000L, 2)));
+        if (Threading.VIRTUAL.isActive(environment)) {
+            // Boot only does this for the factory it configures itself
+            factory.getContainerProperties().setListenerTaskExecutor(new VirtualThreadTaskExecutor("order-events-"));
+        }
         return factory;
     }
 }
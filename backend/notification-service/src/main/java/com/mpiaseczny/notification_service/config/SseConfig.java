@@ -0,0 +1,58 @@
+package com.mpiaseczny.notification_service.config;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class SseConfig {
+
+    @Value("${notifications.sse.writer-threads:16}")
+    private int writerThreads;
+
+    @Autowired
+    private Environment environment;
+
+    /**
+     * Threads that write SSE frames to the sockets. A connection is drained by at most one of them at a time,
+     * so the queue holds at most one task per connection and a blocked write only ever ties up its own thread.
+     * With virtual threads the writers are virtual too, and {@code writer-threads} can be raised towards the number
+     * of connections at little cost.
+     */
+    @Bean(destroyMethod = "shutdownNow")
+    public ThreadPoolExecutor sseWriterExecutor() {
+        return new ThreadPoolExecutor(
+                writerThreads,
+                writerThreads,
+                0L,
+                TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(),
+                writerThreadFactory()
+        );
+    }
+
+    private ThreadFactory writerThreadFactory() {
+        if (Threading.VIRTUAL.isActive(environment)) {
+            return new VirtualThreadTaskExecutor("sse-writer-").getVirtualThreadFactory();
+        }
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, "sse-writer-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
@@ -0,0 +1,23 @@
+package com.mpiaseczny.notification_service.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+
+@Configuration
+public class StatusChangeConfig {
+
+    /**
+     * Closes coalescing windows of order status changes. Flushing only hands frames to the SSE writers, so a single
+     * thread keeps up.
+     */
+    @Bean(destroyMethod = "shutdownNow")
+    public ScheduledThreadPoolExecutor statusChangeScheduler() {
+        return new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "status-change-flush");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+}
@@ -2,10 +2,12 @@ package com.mpiaseczny.notification_service.controller;
 
 import com.mpiaseczny.notification_service.service.NotificationService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 @RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 @RequestMapping("/api/notifications")
 public class NotificationController {
     
@@ -13,7 +15,8 @@ public class NotificationController {
     private NotificationService notificationService;
     
     @GetMapping("/subscribe")
-    public SseEmitter subscribe(@RequestHeader("X-User-Id") Long userId) {
-        return notificationService.subscribe(userId);
+    public SseEmitter subscribe(@RequestHeader("X-User-Id") Long userId,
+                                @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+        return notificationService.subscribe(userId, lastEventId);
     }
 }
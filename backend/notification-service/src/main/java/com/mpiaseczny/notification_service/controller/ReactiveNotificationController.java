@@ -0,0 +1,28 @@
+package com.mpiaseczny.notification_service.controller;
+
+import com.mpiaseczny.notification_service.service.NotificationService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+
+/**
+ * Same endpoint as {@link NotificationController} for the {@code reactive} profile, where idle connections
+ * cost a Netty channel instead of a Tomcat connection slot.
+ */
+@RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@RequestMapping("/api/notifications")
+public class ReactiveNotificationController {
+
+    @Autowired
+    private NotificationService notificationService;
+
+    @GetMapping(value = "/subscribe", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<Object>> subscribe(@RequestHeader("X-User-Id") Long userId,
+                                                   @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+        return notificationService.subscribeReactive(userId, lastEventId);
+    }
+}
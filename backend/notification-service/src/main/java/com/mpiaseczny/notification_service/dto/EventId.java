@@ -0,0 +1,57 @@
+package com.mpiaseczny.notification_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+
+/**
+ * SSE event id derived from the Kafka record, so every instance assigns the same id to the same event and a
+ * resume can fall back to the topic. Ordered by record timestamp first, which keeps ids increasing for a user
+ * even though their events are spread over several partitions. Written as {@code <timestamp>-<partition>-<offset>}.
+ */
+@Getter
+@AllArgsConstructor
+@EqualsAndHashCode
+public class EventId implements Comparable<EventId> {
+
+    private final long timestamp;
+
+    private final int partition;
+
+    private final long offset;
+
+    public static EventId of(ConsumerRecord<?, ?> record) {
+        return new EventId(record.timestamp(), record.partition(), record.offset());
+    }
+
+    /**
+     * @throws IllegalArgumentException when the value is not an id written by {@link #toString()}
+     */
+    public static EventId parse(String value) {
+        String[] parts = value.split("-");
+        if (parts.length != 3) {
+            throw new IllegalArgumentException("Invalid event id: " + value);
+        }
+        try {
+            return new EventId(Long.parseLong(parts[0]), Integer.parseInt(parts[1]), Long.parseLong(parts[2]));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid event id: " + value, e);
+        }
+    }
+
+    @Override
+    public int compareTo(EventId other) {
+        int byTimestamp = Long.compare(timestamp, other.timestamp);
+        if (byTimestamp != 0) {
+            return byTimestamp;
+        }
+        int byPartition = Integer.compare(partition, other.partition);
+        return byPartition != 0 ? byPartition : Long.compare(offset, other.offset);
+    }
+
+    @Override
+    public String toString() {
+        return timestamp + "-" + partition + "-" + offset;
+    }
+}
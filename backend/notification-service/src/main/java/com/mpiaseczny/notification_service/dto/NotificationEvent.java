@@ -0,0 +1,30 @@
+package com.mpiaseczny.notification_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+
+/**
+ * One SSE event as sent to the browser: its id, its name (the topic it came from) and the payload.
+ */
+@Getter
+@AllArgsConstructor
+public class NotificationEvent {
+
+    private final EventId id;
+
+    private final String name;
+
+    private final Object data;
+
+    // System.nanoTime() when the record was read from Kafka; 0 for events replayed from history
+    private final long consumedAt;
+
+    public NotificationEvent(EventId id, String name, Object data) {
+        this(id, name, data, 0L);
+    }
+
+    public static NotificationEvent of(ConsumerRecord<?, ?> record) {
+        return new NotificationEvent(EventId.of(record), record.topic(), record.value(), System.nanoTime());
+    }
+}
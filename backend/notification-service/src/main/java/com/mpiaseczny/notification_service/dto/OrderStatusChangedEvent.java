@@ -6,6 +6,8 @@ import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 
+import java.time.Instant;
+
 @Getter
 @Setter
 @AllArgsConstructor
@@ -17,4 +19,8 @@ public class OrderStatusChangedEvent {
     private OrderStatus oldStatus;
 
     private OrderStatus newStatus;
+
+    private Long createdById;
+
+    private Instant changedAt;
 }
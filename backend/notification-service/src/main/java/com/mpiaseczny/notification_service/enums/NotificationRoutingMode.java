@@ -0,0 +1,11 @@
+package com.mpiaseczny.notification_service.enums;
+
+/**
+ * How order events find the instance that holds a user's SSE connections.
+ */
+public enum NotificationRoutingMode {
+    /** Each instance reads every event in a consumer group of its own and delivers to its local connections. */
+    BROADCAST,
+    /** All instances share one consumer group; only correct while a single instance is running. */
+    SHARED
+}
@@ -0,0 +1,33 @@
+package com.mpiaseczny.notification_service.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+@Name("com.mpiaseczny.EventConsumed")
+@Label("Event Consumed")
+@Description("An order event read by OrderEventListener, with how long after order-service stored it")
+@Category({"Order Management", "Notification Service"})
+@StackTrace(false)
+public class EventConsumed extends Event {
+
+    @Label("Topic")
+    public String topic;
+
+    @Label("Partition")
+    public int partition;
+
+    @Label("Offset")
+    public long offset;
+
+    @Label("Correlation Id")
+    public String correlationId;
+
+    @Label("Publish Latency")
+    @Timespan(Timespan.MILLISECONDS)
+    public long publishLatency;
+}
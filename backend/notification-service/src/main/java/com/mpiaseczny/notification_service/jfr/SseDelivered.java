@@ -0,0 +1,31 @@
+package com.mpiaseczny.notification_service.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+import jdk.jfr.Timespan;
+
+/**
+ * Lasts for the write to one connection; on the reactive stack, for handing the events to all of the user's
+ * connections. Fast writes are the common case and not worth keeping in a continuous recording, hence the threshold.
+ */
+@Name("com.mpiaseczny.SseDelivered")
+@Label("SSE Delivered")
+@Description("Notification frames written and flushed to an SSE connection of a user")
+@Category({"Order Management", "Notification Service"})
+@Threshold("1 ms")
+@StackTrace(false)
+public class SseDelivered extends Event {
+
+    @Label("User Id")
+    public long userId;
+
+    @Label("Consume Latency")
+    @Description("From reading the oldest of the events from Kafka until the write finished, 0 for replayed events")
+    @Timespan(Timespan.NANOSECONDS)
+    public long consumeLatency;
+}
@@ -1,18 +1,28 @@
 package com.mpiaseczny.notification_service.listener;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.SerializationFeature;
-import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.mpiaseczny.notification_service.dto.NotificationEvent;
 import com.mpiaseczny.notification_service.dto.OrderCreatedEvent;
 import com.mpiaseczny.notification_service.dto.OrderStatusChangedEvent;
+import com.mpiaseczny.notification_service.service.DeliveryTracker;
+import com.mpiaseczny.notification_service.service.DuplicateEventFilter;
 import com.mpiaseczny.notification_service.service.NotificationService;
+import com.mpiaseczny.notification_service.service.OrderStatusCoalescer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.context.annotation.Bean;
 import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.listener.DeadLetterPublishingRecoverer;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.kafka.support.serializer.SerializationUtils;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
 @Component
 public class OrderEventListener {
     
@@ -20,44 +30,82 @@ public class OrderEventListener {
     
     @Autowired
     private NotificationService notificationService;
+
+    @Autowired
+    private OrderStatusCoalescer orderStatusCoalescer;
+
+    @Autowired
+    private DeadLetterPublishingRecoverer deadLetterPublishingRecoverer;
+
+    @Autowired
+    private DeliveryTracker deliveryTracker;
+
+    @Autowired
+    private DuplicateEventFilter duplicateEventFilter;
+
+    // Per consumer thread: completes once every batch it handed to the coalescer so far has been delivered
+    private final ThreadLocal<CompletableFuture<Void>> statusChangesDelivered =
+            ThreadLocal.withInitial(() -> CompletableFuture.completedFuture(null));
     
-    @KafkaListener(topics = {"order-created"}, groupId = "notification-service-group")
-    public void handleOrderCreatedEvent(String message) {
-        try {
-            OrderCreatedEvent event = objectMapper().readValue(message, OrderCreatedEvent.class);
+    @KafkaListener(topics = {"order-created"})
+    public void handleOrderCreatedEvents(List<ConsumerRecord<String, Object>> records) {
+        Map<Long, List<NotificationEvent>> eventsByUser = new LinkedHashMap<>();
+
+        for (ConsumerRecord<String, Object> record : readEvents(records, OrderCreatedEvent.class)) {
+            Long userId = ((OrderCreatedEvent) record.value()).getCreatedById();
+            eventsByUser.computeIfAbsent(userId, id -> new ArrayList<>()).add(NotificationEvent.of(record));
+        }
 
-            logger.info("Received order created event: Order ID {}, Created By Id: {}",
-                    event.getOrderId(), event.getCreatedById());
+        logger.info("Received {} order created events for {} users", records.size(), eventsByUser.size());
 
+        eventsByUser.forEach((userId, events) -> {
             try {
-                notificationService.sendOrderCreatedNotification(event);
-                logger.info("Successfully sent SSE notification for order {}", event.getOrderId());
+                notificationService.sendOrderCreatedNotifications(userId, events);
+                logger.debug("Successfully sent {} SSE notifications to user {}", events.size(), userId);
             } catch (Exception e) {
-                logger.error("Error sending SSE notification for order {}: {}",
-                        event.getOrderId(), e.getMessage(), e);
+                logger.error("Error sending SSE notifications to user {}: {}", userId, e.getMessage(), e);
             }
-        } catch (Exception e) {
-            logger.error("Error processing order created event: {}", e.getMessage(), e);
-        }
+        });
     }
 
-    @KafkaListener(topics = {"order-status-changed"}, groupId = "notification-service-group")
-    public void handleOrderStatusChangedEvent(String message) {
-        try {
-            OrderStatusChangedEvent event = objectMapper().readValue(message, OrderStatusChangedEvent.class);
+    /**
+     * Acknowledged only once the batch left its coalescing windows, so a crash inside a window redelivers the
+     * records instead of losing them. Acknowledgments of one consumer are chained, keeping commits in offset order.
+     */
+    @KafkaListener(topics = {"order-status-changed"}, containerFactory = "manualAckListenerContainerFactory")
+    public void handleOrderStatusChangedEvents(List<ConsumerRecord<String, Object>> records,
+                                               Acknowledgment acknowledgment) {
+        List<ConsumerRecord<String, Object>> statusChanges = readEvents(records, OrderStatusChangedEvent.class);
+        logger.info("Received {} order status changed events", statusChanges.size());
 
-            logger.info("Received order status changed event: Order ID {}",
-                    event.getOrderId());
-        } catch (Exception e) {
-            logger.error("Error processing order status changed event: {}", e.getMessage(), e);
-        }
+        CompletableFuture<Void> delivered = statusChangesDelivered.get()
+                .thenCombine(orderStatusCoalescer.submit(statusChanges), (previous, current) -> null);
+        delivered.thenRun(acknowledgment::acknowledge);
+        statusChangesDelivered.set(delivered);
     }
 
-    @Bean
-    public ObjectMapper objectMapper() {
-        ObjectMapper mapper = new ObjectMapper();
-        mapper.registerModule(new JavaTimeModule());
-        mapper.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
-        return mapper;
+    private List<ConsumerRecord<String, Object>> readEvents(List<ConsumerRecord<String, Object>> records, Class<?> eventType) {
+        List<ConsumerRecord<String, Object>> events = new ArrayList<>(records.size());
+        for (ConsumerRecord<String, Object> record : records) {
+            Object value = record.value();
+            if (eventType.isInstance(value)) {
+                if (!duplicateEventFilter.isFirst(record)) {
+                    logger.debug("Skipping duplicate of an already read event at {}-{}@{}",
+                            record.topic(), record.partition(), record.offset());
+                    continue;
+                }
+                deliveryTracker.consumed(record);
+                events.add(record);
+            } else if (value == null && record.headers().lastHeader(SerializationUtils.VALUE_DESERIALIZER_EXCEPTION_HEADER) != null) {
+                logger.error("Sending unreadable record {}-{}@{} to dead-letter topic",
+                        record.topic(), record.partition(), record.offset());
+                deadLetterPublishingRecoverer.accept(record, new IllegalArgumentException("Unreadable " + eventType.getSimpleName()));
+            } else {
+                logger.warn("Skipping record {}-{}@{} with unexpected payload type {}",
+                        record.topic(), record.partition(), record.offset(),
+                        value == null ? null : value.getClass().getName());
+            }
+        }
+        return events;
     }
 }
@@ -0,0 +1,138 @@
+package com.mpiaseczny.notification_service.service;
+
+import com.mpiaseczny.notification_service.dto.NotificationEvent;
+import com.mpiaseczny.notification_service.jfr.EventConsumed;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.tracing.Span;
+import io.micrometer.tracing.Tracer;
+import io.micrometer.tracing.propagation.Propagator;
+import jakarta.annotation.PostConstruct;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.Headers;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency of an order event on its way to the browser, recorded into {@code notifications.delivery.latency} per
+ * stage: {@code publish_to_consume} from order-service storing the event to this instance reading it, and
+ * {@code consume_to_write} from reading it to its frame being written to a connection. The first stage compares the
+ * clocks of two hosts, so it is only as accurate as their synchronization.
+ * <p>
+ * When tracing is enabled, every record also gets a consumer span continuing the trace from its {@code traceparent}
+ * header, tagged with the correlation id order-service assigned to the request.
+ */
+@Component
+public class DeliveryTracker {
+
+    public static final String PRODUCED_AT_HEADER = "producedAt";
+
+    public static final String CORRELATION_ID_HEADER = "correlationId";
+
+    private static final Propagator.Getter<Headers> HEADER_GETTER = DeliveryTracker::header;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    // Only present with management.tracing.enabled, see application-tracing.yml
+    @Autowired(required = false)
+    private Tracer tracer;
+
+    @Autowired(required = false)
+    private Propagator propagator;
+
+    private Timer publishToConsumeTimer;
+
+    private Timer consumeToWriteTimer;
+
+    @PostConstruct
+    void registerMeters() {
+        publishToConsumeTimer = Timer.builder("notifications.delivery.latency")
+                .description("Time an order event took to reach the next stage of its delivery to the browser")
+                .tag("stage", "publish_to_consume")
+                .register(meterRegistry);
+        consumeToWriteTimer = Timer.builder("notifications.delivery.latency")
+                .description("Time an order event took to reach the next stage of its delivery to the browser")
+                .tag("stage", "consume_to_write")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Called once per record, right after it was read. Also emits the {@link EventConsumed} JFR event.
+     */
+    public void consumed(ConsumerRecord<?, ?> record) {
+        long publishLatency = Math.max(0, System.currentTimeMillis() - producedAt(record));
+        publishToConsumeTimer.record(publishLatency, TimeUnit.MILLISECONDS);
+
+        EventConsumed flightEvent = new EventConsumed();
+        if (flightEvent.isEnabled()) {
+            flightEvent.topic = record.topic();
+            flightEvent.partition = record.partition();
+            flightEvent.offset = record.offset();
+            flightEvent.correlationId = header(record.headers(), CORRELATION_ID_HEADER);
+            flightEvent.publishLatency = publishLatency;
+            flightEvent.commit();
+        }
+
+        if (tracer != null && propagator != null) {
+            Span span = propagator.extract(record.headers(), HEADER_GETTER)
+                    .name("order-event receive")
+                    .kind(Span.Kind.CONSUMER)
+                    .remoteServiceName("kafka")
+                    .tag("messaging.destination.name", record.topic())
+                    .start();
+            String correlationId = header(record.headers(), CORRELATION_ID_HEADER);
+            if (correlationId != null) {
+                span.tag("correlation.id", correlationId);
+            }
+            span.end();
+        }
+    }
+
+    /**
+     * Called once the frames of events consumed at {@code consumedAt} ({@link System#nanoTime()}) have been written.
+     * Frames without a consume time, replayed history and the connected event, are not recorded.
+     */
+    public void written(long consumedAt) {
+        if (consumedAt != 0) {
+            consumeToWriteTimer.record(System.nanoTime() - consumedAt, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * The consume time of the event that has waited longest, or 0 when none of them was consumed live.
+     */
+    static long oldestConsumedAt(List<NotificationEvent> events) {
+        long oldest = 0;
+        for (NotificationEvent event : events) {
+            long consumedAt = event.getConsumedAt();
+            if (consumedAt != 0 && (oldest == 0 || consumedAt - oldest < 0)) {
+                oldest = consumedAt;
+            }
+        }
+        return oldest;
+    }
+
+    private static long producedAt(ConsumerRecord<?, ?> record) {
+        String producedAt = header(record.headers(), PRODUCED_AT_HEADER);
+        if (producedAt != null) {
+            try {
+                return Long.parseLong(producedAt);
+            } catch (NumberFormatException e) {
+                // Treated like a missing header
+            }
+        }
+        // Records from producers that do not set the header
+        return record.timestamp();
+    }
+
+    private static String header(Headers headers, String key) {
+        Header header = headers.lastHeader(key);
+        return header != null ? new String(header.value(), StandardCharsets.UTF_8) : null;
+    }
+}
@@ -0,0 +1,66 @@
+package com.mpiaseczny.notification_service.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.header.Header;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+
+/**
+ * Remembers the {@code eventId} header of recently read order events, so an event order-service's outbox relay
+ * published again after a lost acknowledgment reaches the user once. The copies of one order's event share its
+ * partition and therefore the instance reading it; an instance that restarted in between lets them through again.
+ */
+@Component
+public class DuplicateEventFilter {
+
+    public static final String EVENT_ID_HEADER = "eventId";
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${notifications.dedupe.max-size:100000}")
+    private long maxSize = 100_000;
+
+    @Value("${notifications.dedupe.ttl:10m}")
+    private Duration ttl = Duration.ofMinutes(10);
+
+    private Cache<String, Boolean> seenEventIds;
+
+    private Counter duplicateCounter;
+
+    @PostConstruct
+    void init() {
+        seenEventIds = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .build();
+        duplicateCounter = Counter.builder("notifications.events.duplicates")
+                .description("Order events dropped because an event with the same id was already read")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Whether the record is the first one read with its event id. Records without the header always are.
+     */
+    public boolean isFirst(ConsumerRecord<?, ?> record) {
+        Header header = record.headers().lastHeader(EVENT_ID_HEADER);
+        if (header == null) {
+            return true;
+        }
+        String eventId = new String(header.value(), StandardCharsets.UTF_8);
+        if (seenEventIds.asMap().putIfAbsent(eventId, Boolean.TRUE) == null) {
+            return true;
+        }
+        duplicateCounter.increment();
+        return false;
+    }
+}
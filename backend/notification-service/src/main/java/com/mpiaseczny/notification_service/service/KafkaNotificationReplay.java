@@ -0,0 +1,148 @@
+package com.mpiaseczny.notification_service.service;
+
+import com.mpiaseczny.notification_service.dto.EventId;
+import com.mpiaseczny.notification_service.dto.NotificationEvent;
+import com.mpiaseczny.notification_service.dto.OrderCreatedEvent;
+import com.mpiaseczny.notification_service.dto.OrderStatusChangedEvent;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.OffsetAndTimestamp;
+import org.apache.kafka.common.PartitionInfo;
+import org.apache.kafka.common.TopicPartition;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads a user's missed events straight from the topic when they are no longer in {@link NotificationHistory}.
+ * Uses a short-lived consumer with manually assigned partitions, so it never joins or commits for a group.
+ */
+@Component
+public class KafkaNotificationReplay {
+
+    private static final Logger logger = LoggerFactory.getLogger(KafkaNotificationReplay.class);
+
+    private static final List<String> TOPICS = List.of("order-created", "order-status-changed");
+
+    @Autowired
+    @Qualifier("replayConsumerFactory")
+    private ConsumerFactory<String, Object> consumerFactory;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${notifications.replay.kafka-timeout:5s}")
+    private Duration timeout = Duration.ofSeconds(5);
+
+    @Value("${notifications.replay.max-events:500}")
+    private int maxEvents = 500;
+
+    private Timer replayTimer;
+
+    @PostConstruct
+    void registerMeters() {
+        replayTimer = Timer.builder("notifications.replay.kafka")
+                .description("Time spent reading missed events back from Kafka")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Returns the user's events with an id greater than {@code lastEventId}, oldest first, capped at
+     * {@code notifications.replay.max-events}. Stops early, with what it has, when the timeout is reached. Events
+     * from another partition that were delivered before {@code lastEventId} but carry a later timestamp are
+     * replayed again.
+     */
+    public List<NotificationEvent> read(Long userId, EventId lastEventId) {
+        return replayTimer.record(() -> readFromTopic(userId, lastEventId));
+    }
+
+    private List<NotificationEvent> readFromTopic(Long userId, EventId lastEventId) {
+        List<NotificationEvent> events = new ArrayList<>();
+        long deadline = System.nanoTime() + timeout.toNanos();
+
+        try (Consumer<String, Object> consumer = consumerFactory.createConsumer()) {
+            List<TopicPartition> partitions = new ArrayList<>();
+            for (String topic : TOPICS) {
+                for (PartitionInfo partition : consumer.partitionsFor(topic, timeout)) {
+                    partitions.add(new TopicPartition(partition.topic(), partition.partition()));
+                }
+            }
+
+            Map<TopicPartition, Long> startTimestamps = new HashMap<>();
+            partitions.forEach(partition -> startTimestamps.put(partition, lastEventId.getTimestamp()));
+            Map<TopicPartition, OffsetAndTimestamp> startOffsets = consumer.offsetsForTimes(startTimestamps, timeout);
+            Map<TopicPartition, Long> endOffsets = consumer.endOffsets(partitions, timeout);
+
+            Map<TopicPartition, Long> seekOffsets = new HashMap<>();
+            startOffsets.forEach((partition, start) -> {
+                if (start != null && start.offset() < endOffsets.get(partition)) {
+                    seekOffsets.put(partition, start.offset());
+                }
+            });
+            List<TopicPartition> pending = new ArrayList<>(seekOffsets.keySet());
+            consumer.assign(pending);
+            seekOffsets.forEach(consumer::seek);
+
+            while (!pending.isEmpty() && events.size() < maxEvents && System.nanoTime() < deadline) {
+                for (ConsumerRecord<String, Object> record : consumer.poll(Duration.ofMillis(200))) {
+                    if (userId.equals(ownerOf(record.value())) && EventId.of(record).compareTo(lastEventId) > 0) {
+                        events.add(NotificationEvent.of(record));
+                    }
+                }
+                pending.removeIf(partition -> consumer.position(partition) >= endOffsets.get(partition));
+            }
+        } catch (RuntimeException e) {
+            logger.warn("Replay from Kafka for user {} stopped early: {}", userId, e.getMessage());
+        }
+
+        events.sort(Comparator.comparing(NotificationEvent::getId));
+        events = coalesceStatusChanges(events);
+        return events.size() > maxEvents ? events.subList(0, maxEvents) : events;
+    }
+
+    private static Long ownerOf(Object value) {
+        if (value instanceof OrderCreatedEvent event) {
+            return event.getCreatedById();
+        }
+        if (value instanceof OrderStatusChangedEvent event) {
+            return event.getCreatedById();
+        }
+        return null;
+    }
+
+    // Same result as the live stream: one status change per order, where its latest change was
+    private static List<NotificationEvent> coalesceStatusChanges(List<NotificationEvent> events) {
+        Map<Long, OrderStatusChangedEvent> firstChanges = new HashMap<>();
+        Map<Long, NotificationEvent> latestChanges = new HashMap<>();
+        for (NotificationEvent event : events) {
+            if (event.getData() instanceof OrderStatusChangedEvent change) {
+                firstChanges.putIfAbsent(change.getOrderId(), change);
+                latestChanges.put(change.getOrderId(), event);
+            }
+        }
+
+        List<NotificationEvent> coalesced = new ArrayList<>(events.size());
+        for (NotificationEvent event : events) {
+            if (!(event.getData() instanceof OrderStatusChangedEvent change)) {
+                coalesced.add(event);
+            } else if (latestChanges.get(change.getOrderId()) == event) {
+                coalesced.add(OrderStatusCoalescer.coalesce(firstChanges.get(change.getOrderId()), event));
+            }
+        }
+        return coalesced;
+    }
+}
@@ -0,0 +1,175 @@
+package com.mpiaseczny.notification_service.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.mpiaseczny.notification_service.dto.EventId;
+import com.mpiaseczny.notification_service.dto.NotificationEvent;
+import com.mpiaseczny.notification_service.enums.NotificationRoutingMode;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Keeps each user's most recent events so a reconnecting client can resume from its {@code Last-Event-ID}.
+ * Recording and registering a connection both happen under the user's buffer lock, so a resumed connection
+ * gets every missed event exactly once and in front of anything published after it.
+ * <p>
+ * In {@code BROADCAST} routing every instance reads every user's events, so only users who subscribed to this
+ * instance get a buffer; keeping everyone's would cost each instance {@code max-users} full buffers. The buffer of a
+ * user who disconnected stays until it sits idle for {@code idle-ttl}, so reconnecting here still resumes from memory.
+ */
+@Component
+public class NotificationHistory {
+
+    @Autowired
+    private KafkaNotificationReplay kafkaNotificationReplay;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${notifications.replay.buffer-size:64}")
+    private int bufferSize = 64;
+
+    @Value("${notifications.replay.max-users:10000}")
+    private long maxUsers = 10000;
+
+    @Value("${notifications.replay.idle-ttl:30m}")
+    private Duration idleTtl = Duration.ofMinutes(30);
+
+    @Value("${notifications.routing.mode:BROADCAST}")
+    private NotificationRoutingMode routingMode = NotificationRoutingMode.BROADCAST;
+
+    // SHARED only: every event after this has been seen by this instance, as long as no buffer was evicted since
+    private volatile long historyStart = System.currentTimeMillis();
+
+    private Cache<Long, UserEventBuffer> buffers;
+
+    private Counter bufferResumes;
+
+    private Counter kafkaResumes;
+
+    @PostConstruct
+    void init() {
+        buffers = Caffeine.newBuilder()
+                .maximumSize(maxUsers)
+                .expireAfterAccess(idleTtl)
+                .removalListener((Long userId, UserEventBuffer buffer, RemovalCause cause) -> {
+                    if (cause.wasEvicted()) {
+                        historyStart = System.currentTimeMillis();
+                    }
+                })
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, buffers, "notifications.history");
+        bufferResumes = Counter.builder("notifications.replay.resumes")
+                .description("Reconnections resumed from Last-Event-ID")
+                .tag("source", "buffer")
+                .register(meterRegistry);
+        kafkaResumes = Counter.builder("notifications.replay.resumes")
+                .description("Reconnections resumed from Last-Event-ID")
+                .tag("source", "kafka")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Stores the events and runs {@code publish} before any connection of the user can be registered.
+     */
+    public void record(Long userId, List<NotificationEvent> events, Runnable publish) {
+        UserEventBuffer buffer = routingMode == NotificationRoutingMode.BROADCAST
+                ? subscribedBuffer(userId, publish)
+                : buffers.get(userId, this::newBuffer);
+        if (buffer == null) {
+            return;
+        }
+
+        buffer.lock.lock();
+        try {
+            events.forEach(buffer::append);
+            publish.run();
+        } finally {
+            buffer.lock.unlock();
+        }
+    }
+
+    /**
+     * Calls {@code register} with the events the client missed since {@code lastEventId}, oldest first. Falls back
+     * to reading the topic when the buffer no longer reaches back that far. A missing or unreadable id resumes
+     * nothing.
+     */
+    public <T> T resume(Long userId, String lastEventId, Function<List<NotificationEvent>, T> register) {
+        EventId lastId = parse(lastEventId);
+        UserEventBuffer buffer = buffers.get(userId, this::newBuffer);
+        buffer.lock.lock();
+        try {
+            if (lastId == null) {
+                return register.apply(List.of());
+            }
+            if (buffer.covers(lastId)) {
+                bufferResumes.increment();
+                return register.apply(buffer.after(lastId));
+            }
+        } finally {
+            buffer.lock.unlock();
+        }
+
+        kafkaResumes.increment();
+        List<NotificationEvent> missed = new ArrayList<>(kafkaNotificationReplay.read(userId, lastId));
+        buffer.lock.lock();
+        try {
+            // Events recorded while the topic was being read are only in the buffer
+            Set<EventId> replayed = new HashSet<>();
+            missed.forEach(event -> replayed.add(event.getId()));
+            for (NotificationEvent event : buffer.after(lastId)) {
+                if (replayed.add(event.getId())) {
+                    missed.add(event);
+                }
+            }
+            return register.apply(missed);
+        } finally {
+            buffer.lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the user's buffer, or publishes right away and returns {@code null} when the user never subscribed
+     * here. Publishing inside the map's compute keeps a subscription from creating the buffer in between, which
+     * would let it get the event both live and from the replay.
+     */
+    private UserEventBuffer subscribedBuffer(Long userId, Runnable publish) {
+        return buffers.asMap().compute(userId, (id, buffer) -> {
+            if (buffer == null) {
+                publish.run();
+            }
+            return buffer;
+        });
+    }
+
+    private UserEventBuffer newBuffer(Long userId) {
+        // A broadcast buffer only holds what arrived after the user subscribed
+        long coveredSince = routingMode == NotificationRoutingMode.BROADCAST ? System.currentTimeMillis() : historyStart;
+        return new UserEventBuffer(bufferSize, coveredSince);
+    }
+
+    private static EventId parse(String lastEventId) {
+        if (lastEventId == null || lastEventId.isBlank()) {
+            return null;
+        }
+        try {
+            return EventId.parse(lastEventId.trim());
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
@@ -1,69 +1,128 @@
 package com.mpiaseczny.notification_service.service;
 
-import com.mpiaseczny.notification_service.dto.OrderCreatedEvent;
+import com.mpiaseczny.notification_service.dto.NotificationEvent;
+import com.mpiaseczny.notification_service.jfr.SseDelivered;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
 import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Schedulers;
 
-import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentMap;
-import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.Set;
 
 @Service
 public class NotificationService {
 
-    private static final String ORDER_CREATED_TOPIC = "order-created";
+    private static final String CONNECTED_EVENT = "connected";
 
-    private static final String ORDER_STATUS_CHANGED_TOPIC = "order-status-changed";
+    private static final String CONNECTED_MESSAGE = "Connected to notification service";
 
-    private final ConcurrentMap<Long, CopyOnWriteArrayList<SseEmitter>> userEmitters = new ConcurrentHashMap<>();
+    // Exactly one of the two is present, depending on whether the servlet or the reactive stack is running
+    @Autowired(required = false)
+    private SseFanoutEngine sseFanoutEngine;
 
-    public SseEmitter subscribe(Long userId) {
+    @Autowired(required = false)
+    private ReactiveSseBroker reactiveSseBroker;
+
+    @Autowired
+    private NotificationHistory notificationHistory;
+
+    @Autowired
+    private DeliveryTracker deliveryTracker;
+
+    public SseEmitter subscribe(Long userId, String lastEventId) {
         SseEmitter emitter = new SseEmitter(Long.MAX_VALUE);
-        emitter.onCompletion(() -> removeEmitter(userId, emitter));
-        emitter.onTimeout(() -> removeEmitter(userId, emitter));
-        emitter.onError((ex) -> removeEmitter(userId, emitter));
-
-        userEmitters.computeIfAbsent(userId, k -> new CopyOnWriteArrayList<>()).add(emitter);
-
-        try {
-            emitter.send(SseEmitter.event()
-                    .name("connected")
-                    .data("Connected to notification service"));
-        } catch (IOException e) {
-            removeEmitter(userId, emitter);
-        }
+        notificationHistory.resume(userId, lastEventId, missed -> {
+            Set<ResponseBodyEmitter.DataWithMediaType> initialFrames = new LinkedHashSet<>(SseEmitter.event()
+                    .name(CONNECTED_EVENT)
+                    .data(CONNECTED_MESSAGE)
+                    .build());
+            initialFrames.addAll(toFrames(missed));
+            sseFanoutEngine.register(userId, emitter, initialFrames);
+            return emitter;
+        });
 
         return emitter;
     }
 
-    private void removeEmitter(Long userId, SseEmitter emitter) {
-        List<SseEmitter> emitters = userEmitters.get(userId);
-        if (emitters != null) {
-            emitters.remove(emitter);
-            if (emitters.isEmpty()) {
-                userEmitters.remove(userId);
-            }
-        }
+    public Flux<ServerSentEvent<Object>> subscribeReactive(Long userId, String lastEventId) {
+        return reactiveSseBroker.subscribe(userId, registration -> notificationHistory.resume(userId, lastEventId, missed -> {
+                    List<ServerSentEvent<Object>> initialEvents = new ArrayList<>(missed.size() + 1);
+                    initialEvents.add(ServerSentEvent.builder()
+                            .event(CONNECTED_EVENT)
+                            .data(CONNECTED_MESSAGE)
+                            .build());
+                    initialEvents.addAll(toServerSentEvents(missed));
+                    return registration.register(initialEvents);
+                }))
+                // Resuming may have to read Kafka, which blocks
+                .subscribeOn(Schedulers.boundedElastic());
     }
 
-    public void sendOrderCreatedNotification(OrderCreatedEvent event) {
-        sendNotificationToUser(event.getCreatedById(), ORDER_CREATED_TOPIC, event);
+    public void sendOrderCreatedNotifications(Long userId, List<NotificationEvent> events) {
+        sendNotificationsToUser(userId, events);
     }
 
-    private void sendNotificationToUser(Long userId, String eventName, OrderCreatedEvent data) {
-        List<SseEmitter> emitters = userEmitters.get(userId);
-        if (emitters != null) {
-            for (SseEmitter emitter : emitters) {
-                try {
-                    emitter.send(SseEmitter.event()
-                            .name(eventName)
-                            .data(data));
-                } catch (IOException e) {
-                    removeEmitter(userId, emitter);
+    public void sendOrderStatusChangedNotifications(Long userId, List<NotificationEvent> events) {
+        sendNotificationsToUser(userId, events);
+    }
+
+    private void sendNotificationsToUser(Long userId, List<NotificationEvent> events) {
+        if (events.isEmpty()) {
+            return;
+        }
+
+        long consumedAt = DeliveryTracker.oldestConsumedAt(events);
+
+        if (sseFanoutEngine != null) {
+            // All frames for the user go out in a single write and flush per connection
+            Set<ResponseBodyEmitter.DataWithMediaType> frames = toFrames(events);
+            notificationHistory.record(userId, events, () -> sseFanoutEngine.publish(userId, frames, consumedAt));
+        }
+
+        if (reactiveSseBroker != null) {
+            List<ServerSentEvent<Object>> serverSentEvents = toServerSentEvents(events);
+            notificationHistory.record(userId, events, () -> {
+                SseDelivered flightEvent = new SseDelivered();
+                flightEvent.begin();
+                reactiveSseBroker.publish(userId, serverSentEvents);
+                // Netty writes later on its own threads; this is the hand-off to the connections' sinks
+                deliveryTracker.written(consumedAt);
+                if (flightEvent.shouldCommit()) {
+                    flightEvent.userId = userId;
+                    flightEvent.consumeLatency = consumedAt != 0 ? System.nanoTime() - consumedAt : 0;
+                    flightEvent.commit();
                 }
-            }
+            });
+        }
+    }
+
+    private Set<ResponseBodyEmitter.DataWithMediaType> toFrames(List<NotificationEvent> events) {
+        Set<ResponseBodyEmitter.DataWithMediaType> frames = new LinkedHashSet<>();
+        for (NotificationEvent event : events) {
+            frames.addAll(SseEmitter.event()
+                    .id(event.getId().toString())
+                    .name(event.getName())
+                    .data(event.getData())
+                    .build());
+        }
+        return frames;
+    }
+
+    private List<ServerSentEvent<Object>> toServerSentEvents(List<NotificationEvent> events) {
+        List<ServerSentEvent<Object>> serverSentEvents = new ArrayList<>(events.size());
+        for (NotificationEvent event : events) {
+            serverSentEvents.add(ServerSentEvent.builder()
+                    .id(event.getId().toString())
+                    .event(event.getName())
+                    .data(event.getData())
+                    .build());
         }
+        return serverSentEvents;
     }
 }
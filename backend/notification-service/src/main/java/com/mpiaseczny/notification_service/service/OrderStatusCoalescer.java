@@ -0,0 +1,189 @@
+package com.mpiaseczny.notification_service.service;
+
+import com.mpiaseczny.notification_service.dto.EventId;
+import com.mpiaseczny.notification_service.dto.NotificationEvent;
+import com.mpiaseczny.notification_service.dto.OrderStatusChangedEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Collapses bursts of status changes of one order into a single notification. The first change opens a window of
+ * {@code notifications.status-changes.coalesce-window}; later changes within it replace the pending one, and when
+ * the window closes the user gets one event going from the first old status to the latest new status.
+ * <p>
+ * An event delivered when its window closes gets the id of its latest record with the timestamp moved up to the
+ * time of the flush, so it is not older than the events of other orders delivered to the user during the window.
+ * Instances flush at slightly different times, so the same event can carry a few milliseconds different ids on two
+ * instances; a client resuming on another instance then falls back to comparing ids.
+ */
+@Component
+public class OrderStatusCoalescer {
+
+    private static final Logger logger = LoggerFactory.getLogger(OrderStatusCoalescer.class);
+
+    @Autowired
+    private NotificationService notificationService;
+
+    @Autowired
+    private ScheduledThreadPoolExecutor statusChangeScheduler;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${notifications.status-changes.coalesce-window:500ms}")
+    private Duration coalesceWindow = Duration.ofMillis(500);
+
+    private final ConcurrentMap<Long, PendingStatusChange> pendingChanges = new ConcurrentHashMap<>();
+
+    private Counter coalescedChanges;
+
+    @PostConstruct
+    void registerMeters() {
+        coalescedChanges = Counter.builder("notifications.status-changes.coalesced")
+                .description("Status changes replaced by a later change of the same order before delivery")
+                .register(meterRegistry);
+        Gauge.builder("notifications.status-changes.pending", pendingChanges, Map::size)
+                .description("Orders with a status change waiting for its coalescing window to close")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Delivers the status changes, at the latest when their windows close. The returned future completes once every
+     * one of them was handed to the connections, so the records can be acknowledged then.
+     */
+    public CompletableFuture<Void> submit(List<ConsumerRecord<String, Object>> records) {
+        if (coalesceWindow.isZero()) {
+            Map<Long, List<NotificationEvent>> eventsByUser = new LinkedHashMap<>();
+            for (ConsumerRecord<String, Object> record : records) {
+                OrderStatusChangedEvent change = (OrderStatusChangedEvent) record.value();
+                if (hasOwner(record, change)) {
+                    eventsByUser.computeIfAbsent(change.getCreatedById(), userId -> new ArrayList<>())
+                            .add(NotificationEvent.of(record));
+                }
+            }
+            eventsByUser.forEach(this::deliver);
+            return CompletableFuture.completedFuture(null);
+        }
+
+        List<CompletableFuture<Void>> flushes = new ArrayList<>(records.size());
+        for (ConsumerRecord<String, Object> record : records) {
+            OrderStatusChangedEvent change = (OrderStatusChangedEvent) record.value();
+            if (hasOwner(record, change)) {
+                flushes.add(submit(change.getOrderId(), record, change));
+            }
+        }
+        return CompletableFuture.allOf(flushes.toArray(CompletableFuture[]::new));
+    }
+
+    /**
+     * Merges status changes of one order, oldest first, into the notification that stands for all of them: the id
+     * of the latest, going from the first old status to the latest new status.
+     */
+    static NotificationEvent coalesce(OrderStatusChangedEvent first, NotificationEvent latest) {
+        OrderStatusChangedEvent latestChange = (OrderStatusChangedEvent) latest.getData();
+        if (first == latestChange) {
+            return latest;
+        }
+        OrderStatusChangedEvent change = new OrderStatusChangedEvent(
+                latestChange.getOrderId(),
+                first.getOldStatus(),
+                latestChange.getNewStatus(),
+                latestChange.getCreatedById(),
+                latestChange.getChangedAt()
+        );
+        return new NotificationEvent(latest.getId(), latest.getName(), change, latest.getConsumedAt());
+    }
+
+    /**
+     * The event with its timestamp moved up to {@code flushedAt}, keeping the partition and offset of its record.
+     */
+    static NotificationEvent restamp(NotificationEvent event, long flushedAt) {
+        EventId id = event.getId();
+        if (id.getTimestamp() >= flushedAt) {
+            return event;
+        }
+        return new NotificationEvent(new EventId(flushedAt, id.getPartition(), id.getOffset()),
+                event.getName(), event.getData(), event.getConsumedAt());
+    }
+
+    private CompletableFuture<Void> submit(Long orderId, ConsumerRecord<String, Object> record,
+                                           OrderStatusChangedEvent change) {
+        NotificationEvent event = NotificationEvent.of(record);
+        PendingStatusChange opened = new PendingStatusChange(change, event);
+        PendingStatusChange pending = pendingChanges.merge(orderId, opened, (current, next) -> {
+            current.latest = event;
+            return current;
+        });
+
+        if (pending == opened) {
+            statusChangeScheduler.schedule(() -> flush(orderId), coalesceWindow.toNanos(), TimeUnit.NANOSECONDS);
+        } else {
+            coalescedChanges.increment();
+        }
+        return pending.flushed;
+    }
+
+    private void flush(Long orderId) {
+        PendingStatusChange pending = pendingChanges.remove(orderId);
+        if (pending != null) {
+            try {
+                NotificationEvent event = restamp(coalesce(pending.first, pending.latest), System.currentTimeMillis());
+                deliver(((OrderStatusChangedEvent) event.getData()).getCreatedById(), List.of(event));
+            } finally {
+                pending.flushed.complete(null);
+            }
+        }
+    }
+
+    private void deliver(Long userId, List<NotificationEvent> events) {
+        try {
+            notificationService.sendOrderStatusChangedNotifications(userId, events);
+            logger.debug("Successfully sent {} status change notifications to user {}", events.size(), userId);
+        } catch (Exception e) {
+            logger.error("Error sending status change notifications to user {}: {}", userId, e.getMessage(), e);
+        }
+    }
+
+    private static boolean hasOwner(ConsumerRecord<String, Object> record, OrderStatusChangedEvent change) {
+        if (change.getCreatedById() == null) {
+            logger.warn("Skipping status change {}-{}@{} of order {} without createdById",
+                    record.topic(), record.partition(), record.offset(), change.getOrderId());
+            return false;
+        }
+        return true;
+    }
+
+    private static class PendingStatusChange {
+
+        private final OrderStatusChangedEvent first;
+
+        // Replaced under the map's bin lock, read by the flush after removing the entry
+        private volatile NotificationEvent latest;
+
+        private final CompletableFuture<Void> flushed = new CompletableFuture<>();
+
+        private PendingStatusChange(OrderStatusChangedEvent first, NotificationEvent latest) {
+            this.first = first;
+            this.latest = latest;
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package com.mpiaseczny.notification_service.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.stereotype.Component;
+import reactor.core.Exceptions;
+import reactor.core.publisher.BufferOverflowStrategy;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Reactive counterpart of {@link SseFanoutEngine}: one unicast sink per connection, not per user, with a bounded
+ * buffer, so a slow client only affects itself, and periodic heartbeat comments that keep proxies from closing idle
+ * streams and surface dead connections.
+ */
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveSseBroker {
+
+    private static final Sinks.EmitFailureHandler RETRY_CONCURRENT_EMIT =
+            Sinks.EmitFailureHandler.busyLooping(Duration.ofMillis(100));
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${notifications.sse.queue-capacity:256}")
+    private int queueCapacity = 256;
+
+    @Value("${notifications.sse.overflow-policy:DISCONNECT}")
+    private SseOverflowPolicy overflowPolicy = SseOverflowPolicy.DISCONNECT;
+
+    @Value("${notifications.sse.heartbeat-interval:15s}")
+    private Duration heartbeatInterval = Duration.ofSeconds(15);
+
+    private final ConcurrentMap<Long, Set<Sinks.Many<ServerSentEvent<Object>>>> connections = new ConcurrentHashMap<>();
+
+    private final AtomicInteger connectionCount = new AtomicInteger();
+
+    private Counter droppedCounter;
+
+    private Counter disconnectedCounter;
+
+    @PostConstruct
+    void registerMeters() {
+        Gauge.builder("notifications.sse.connections", connectionCount, AtomicInteger::get)
+                .description("Open SSE connections")
+                .register(meterRegistry);
+        droppedCounter = Counter.builder("notifications.sse.dropped")
+                .description("Frames dropped because a connection's queue was full")
+                .register(meterRegistry);
+        disconnectedCounter = Counter.builder("notifications.sse.slow.disconnected")
+                .description("Connections closed because they could not keep up")
+                .register(meterRegistry);
+    }
+
+    /**
+     * The user's notification stream: {@code initialEvents} first, then everything published to the user while it
+     * is subscribed. The connection is registered on subscription and removed when the stream completes, fails or
+     * is cancelled. {@code register} runs on the subscribing thread and may block; it must complete the given
+     * {@link Registration} exactly once, and events published after that are buffered for the stream.
+     */
+    public Flux<ServerSentEvent<Object>> subscribe(Long userId, Function<Registration, Connection> register) {
+        return Flux.using(
+                () -> register.apply(initialEvents -> register(userId, initialEvents)),
+                this::stream,
+                this::unregister);
+    }
+
+    private Connection register(Long userId, List<ServerSentEvent<Object>> initialEvents) {
+        Connection connection = new Connection(userId, Sinks.many().unicast().onBackpressureBuffer(), initialEvents);
+        connections.compute(userId, (id, userConnections) -> {
+            Set<Sinks.Many<ServerSentEvent<Object>>> updated =
+                    userConnections != null ? userConnections : ConcurrentHashMap.newKeySet();
+            updated.add(connection.sink);
+            return updated;
+        });
+        connectionCount.incrementAndGet();
+        return connection;
+    }
+
+    private Flux<ServerSentEvent<Object>> stream(Connection connection) {
+        Flux<ServerSentEvent<Object>> heartbeats = Flux.interval(heartbeatInterval)
+                .map(tick -> ServerSentEvent.builder().comment("heartbeat").build());
+
+        return Flux.merge(connection.sink.asFlux(), heartbeats)
+                .onBackpressureBuffer(queueCapacity, dropped -> droppedCounter.increment(),
+                        overflowPolicy == SseOverflowPolicy.DISCONNECT
+                                ? BufferOverflowStrategy.ERROR
+                                : BufferOverflowStrategy.DROP_OLDEST)
+                .onErrorResume(Exceptions::isOverflow, e -> {
+                    disconnectedCounter.increment();
+                    return Flux.empty();
+                })
+                .startWith(connection.initialEvents);
+    }
+
+    public void publish(Long userId, List<ServerSentEvent<Object>> events) {
+        Set<Sinks.Many<ServerSentEvent<Object>>> userConnections = connections.get(userId);
+        if (userConnections == null) {
+            return;
+        }
+
+        for (Sinks.Many<ServerSentEvent<Object>> sink : userConnections) {
+            for (ServerSentEvent<Object> event : events) {
+                sink.emitNext(event, RETRY_CONCURRENT_EMIT);
+            }
+        }
+    }
+
+    public int getConnectionCount() {
+        return connectionCount.get();
+    }
+
+    private void unregister(Connection connection) {
+        connectionCount.decrementAndGet();
+        connections.computeIfPresent(connection.userId, (id, userConnections) -> {
+            userConnections.remove(connection.sink);
+            return userConnections.isEmpty() ? null : userConnections;
+        });
+    }
+
+    @FunctionalInterface
+    public interface Registration {
+
+        Connection register(List<ServerSentEvent<Object>> initialEvents);
+    }
+
+    /**
+     * A registered subscription: its own sink and the events it starts with.
+     */
+    public static final class Connection {
+
+        private final Long userId;
+
+        private final Sinks.Many<ServerSentEvent<Object>> sink;
+
+        private final List<ServerSentEvent<Object>> initialEvents;
+
+        private Connection(Long userId, Sinks.Many<ServerSentEvent<Object>> sink,
+                           List<ServerSentEvent<Object>> initialEvents) {
+            this.userId = userId;
+            this.sink = sink;
+            this.initialEvents = initialEvents;
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.mpiaseczny.notification_service.service;
+
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * One subscribed browser connection with its own bounded outbound queue. Producers only enqueue; the queue is
+ * drained by a single writer at a time, guarded by {@link #tryStartDrain()}.
+ */
+final class SseConnection {
+
+    private final Long userId;
+
+    private final SseEmitter emitter;
+
+    private final int capacity;
+
+    private final Queue<Outbound> outbound = new ConcurrentLinkedQueue<>();
+
+    private final AtomicInteger size = new AtomicInteger();
+
+    private final AtomicBoolean draining = new AtomicBoolean();
+
+    private final AtomicBoolean closed = new AtomicBoolean();
+
+    SseConnection(Long userId, SseEmitter emitter, int capacity) {
+        this.userId = userId;
+        this.emitter = emitter;
+        this.capacity = capacity;
+    }
+
+    Long getUserId() {
+        return userId;
+    }
+
+    SseEmitter getEmitter() {
+        return emitter;
+    }
+
+    /**
+     * @param consumedAt when the oldest event in the frames was read from Kafka, see {@link DeliveryTracker#written}
+     */
+    boolean offer(Set<ResponseBodyEmitter.DataWithMediaType> frames, long consumedAt) {
+        if (size.incrementAndGet() > capacity) {
+            size.decrementAndGet();
+            return false;
+        }
+        outbound.offer(new Outbound(frames, consumedAt));
+        return true;
+    }
+
+    Outbound poll() {
+        Outbound next = outbound.poll();
+        if (next != null) {
+            size.decrementAndGet();
+        }
+        return next;
+    }
+
+    boolean isEmpty() {
+        return size.get() == 0;
+    }
+
+    boolean tryStartDrain() {
+        return draining.compareAndSet(false, true);
+    }
+
+    void finishDrain() {
+        draining.set(false);
+    }
+
+    boolean isClosed() {
+        return closed.get();
+    }
+
+    /**
+     * Returns {@code true} only for the caller that actually closed the connection.
+     */
+    boolean close() {
+        if (!closed.compareAndSet(false, true)) {
+            return false;
+        }
+        outbound.clear();
+        size.set(0);
+        return true;
+    }
+
+    // Frames queued by one publish, with the consume time of their oldest event
+    static final class Outbound {
+
+        final Set<ResponseBodyEmitter.DataWithMediaType> frames;
+
+        final long consumedAt;
+
+        private Outbound(Set<ResponseBodyEmitter.DataWithMediaType> frames, long consumedAt) {
+            this.frames = frames;
+            this.consumedAt = consumedAt;
+        }
+    }
+}
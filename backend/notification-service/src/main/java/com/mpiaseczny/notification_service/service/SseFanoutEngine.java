@@ -0,0 +1,198 @@
+package com.mpiaseczny.notification_service.service;
+
+import com.mpiaseczny.notification_service.jfr.SseDelivered;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Delivers SSE frames to every connection of a user without writing on the caller's thread. Each connection has a
+ * bounded queue drained on {@code sseWriterExecutor}; when a client cannot keep up and its queue fills, the
+ * configured {@link SseOverflowPolicy} either drops its oldest frames or disconnects it so it can reconnect.
+ */
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class SseFanoutEngine {
+
+    @Autowired
+    private ThreadPoolExecutor sseWriterExecutor;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private DeliveryTracker deliveryTracker;
+
+    @Value("${notifications.sse.queue-capacity:256}")
+    private int queueCapacity = 256;
+
+    @Value("${notifications.sse.overflow-policy:DISCONNECT}")
+    private SseOverflowPolicy overflowPolicy = SseOverflowPolicy.DISCONNECT;
+
+    @Value("${notifications.sse.max-frames-per-drain:64}")
+    private int maxFramesPerDrain = 64;
+
+    // ConcurrentHashMap locks per bin, so subscribe/unsubscribe only contend with the same user's connections
+    private final ConcurrentMap<Long, Set<SseConnection>> connections = new ConcurrentHashMap<>();
+
+    private final AtomicInteger connectionCount = new AtomicInteger();
+
+    private Counter droppedCounter;
+
+    private Counter disconnectedCounter;
+
+    private Timer sendTimer;
+
+    @PostConstruct
+    void registerMeters() {
+        Gauge.builder("notifications.sse.connections", connectionCount, AtomicInteger::get)
+                .description("Open SSE connections")
+                .register(meterRegistry);
+        Gauge.builder("notifications.sse.writer.queue", sseWriterExecutor, executor -> executor.getQueue().size())
+                .description("Connections waiting for a free SSE writer thread")
+                .register(meterRegistry);
+        droppedCounter = Counter.builder("notifications.sse.dropped")
+                .description("Frames dropped because a connection's queue was full")
+                .register(meterRegistry);
+        disconnectedCounter = Counter.builder("notifications.sse.slow.disconnected")
+                .description("Connections closed because they could not keep up")
+                .register(meterRegistry);
+        sendTimer = Timer.builder("notifications.sse.send")
+                .description("Time spent writing and flushing queued frames to one connection")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Adds the connection and queues {@code initialFrames} for it alone, ahead of anything published to the user.
+     */
+    public void register(Long userId, SseEmitter emitter, Set<ResponseBodyEmitter.DataWithMediaType> initialFrames) {
+        SseConnection connection = new SseConnection(userId, emitter, queueCapacity);
+        connection.offer(initialFrames, 0L);
+        emitter.onCompletion(() -> remove(connection));
+        emitter.onTimeout(() -> remove(connection));
+        emitter.onError(ex -> remove(connection));
+
+        connections.compute(userId, (id, userConnections) -> {
+            Set<SseConnection> updated = userConnections != null ? userConnections : ConcurrentHashMap.newKeySet();
+            updated.add(connection);
+            return updated;
+        });
+        connectionCount.incrementAndGet();
+        scheduleDrain(connection);
+    }
+
+    /**
+     * Queues the frames for every connection of the user and returns immediately.
+     *
+     * @param consumedAt {@link System#nanoTime()} when the oldest of the events was read from Kafka, or 0
+     */
+    public void publish(Long userId, Set<ResponseBodyEmitter.DataWithMediaType> frames, long consumedAt) {
+        Set<SseConnection> userConnections = connections.get(userId);
+        if (userConnections == null) {
+            return;
+        }
+
+        for (SseConnection connection : userConnections) {
+            enqueue(connection, frames, consumedAt);
+        }
+    }
+
+    public int getConnectionCount() {
+        return connectionCount.get();
+    }
+
+    private void enqueue(SseConnection connection, Set<ResponseBodyEmitter.DataWithMediaType> frames, long consumedAt) {
+        if (connection.isClosed()) {
+            return;
+        }
+
+        if (!connection.offer(frames, consumedAt)) {
+            if (overflowPolicy == SseOverflowPolicy.DISCONNECT) {
+                disconnectedCounter.increment();
+                disconnect(connection);
+                return;
+            }
+            connection.poll();
+            droppedCounter.increment();
+            if (!connection.offer(frames, consumedAt)) {
+                droppedCounter.increment();
+            }
+        }
+
+        scheduleDrain(connection);
+    }
+
+    private void scheduleDrain(SseConnection connection) {
+        if (connection.tryStartDrain()) {
+            sseWriterExecutor.execute(() -> drain(connection));
+        }
+    }
+
+    private void drain(SseConnection connection) {
+        try {
+            // Bounded per run so one busy connection cannot hold a writer thread forever
+            for (int i = 0; i < maxFramesPerDrain && !connection.isClosed(); i++) {
+                SseConnection.Outbound next = connection.poll();
+                if (next == null) {
+                    break;
+                }
+                SseDelivered flightEvent = new SseDelivered();
+                flightEvent.begin();
+                long sendStart = System.nanoTime();
+                connection.getEmitter().send(next.frames);
+                long sendEnd = System.nanoTime();
+                sendTimer.record(sendEnd - sendStart, TimeUnit.NANOSECONDS);
+                deliveryTracker.written(next.consumedAt);
+                if (flightEvent.shouldCommit()) {
+                    flightEvent.userId = connection.getUserId();
+                    flightEvent.consumeLatency = next.consumedAt != 0 ? sendEnd - next.consumedAt : 0;
+                    flightEvent.commit();
+                }
+            }
+        } catch (IOException | IllegalStateException e) {
+            remove(connection);
+        } finally {
+            connection.finishDrain();
+        }
+
+        if (!connection.isEmpty() && !connection.isClosed()) {
+            scheduleDrain(connection);
+        }
+    }
+
+    private void disconnect(SseConnection connection) {
+        if (remove(connection)) {
+            // complete() waits for a write in progress, so it must not run on the publishing thread
+            sseWriterExecutor.execute(connection.getEmitter()::complete);
+        }
+    }
+
+    private boolean remove(SseConnection connection) {
+        if (!connection.close()) {
+            return false;
+        }
+
+        connections.computeIfPresent(connection.getUserId(), (id, userConnections) -> {
+            userConnections.remove(connection);
+            return userConnections.isEmpty() ? null : userConnections;
+        });
+        connectionCount.decrementAndGet();
+        return true;
+    }
+}
@@ -0,0 +1,9 @@
+package com.mpiaseczny.notification_service.service;
+
+/**
+ * What happens to a client whose outbound queue is full.
+ */
+public enum SseOverflowPolicy {
+    DROP_OLDEST,
+    DISCONNECT
+}
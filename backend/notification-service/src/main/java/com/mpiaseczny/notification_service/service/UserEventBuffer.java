@@ -0,0 +1,103 @@
+package com.mpiaseczny.notification_service.service;
+
+import com.mpiaseczny.notification_service.dto.EventId;
+import com.mpiaseczny.notification_service.dto.NotificationEvent;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Fixed-size ring of a user's most recent events. Ids are kept in primitive arrays so a lookup never touches the
+ * payloads. Not thread safe; callers hold {@link #lock}.
+ */
+final class UserEventBuffer {
+
+    // A lock rather than a monitor, so a virtual thread waiting for it does not pin its carrier
+    final ReentrantLock lock = new ReentrantLock();
+
+    private final long[] timestamps;
+
+    private final int[] partitions;
+
+    private final long[] offsets;
+
+    private final String[] names;
+
+    private final Object[] payloads;
+
+    private int head;
+
+    private int size;
+
+    // Every event with a greater id is still in the buffer; only ever moves forward
+    private EventId coveredAfter;
+
+    UserEventBuffer(int capacity, long coveredSinceMillis) {
+        timestamps = new long[capacity];
+        partitions = new int[capacity];
+        offsets = new long[capacity];
+        names = new String[capacity];
+        payloads = new Object[capacity];
+        coveredAfter = new EventId(coveredSinceMillis, -1, -1);
+    }
+
+    void append(NotificationEvent event) {
+        int index = (head + size) % timestamps.length;
+        if (size == timestamps.length) {
+            // Events are not appended in id order, so the evicted one may be older than one evicted before it
+            EventId evicted = idAt(index);
+            if (evicted.compareTo(coveredAfter) > 0) {
+                coveredAfter = evicted;
+            }
+            head = (head + 1) % timestamps.length;
+        } else {
+            size++;
+        }
+
+        EventId id = event.getId();
+        timestamps[index] = id.getTimestamp();
+        partitions[index] = id.getPartition();
+        offsets[index] = id.getOffset();
+        names[index] = event.getName();
+        payloads[index] = event.getData();
+    }
+
+    /**
+     * Whether every event newer than {@code lastEventId} is still in the buffer.
+     */
+    boolean covers(EventId lastEventId) {
+        return lastEventId.compareTo(coveredAfter) >= 0;
+    }
+
+    /**
+     * Events the client has not seen yet. When the id is in the buffer, that is everything appended after it;
+     * otherwise every event with a greater id.
+     */
+    List<NotificationEvent> after(EventId lastEventId) {
+        List<NotificationEvent> events = new ArrayList<>();
+        int position = indexOf(lastEventId);
+        for (int i = 0; i < size; i++) {
+            int index = (head + i) % timestamps.length;
+            if (position >= 0 ? i > position : idAt(index).compareTo(lastEventId) > 0) {
+                events.add(new NotificationEvent(idAt(index), names[index], payloads[index]));
+            }
+        }
+        return events;
+    }
+
+    private int indexOf(EventId id) {
+        for (int i = size - 1; i >= 0; i--) {
+            int index = (head + i) % timestamps.length;
+            if (offsets[index] == id.getOffset() && partitions[index] == id.getPartition()
+                    && timestamps[index] == id.getTimestamp()) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private EventId idAt(int index) {
+        return new EventId(timestamps[index], partitions[index], offsets[index]);
+    }
+}
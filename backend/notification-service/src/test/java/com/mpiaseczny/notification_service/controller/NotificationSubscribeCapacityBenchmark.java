@@ -0,0 +1,133 @@
+package com.mpiaseczny.notification_service.controller;
+
+import com.mpiaseczny.notification_service.NotificationServiceApplication;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.MediaType;
+import reactor.core.Disposable;
+import reactor.core.Disposables;
+import reactor.core.publisher.Flux;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.http.server.HttpServer;
+import reactor.netty.resources.ConnectionProvider;
+import reactor.netty.resources.LoopResources;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Starts the service with the {@code reactive} profile on Netty and then on Tomcat, opens idle SSE subscriptions
+ * against each and prints how many were established and the heap retained per connection. Client and server share
+ * the JVM, so the per-connection figure includes the client side; compare the two modes rather than reading it as
+ * an absolute. Not picked up by the default surefire includes; run with
+ * {@code mvn test -Dtest=NotificationSubscribeCapacityBenchmark [-DloadTest.connections=8000]}.
+ * Every connection costs two file descriptors here, so raise {@code ulimit -n} before going past a few thousand.
+ */
+class NotificationSubscribeCapacityBenchmark {
+
+    private static final int CONNECTIONS = Integer.getInteger("loadTest.connections", 8_000);
+
+    private static final Duration ESTABLISH_TIMEOUT = Duration.ofSeconds(Long.getLong("loadTest.timeoutSeconds", 60));
+
+    private static final int USERS = 1_000;
+
+    @Test
+    void servletVersusReactive() throws Exception {
+        measureBaseline();
+        // Reactive first: a stopped Tomcat keeps part of its per-connection state reachable for a while
+        measure("reactive");
+        measure("servlet");
+    }
+
+    /**
+     * A bare Netty server that answers with one SSE frame and then holds the stream, to show the share of the
+     * figures that belongs to the client and the TCP connection itself.
+     */
+    private void measureBaseline() throws Exception {
+        DisposableServer server = HttpServer.create()
+                .port(0)
+                .handle((request, response) -> response
+                        .header(HttpHeaderNames.CONTENT_TYPE, MediaType.TEXT_EVENT_STREAM_VALUE)
+                        .sendString(Flux.just("data:connected\n\n").concatWith(Flux.never())))
+                .bindNow();
+        try {
+            open("baseline", server.port());
+        } finally {
+            server.disposeNow();
+        }
+    }
+
+    private void measure(String mode) throws Exception {
+        SpringApplicationBuilder application = new SpringApplicationBuilder(NotificationServiceApplication.class)
+                .properties(
+                        "spring.cloud.consul.enabled=false",
+                        "spring.cloud.consul.discovery.enabled=false",
+                        "logging.level.root=WARN",
+                        "logging.level.org.apache.kafka=OFF",
+                        "logging.level.org.springframework.web.servlet.mvc.support=ERROR");
+        if (mode.equals("reactive")) {
+            application.profiles("reactive");
+        }
+
+        try (ConfigurableApplicationContext context = application.run("--server.port=0")) {
+            open(mode, ((WebServerApplicationContext) context).getWebServer().getPort());
+        }
+    }
+
+    private void open(String mode, int port) throws Exception {
+        LoopResources loops = LoopResources.create("capacity-client", 2, true);
+        ConnectionProvider connections = ConnectionProvider.newConnection();
+        Disposable.Composite subscriptions = Disposables.composite();
+        try {
+            HttpClient client = HttpClient.create(connections)
+                    .runOn(loops)
+                    .baseUrl("http://localhost:" + port);
+
+            long heapBefore = usedHeapAfterGc();
+            CountDownLatch established = new CountDownLatch(CONNECTIONS);
+            for (int i = 0; i < CONNECTIONS; i++) {
+                String userId = String.valueOf(i % USERS);
+                subscriptions.add(client
+                        .headers(headers -> headers.set("X-User-Id", userId))
+                        .get()
+                        .uri("/api/notifications/subscribe")
+                        .responseContent()
+                        .switchOnFirst((first, content) -> {
+                            if (first.hasValue()) {
+                                established.countDown();
+                            }
+                            return content;
+                        })
+                        .subscribe(chunk -> { }, e -> { }));
+            }
+
+            established.await(ESTABLISH_TIMEOUT.toSeconds(), TimeUnit.SECONDS);
+            long open = CONNECTIONS - established.getCount();
+            long heapAfter = usedHeapAfterGc();
+
+            System.out.printf("%-8s requested: %d, established: %d, retained heap: %.1f MB, per connection: %.1f KB%n",
+                    mode, CONNECTIONS, open, (heapAfter - heapBefore) / 1024.0 / 1024.0,
+                    open == 0 ? 0.0 : (heapAfter - heapBefore) / 1024.0 / open);
+        } finally {
+            subscriptions.dispose();
+            connections.disposeLater().block();
+            loops.disposeLater().block();
+        }
+    }
+
+    private static long usedHeapAfterGc() throws InterruptedException {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            Thread.sleep(200);
+        }
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+}
@@ -0,0 +1,314 @@
+package com.mpiaseczny.notification_service.listener;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mpiaseczny.notification_service.NotificationServiceApplication;
+import com.mpiaseczny.notification_service.dto.OrderCreatedEvent;
+import com.mpiaseczny.notification_service.dto.OrderStatusChangedEvent;
+import com.mpiaseczny.notification_service.enums.OrderStatus;
+import com.mpiaseczny.notification_service.service.SseFanoutEngine;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.producer.KafkaProducer;
+import org.apache.kafka.clients.producer.Producer;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.listener.MessageListenerContainer;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+import org.springframework.kafka.test.utils.ContainerTestUtils;
+import org.springframework.kafka.test.utils.KafkaTestUtils;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@EmbeddedKafka(partitions = 3, topics = {"order-created", "order-status-changed", "order-created.DLT"})
+class NotificationRoutingIntegrationTest {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(30);
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final List<ConfigurableApplicationContext> instances = new ArrayList<>();
+
+    @AfterEach
+    void stopInstances() {
+        instances.forEach(ConfigurableApplicationContext::close);
+    }
+
+    @Test
+    void broadcastDeliversEachEventThroughTheInstanceHoldingTheConnection(EmbeddedKafkaBroker embeddedKafka) {
+        ConfigurableApplicationContext instanceA = startInstance(embeddedKafka);
+        ConfigurableApplicationContext instanceB = startInstance(embeddedKafka);
+
+        Flux<ServerSentEvent<String>> userOneStream = subscribe(instanceA, 1L, null);
+        Flux<ServerSentEvent<String>> userTwoStream = subscribe(instanceB, 2L, null);
+
+        DefaultKafkaProducerFactory<String, Object> producerFactory = producerFactory(embeddedKafka);
+        KafkaTemplate<String, Object> kafkaTemplate = new KafkaTemplate<>(producerFactory);
+        List<Long> userOneOrders = new ArrayList<>();
+        List<Long> userTwoOrders = new ArrayList<>();
+        // Keys spread the events over all partitions, so both instances must see events of both users
+        for (long orderId = 1; orderId <= 6; orderId++) {
+            long userId = orderId % 2 == 1 ? 1L : 2L;
+            (userId == 1L ? userOneOrders : userTwoOrders).add(orderId);
+            kafkaTemplate.send("order-created", String.valueOf(orderId), orderCreated(orderId, userId));
+        }
+        kafkaTemplate.flush();
+        producerFactory.destroy();
+
+        assertEquals(userOneOrders, orderIds(userOneStream, userOneOrders.size()));
+        assertEquals(userTwoOrders, orderIds(userTwoStream, userTwoOrders.size()));
+    }
+
+    @Test
+    void reconnectResumesFromTheBufferAfterLastEventId(EmbeddedKafkaBroker embeddedKafka) {
+        ConfigurableApplicationContext instance = startInstance(embeddedKafka, "--notifications.replay.buffer-size=64");
+
+        assertResumesMissedEvents(embeddedKafka, instance, 3L);
+        assertEquals(1.0, resumes(instance, "buffer"));
+        assertEquals(0.0, resumes(instance, "kafka"));
+    }
+
+    @Test
+    void reconnectReplaysFromKafkaWhenTheBufferNoLongerReachesLastEventId(EmbeddedKafkaBroker embeddedKafka) {
+        ConfigurableApplicationContext instance = startInstance(embeddedKafka, "--notifications.replay.buffer-size=2");
+
+        assertResumesMissedEvents(embeddedKafka, instance, 4L);
+        assertEquals(0.0, resumes(instance, "buffer"));
+        assertEquals(1.0, resumes(instance, "kafka"));
+    }
+
+    @Test
+    void statusChangeBurstOfOneOrderReachesTheUserAsItsLatestState(EmbeddedKafkaBroker embeddedKafka) {
+        ConfigurableApplicationContext instance = startInstance(embeddedKafka,
+                "--notifications.status-changes.coalesce-window=2s");
+        Long userId = 5L;
+        Flux<ServerSentEvent<String>> stream = subscribe(instance, userId, null, "order-status-changed");
+
+        DefaultKafkaProducerFactory<String, Object> producerFactory = producerFactory(embeddedKafka);
+        KafkaTemplate<String, Object> kafkaTemplate = new KafkaTemplate<>(producerFactory);
+        OrderStatus[] statuses = {OrderStatus.PENDING, OrderStatus.CONFIRMED, OrderStatus.PROCESSING, OrderStatus.SHIPPED};
+        for (long orderId = 500; orderId <= 501; orderId++) {
+            for (int i = 1; i < statuses.length; i++) {
+                OrderStatusChangedEvent change = new OrderStatusChangedEvent(
+                        orderId, statuses[i - 1], statuses[i], userId, Instant.now());
+                kafkaTemplate.send("order-status-changed", String.valueOf(orderId), change);
+            }
+        }
+        kafkaTemplate.flush();
+        producerFactory.destroy();
+
+        List<String> changes = stream.take(Duration.ofSeconds(10))
+                .map(event -> readStatusChange(event.data()))
+                .sort()
+                .collectList()
+                .block(TIMEOUT);
+        assertEquals(List.of("500:PENDING->SHIPPED", "501:PENDING->SHIPPED"), changes);
+        assertEquals(4.0, instance.getBean(MeterRegistry.class).counter("notifications.status-changes.coalesced").count());
+    }
+
+    @Test
+    void unreadableEventGoesToTheDeadLetterTopicWithoutHoldingBackTheNextOne(EmbeddedKafkaBroker embeddedKafka) {
+        ConfigurableApplicationContext instance = startInstance(embeddedKafka);
+        Long userId = 6L;
+        Flux<ServerSentEvent<String>> stream = subscribe(instance, userId, null);
+
+        // Same key, so the readable event is behind the unreadable one on the partition
+        ProducerRecord<String, String> poison = new ProducerRecord<>("order-created", "600", "{not json");
+        poison.headers().add("__TypeId__", "orderCreated".getBytes(StandardCharsets.UTF_8));
+        Map<String, Object> rawProps = Map.of(
+                ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, embeddedKafka.getBrokersAsString(),
+                ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class,
+                ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, StringSerializer.class
+        );
+        try (Producer<String, String> rawProducer = new KafkaProducer<>(rawProps)) {
+            rawProducer.send(poison);
+        }
+        DefaultKafkaProducerFactory<String, Object> producerFactory = producerFactory(embeddedKafka);
+        KafkaTemplate<String, Object> kafkaTemplate = new KafkaTemplate<>(producerFactory);
+        kafkaTemplate.send("order-created", "600", orderCreated(601L, userId));
+        kafkaTemplate.flush();
+        producerFactory.destroy();
+
+        assertEquals(List.of(601L), orderIds(stream, 1));
+        Map<String, Object> consumerProps = KafkaTestUtils.consumerProps("dead-letter-reader", "false", embeddedKafka);
+        try (Consumer<String, String> deadLetters = new DefaultKafkaConsumerFactory<>(consumerProps,
+                new StringDeserializer(), new StringDeserializer()).createConsumer()) {
+            embeddedKafka.consumeFromAnEmbeddedTopic(deadLetters, "order-created.DLT");
+            ConsumerRecord<String, String> deadLetter =
+                    KafkaTestUtils.getSingleRecord(deadLetters, "order-created.DLT", TIMEOUT);
+            // The original bytes, for whoever inspects or replays it
+            assertEquals("{not json", deadLetter.value());
+            assertEquals("600", deadLetter.key());
+        }
+    }
+
+    private void assertResumesMissedEvents(EmbeddedKafkaBroker embeddedKafka, ConfigurableApplicationContext instance,
+                                           Long userId) {
+        DefaultKafkaProducerFactory<String, Object> producerFactory = producerFactory(embeddedKafka);
+        KafkaTemplate<String, Object> kafkaTemplate = new KafkaTemplate<>(producerFactory);
+        long firstOrderId = userId * 100;
+        // Keyed by user, so the order the client receives matches the id order a Kafka replay relies on
+        String key = String.valueOf(userId);
+
+        Flux<ServerSentEvent<String>> firstStream = subscribe(instance, userId, null);
+        for (long orderId = firstOrderId; orderId < firstOrderId + 3; orderId++) {
+            kafkaTemplate.send("order-created", key, orderCreated(orderId, userId));
+        }
+        kafkaTemplate.flush();
+        String lastEventId = firstStream.take(3).map(ServerSentEvent::id).blockLast(TIMEOUT);
+
+        // Events the client misses while reconnecting
+        List<Long> missedOrders = new ArrayList<>();
+        for (long orderId = firstOrderId + 3; orderId < firstOrderId + 6; orderId++) {
+            missedOrders.add(orderId);
+            kafkaTemplate.send("order-created", key, orderCreated(orderId, userId));
+        }
+        kafkaTemplate.flush();
+        producerFactory.destroy();
+        // Events are recorded before they are published, so once the old stream has them they can be resumed
+        firstStream.take(6).blockLast(TIMEOUT);
+
+        assertEquals(missedOrders, orderIds(subscribe(instance, userId, lastEventId), missedOrders.size()));
+    }
+
+    private double resumes(ConfigurableApplicationContext instance, String source) {
+        return instance.getBean(MeterRegistry.class).counter("notifications.replay.resumes", "source", source).count();
+    }
+
+    private ConfigurableApplicationContext startInstance(EmbeddedKafkaBroker embeddedKafka, String... extraArgs) {
+        List<String> args = new ArrayList<>(List.of("--server.port=0",
+                "--spring.kafka.bootstrap-servers=" + embeddedKafka.getBrokersAsString(),
+                "--spring.cloud.consul.enabled=false",
+                "--spring.cloud.consul.discovery.enabled=false",
+                "--notifications.routing.mode=BROADCAST",
+                // Both instances share one host
+                "--notifications.routing.instance-id=" + UUID.randomUUID(),
+                // Open SSE streams would otherwise hold a graceful shutdown for its full timeout
+                "--server.shutdown=immediate"));
+        args.addAll(List.of(extraArgs));
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(NotificationServiceApplication.class)
+                .run(args.toArray(String[]::new));
+        instances.add(context);
+
+        // Broadcast groups start at the latest offset, so wait for the assignment before publishing
+        for (MessageListenerContainer container : context.getBean(KafkaListenerEndpointRegistry.class).getListenerContainers()) {
+            ContainerTestUtils.waitForAssignment(container, embeddedKafka.getPartitionsPerTopic());
+        }
+        return context;
+    }
+
+    private Flux<ServerSentEvent<String>> subscribe(ConfigurableApplicationContext instance, Long userId,
+                                                    String lastEventId) {
+        return subscribe(instance, userId, lastEventId, "order-created");
+    }
+
+    private Flux<ServerSentEvent<String>> subscribe(ConfigurableApplicationContext instance, Long userId,
+                                                    String lastEventId, String eventName) {
+        int port = ((WebServerApplicationContext) instance).getWebServer().getPort();
+        SseFanoutEngine sseFanoutEngine = instance.getBean(SseFanoutEngine.class);
+        int connectionsBefore = sseFanoutEngine.getConnectionCount();
+
+        Flux<ServerSentEvent<String>> stream = WebClient.create("http://localhost:" + port).get()
+                .uri("/api/notifications/subscribe")
+                .header("X-User-Id", String.valueOf(userId))
+                .headers(headers -> {
+                    if (lastEventId != null) {
+                        headers.set("Last-Event-ID", lastEventId);
+                    }
+                })
+                .retrieve()
+                .bodyToFlux(new ParameterizedTypeReference<ServerSentEvent<String>>() { })
+                .filter(event -> eventName.equals(event.event()))
+                .replay()
+                .autoConnect(0);
+        waitUntil(() -> sseFanoutEngine.getConnectionCount() > connectionsBefore,
+                "SSE subscription of user " + userId + " was not registered");
+        return stream;
+    }
+
+    private void waitUntil(BooleanSupplier condition, String failureMessage) {
+        long deadline = System.nanoTime() + TIMEOUT.toNanos();
+        while (!condition.getAsBoolean()) {
+            if (System.nanoTime() > deadline) {
+                throw new AssertionError(failureMessage);
+            }
+            try {
+                TimeUnit.MILLISECONDS.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new AssertionError(failureMessage, e);
+            }
+        }
+    }
+
+    private List<Long> orderIds(Flux<ServerSentEvent<String>> stream, int count) {
+        return stream.take(count)
+                .map(event -> readOrderId(event.data()))
+                // Events of one user come from different partitions, so only their set is defined
+                .sort()
+                .collectList()
+                .block(TIMEOUT);
+    }
+
+    private Long readOrderId(String data) {
+        try {
+            return objectMapper.readTree(data).get("orderId").asLong();
+        } catch (JsonProcessingException e) {
+            throw new AssertionError("Unreadable notification " + data, e);
+        }
+    }
+
+    private String readStatusChange(String data) {
+        try {
+            JsonNode change = objectMapper.readTree(data);
+            return change.get("orderId").asLong() + ":" + change.get("oldStatus").asText()
+                    + "->" + change.get("newStatus").asText();
+        } catch (JsonProcessingException e) {
+            throw new AssertionError("Unreadable notification " + data, e);
+        }
+    }
+
+    private DefaultKafkaProducerFactory<String, Object> producerFactory(EmbeddedKafkaBroker embeddedKafka) {
+        Map<String, Object> configProps = Map.of(
+                ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, embeddedKafka.getBrokersAsString(),
+                ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class,
+                ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, JsonSerializer.class,
+                JsonSerializer.TYPE_MAPPINGS, "orderCreated:" + OrderCreatedEvent.class.getName()
+                        + ",orderStatusChanged:" + OrderStatusChangedEvent.class.getName()
+        );
+        return new DefaultKafkaProducerFactory<>(configProps);
+    }
+
+    private OrderCreatedEvent orderCreated(Long orderId, Long userId) {
+        return new OrderCreatedEvent(orderId, Instant.now(), OrderStatus.PENDING, userId, 100L, "Order " + orderId);
+    }
+}
@@ -0,0 +1,118 @@
+package com.mpiaseczny.notification_service.listener;
+
+import com.mpiaseczny.notification_service.dto.NotificationEvent;
+import com.mpiaseczny.notification_service.dto.OrderCreatedEvent;
+import com.mpiaseczny.notification_service.enums.OrderStatus;
+import com.mpiaseczny.notification_service.service.DeliveryTracker;
+import com.mpiaseczny.notification_service.service.DuplicateEventFilter;
+import com.mpiaseczny.notification_service.service.NotificationService;
+import com.mpiaseczny.notification_service.service.OrderStatusCoalescer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.apache.kafka.common.record.TimestampType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.listener.DeadLetterPublishingRecoverer;
+import org.springframework.kafka.support.serializer.SerializationUtils;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+
+class OrderEventListenerTest {
+
+    private final NotificationService notificationService = mock(NotificationService.class);
+
+    private final DeadLetterPublishingRecoverer deadLetterPublishingRecoverer = mock(DeadLetterPublishingRecoverer.class);
+
+    private final DuplicateEventFilter duplicateEventFilter = mock(DuplicateEventFilter.class);
+
+    private OrderEventListener orderEventListener;
+
+    @BeforeEach
+    void setUp() {
+        orderEventListener = new OrderEventListener();
+        ReflectionTestUtils.setField(orderEventListener, "notificationService", notificationService);
+        ReflectionTestUtils.setField(orderEventListener, "orderStatusCoalescer", mock(OrderStatusCoalescer.class));
+        ReflectionTestUtils.setField(orderEventListener, "deadLetterPublishingRecoverer", deadLetterPublishingRecoverer);
+        ReflectionTestUtils.setField(orderEventListener, "deliveryTracker", mock(DeliveryTracker.class));
+        ReflectionTestUtils.setField(orderEventListener, "duplicateEventFilter", duplicateEventFilter);
+        when(duplicateEventFilter.isFirst(any())).thenReturn(true);
+    }
+
+    @Test
+    void handleOrderCreatedEvents_ShouldSendEachUserTheirEventsOfTheBatchInOneCallInOffsetOrder() {
+        // Given
+        List<ConsumerRecord<String, Object>> records = List.of(
+                record(1, created(10L, 1L)),
+                record(2, created(11L, 2L)),
+                record(3, created(12L, 1L))
+        );
+
+        // When
+        orderEventListener.handleOrderCreatedEvents(records);
+
+        // Then
+        verify(notificationService).sendOrderCreatedNotifications(eq(1L), argThat(events -> offsets(events).equals(List.of(1L, 3L))));
+        verify(notificationService).sendOrderCreatedNotifications(eq(2L), argThat(events -> offsets(events).equals(List.of(2L))));
+        verifyNoMoreInteractions(notificationService);
+    }
+
+    @Test
+    void handleOrderCreatedEvents_ShouldStillSendTheOtherUsersWhenSendingToOneFails() {
+        // Given
+        List<ConsumerRecord<String, Object>> records = List.of(
+                record(1, created(10L, 1L)),
+                record(2, created(11L, 2L))
+        );
+        doThrow(new IllegalStateException("closed"))
+                .when(notificationService).sendOrderCreatedNotifications(eq(1L), any());
+
+        // When
+        orderEventListener.handleOrderCreatedEvents(records);
+
+        // Then
+        verify(notificationService).sendOrderCreatedNotifications(eq(2L), argThat(events -> events.size() == 1));
+    }
+
+    @Test
+    void handleOrderCreatedEvents_ShouldSendUnreadableRecordsToTheDeadLetterTopicAndDeliverTheRest() {
+        // Given
+        ConsumerRecord<String, Object> poison = record(1, null);
+        poison.headers().add(SerializationUtils.VALUE_DESERIALIZER_EXCEPTION_HEADER, new byte[0]);
+        ConsumerRecord<String, Object> unexpected = record(2, "not an event");
+        List<ConsumerRecord<String, Object>> records = List.of(poison, unexpected, record(3, created(10L, 1L)));
+
+        // When
+        orderEventListener.handleOrderCreatedEvents(records);
+
+        // Then
+        verify(deadLetterPublishingRecoverer).accept(eq(poison), any(IllegalArgumentException.class));
+        verifyNoMoreInteractions(deadLetterPublishingRecoverer);
+        verify(notificationService).sendOrderCreatedNotifications(eq(1L), argThat(events -> offsets(events).equals(List.of(3L))));
+        verifyNoMoreInteractions(notificationService);
+    }
+
+    private static List<Long> offsets(List<NotificationEvent> events) {
+        return events.stream().map(event -> event.getId().getOffset()).toList();
+    }
+
+    private static OrderCreatedEvent created(Long orderId, Long userId) {
+        return new OrderCreatedEvent(orderId, Instant.now(), OrderStatus.PENDING, userId, 100L, "order " + orderId);
+    }
+
+    private static ConsumerRecord<String, Object> record(long offset, Object value) {
+        return new ConsumerRecord<>("order-created", 0, offset, System.currentTimeMillis(), TimestampType.CREATE_TIME,
+                0, 0, String.valueOf(offset), value, new RecordHeaders(), Optional.empty());
+    }
+}
@@ -0,0 +1,58 @@
+package com.mpiaseczny.notification_service.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.apache.kafka.common.record.TimestampType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DuplicateEventFilterTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private DuplicateEventFilter duplicateEventFilter;
+
+    @BeforeEach
+    void setUp() {
+        duplicateEventFilter = new DuplicateEventFilter();
+        ReflectionTestUtils.setField(duplicateEventFilter, "meterRegistry", meterRegistry);
+        duplicateEventFilter.init();
+    }
+
+    @Test
+    void isFirst_ShouldRejectARepublishedEventId() {
+        // Given
+        duplicateEventFilter.isFirst(record(1, "event-1"));
+
+        // When & Then
+        // Published again by the relay, so it comes back at a later offset
+        assertFalse(duplicateEventFilter.isFirst(record(2, "event-1")));
+        assertTrue(duplicateEventFilter.isFirst(record(3, "event-2")));
+        assertEquals(1.0, meterRegistry.counter("notifications.events.duplicates").count());
+    }
+
+    @Test
+    void isFirst_WithoutEventIdHeader_ShouldAcceptEveryRecord() {
+        // When & Then
+        assertTrue(duplicateEventFilter.isFirst(record(1, null)));
+        assertTrue(duplicateEventFilter.isFirst(record(1, null)));
+    }
+
+    private static ConsumerRecord<String, Object> record(long offset, String eventId) {
+        RecordHeaders headers = new RecordHeaders();
+        if (eventId != null) {
+            headers.add(DuplicateEventFilter.EVENT_ID_HEADER, eventId.getBytes(StandardCharsets.UTF_8));
+        }
+        return new ConsumerRecord<>("order-created", 0, offset, 1_000, TimestampType.CREATE_TIME, 0, 0,
+                "1", "payload", headers, Optional.empty());
+    }
+}
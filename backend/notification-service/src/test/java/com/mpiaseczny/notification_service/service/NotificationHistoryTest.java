@@ -0,0 +1,78 @@
+package com.mpiaseczny.notification_service.service;
+
+import com.mpiaseczny.notification_service.dto.EventId;
+import com.mpiaseczny.notification_service.dto.NotificationEvent;
+import com.mpiaseczny.notification_service.enums.NotificationRoutingMode;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class NotificationHistoryTest {
+
+    private static final Long USER_ID = 7L;
+
+    private final KafkaNotificationReplay kafkaNotificationReplay = mock(KafkaNotificationReplay.class);
+
+    private NotificationHistory notificationHistory;
+
+    @BeforeEach
+    void setUp() {
+        notificationHistory = new NotificationHistory();
+        ReflectionTestUtils.setField(notificationHistory, "kafkaNotificationReplay", kafkaNotificationReplay);
+        ReflectionTestUtils.setField(notificationHistory, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(notificationHistory, "routingMode", NotificationRoutingMode.BROADCAST);
+        notificationHistory.init();
+    }
+
+    @Test
+    void record_WhenBroadcasting_ShouldOnlyKeepEventsOfUsersWhoSubscribedHere() {
+        // Given
+        long now = System.currentTimeMillis();
+        AtomicInteger published = new AtomicInteger();
+        notificationHistory.record(USER_ID, List.of(event(now - 1_000, 1)), published::incrementAndGet);
+        when(kafkaNotificationReplay.read(eq(USER_ID), any())).thenReturn(List.of());
+
+        // When
+        List<NotificationEvent> resumed = notificationHistory.resume(USER_ID, new EventId(now - 2_000, 0, 0).toString(),
+                missed -> missed);
+
+        // Then
+        assertEquals(1, published.get());
+        assertEquals(List.of(), resumed);
+        verify(kafkaNotificationReplay).read(USER_ID, new EventId(now - 2_000, 0, 0));
+    }
+
+    @Test
+    void resume_WhenBroadcasting_ShouldServeEventsRecordedAfterTheUserSubscribedFromTheBuffer() {
+        // Given
+        notificationHistory.resume(USER_ID, null, missed -> missed);
+        long subscribedAt = System.currentTimeMillis();
+        notificationHistory.record(USER_ID, List.of(event(subscribedAt + 1_000, 1), event(subscribedAt + 2_000, 2)),
+                () -> { });
+
+        // When
+        List<NotificationEvent> resumed = notificationHistory.resume(USER_ID,
+                new EventId(subscribedAt + 1_000, 0, 1).toString(), missed -> missed);
+
+        // Then
+        assertEquals(List.of(new EventId(subscribedAt + 2_000, 0, 2)),
+                resumed.stream().map(NotificationEvent::getId).toList());
+        verifyNoInteractions(kafkaNotificationReplay);
+    }
+
+    private static NotificationEvent event(long timestamp, long offset) {
+        return new NotificationEvent(new EventId(timestamp, 0, offset), "order-created", "payload");
+    }
+}
@@ -0,0 +1,154 @@
+package com.mpiaseczny.notification_service.service;
+
+import com.mpiaseczny.notification_service.dto.EventId;
+import com.mpiaseczny.notification_service.dto.NotificationEvent;
+import com.mpiaseczny.notification_service.dto.OrderStatusChangedEvent;
+import com.mpiaseczny.notification_service.enums.OrderStatus;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.apache.kafka.common.record.TimestampType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+class OrderStatusCoalescerTest {
+
+    private static final Long USER_ID = 7L;
+
+    private final NotificationService notificationService = mock(NotificationService.class);
+
+    private final ScheduledThreadPoolExecutor scheduler = new ScheduledThreadPoolExecutor(1);
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private OrderStatusCoalescer orderStatusCoalescer;
+
+    @BeforeEach
+    void setUp() {
+        orderStatusCoalescer = new OrderStatusCoalescer();
+        ReflectionTestUtils.setField(orderStatusCoalescer, "notificationService", notificationService);
+        ReflectionTestUtils.setField(orderStatusCoalescer, "statusChangeScheduler", scheduler);
+        ReflectionTestUtils.setField(orderStatusCoalescer, "meterRegistry", meterRegistry);
+        orderStatusCoalescer.registerMeters();
+    }
+
+    @AfterEach
+    void tearDown() {
+        scheduler.shutdownNow();
+    }
+
+    @Test
+    void coalesce_ShouldGoFromTheFirstOldStatusToTheLatestNewStatusUnderTheLatestId() {
+        // Given
+        OrderStatusChangedEvent first = change(1L, OrderStatus.PENDING, OrderStatus.CONFIRMED);
+        NotificationEvent latest = NotificationEvent.of(
+                record(4, 1_000, change(1L, OrderStatus.PROCESSING, OrderStatus.SHIPPED)));
+
+        // When
+        NotificationEvent coalesced = OrderStatusCoalescer.coalesce(first, latest);
+
+        // Then
+        OrderStatusChangedEvent change = (OrderStatusChangedEvent) coalesced.getData();
+        assertEquals(OrderStatus.PENDING, change.getOldStatus());
+        assertEquals(OrderStatus.SHIPPED, change.getNewStatus());
+        assertEquals(latest.getId(), coalesced.getId());
+        assertSame(latest, OrderStatusCoalescer.coalesce((OrderStatusChangedEvent) latest.getData(), latest));
+    }
+
+    @Test
+    void restamp_ShouldOnlyMoveTheTimestampForward() {
+        // Given
+        NotificationEvent event = NotificationEvent.of(
+                record(4, 1_000, change(1L, OrderStatus.PENDING, OrderStatus.CONFIRMED)));
+
+        // When & Then
+        assertEquals(new EventId(5_000, 0, 4), OrderStatusCoalescer.restamp(event, 5_000).getId());
+        assertSame(event, OrderStatusCoalescer.restamp(event, 500));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void submit_ShouldDeliverOneEventPerOrderOnlyWhenItsWindowCloses() throws Exception {
+        // Given
+        ReflectionTestUtils.setField(orderStatusCoalescer, "coalesceWindow", Duration.ofMillis(200));
+        long producedAt = System.currentTimeMillis() - 60_000;
+        List<ConsumerRecord<String, Object>> records = List.of(
+                record(1, producedAt, change(1L, OrderStatus.PENDING, OrderStatus.CONFIRMED)),
+                record(2, producedAt, change(2L, OrderStatus.PENDING, OrderStatus.CANCELLED)),
+                record(3, producedAt, change(1L, OrderStatus.CONFIRMED, OrderStatus.PROCESSING)),
+                record(4, producedAt, change(1L, OrderStatus.PROCESSING, OrderStatus.SHIPPED))
+        );
+
+        // When
+        CompletableFuture<Void> delivered = orderStatusCoalescer.submit(records);
+
+        // Then
+        assertFalse(delivered.isDone());
+        verifyNoInteractions(notificationService);
+
+        delivered.get(5, TimeUnit.SECONDS);
+        ArgumentCaptor<List<NotificationEvent>> events = ArgumentCaptor.forClass(List.class);
+        verify(notificationService, times(2)).sendOrderStatusChangedNotifications(eq(USER_ID), events.capture());
+        NotificationEvent firstOrder = events.getAllValues().stream()
+                .flatMap(List::stream)
+                .filter(event -> ((OrderStatusChangedEvent) event.getData()).getOrderId() == 1L)
+                .findFirst()
+                .orElseThrow();
+        OrderStatusChangedEvent change = (OrderStatusChangedEvent) firstOrder.getData();
+        assertEquals(OrderStatus.PENDING, change.getOldStatus());
+        assertEquals(OrderStatus.SHIPPED, change.getNewStatus());
+        assertEquals(4, firstOrder.getId().getOffset());
+        // Not older than anything delivered to the user while the window was open
+        assertTrue(firstOrder.getId().getTimestamp() > producedAt);
+        assertEquals(2.0, meterRegistry.counter("notifications.status-changes.coalesced").count());
+    }
+
+    @Test
+    void submit_WithoutWindow_ShouldDeliverEachUsersChangesRightAway() {
+        // Given
+        ReflectionTestUtils.setField(orderStatusCoalescer, "coalesceWindow", Duration.ZERO);
+        List<ConsumerRecord<String, Object>> records = List.of(
+                record(1, 1_000, change(1L, OrderStatus.PENDING, OrderStatus.CONFIRMED)),
+                record(2, 1_000, change(1L, OrderStatus.CONFIRMED, OrderStatus.PROCESSING))
+        );
+
+        // When
+        CompletableFuture<Void> delivered = orderStatusCoalescer.submit(records);
+
+        // Then
+        assertTrue(delivered.isDone());
+        verify(notificationService).sendOrderStatusChangedNotifications(
+                eq(USER_ID), argThat(events -> events.size() == 2));
+    }
+
+    private static OrderStatusChangedEvent change(Long orderId, OrderStatus oldStatus, OrderStatus newStatus) {
+        return new OrderStatusChangedEvent(orderId, oldStatus, newStatus, USER_ID, Instant.now());
+    }
+
+    private static ConsumerRecord<String, Object> record(long offset, long timestamp, OrderStatusChangedEvent change) {
+        return new ConsumerRecord<>("order-status-changed", 0, offset, timestamp, TimestampType.CREATE_TIME, 0, 0,
+                String.valueOf(change.getOrderId()), change, new RecordHeaders(), Optional.empty());
+    }
+}
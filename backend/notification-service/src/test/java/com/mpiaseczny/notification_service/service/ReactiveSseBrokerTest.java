@@ -0,0 +1,83 @@
+package com.mpiaseczny.notification_service.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ReactiveSseBrokerTest {
+
+    private static final Long USER_ID = 7L;
+
+    private ReactiveSseBroker reactiveSseBroker;
+
+    @BeforeEach
+    void setUp() {
+        reactiveSseBroker = new ReactiveSseBroker();
+        ReflectionTestUtils.setField(reactiveSseBroker, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(reactiveSseBroker, "heartbeatInterval", Duration.ofHours(1));
+        reactiveSseBroker.registerMeters();
+    }
+
+    @Test
+    void subscribe_ShouldRegisterOnlyWhileTheStreamIsSubscribed() {
+        // Given
+        Flux<ServerSentEvent<Object>> stream = reactiveSseBroker.subscribe(USER_ID,
+                registration -> registration.register(List.of(event("connected"))));
+
+        // When & Then
+        assertEquals(0, reactiveSseBroker.getConnectionCount());
+        StepVerifier.create(stream)
+                .expectNext(event("connected"))
+                .then(() -> assertEquals(1, reactiveSseBroker.getConnectionCount()))
+                .then(() -> reactiveSseBroker.publish(USER_ID, List.of(event("order-1"))))
+                .expectNext(event("order-1"))
+                .thenCancel()
+                .verify(Duration.ofSeconds(5));
+        assertEquals(0, reactiveSseBroker.getConnectionCount());
+    }
+
+    @Test
+    void subscribe_ShouldBufferEventsPublishedBeforeTheInitialEventsAreSent() {
+        // Given
+        Flux<ServerSentEvent<Object>> stream = reactiveSseBroker.subscribe(USER_ID, registration -> {
+            ReactiveSseBroker.Connection connection = registration.register(List.of(event("missed")));
+            // Published after the replay was read, while the subscription is still being set up
+            reactiveSseBroker.publish(USER_ID, List.of(event("live")));
+            return connection;
+        });
+
+        // When & Then
+        StepVerifier.create(stream)
+                .expectNext(event("missed"), event("live"))
+                .thenCancel()
+                .verify(Duration.ofSeconds(5));
+        assertEquals(0, reactiveSseBroker.getConnectionCount());
+    }
+
+    @Test
+    void subscribe_WhenRegistrationFails_ShouldNotLeaveAConnectionBehind() {
+        // Given
+        Flux<ServerSentEvent<Object>> stream = reactiveSseBroker.subscribe(USER_ID, registration -> {
+            throw new IllegalStateException("Replay failed");
+        });
+
+        // When & Then
+        StepVerifier.create(stream)
+                .expectError(IllegalStateException.class)
+                .verify(Duration.ofSeconds(5));
+        assertEquals(0, reactiveSseBroker.getConnectionCount());
+    }
+
+    private static ServerSentEvent<Object> event(String id) {
+        return ServerSentEvent.builder().id(id).event("order-created").data(id).build();
+    }
+}
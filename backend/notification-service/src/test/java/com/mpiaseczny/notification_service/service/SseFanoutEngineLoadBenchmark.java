@@ -0,0 +1,164 @@
+package com.mpiaseczny.notification_service.service;
+
+import com.mpiaseczny.notification_service.config.SseConfig;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Holds 50k emitters, one in a thousand of them stalling for a second on every write, and publishes one frame per user per round.
+ * Prints how long {@code publish} kept the caller busy and the delivery latency percentiles of the healthy
+ * connections. Not picked up by the default surefire includes; run with
+ * {@code mvn test -Dtest=SseFanoutEngineLoadBenchmark}.
+ */
+@SpringJUnitConfig({SseConfig.class, SseFanoutEngine.class, DeliveryTracker.class, SimpleMeterRegistry.class})
+@TestPropertySource(properties = {
+        "notifications.sse.queue-capacity=8",
+        "notifications.sse.writer-threads=64",
+        "notifications.sse.overflow-policy=DISCONNECT"
+})
+class SseFanoutEngineLoadBenchmark {
+
+    private static final int USERS = 10_000;
+
+    private static final int CONNECTIONS_PER_USER = 5;
+
+    private static final int SLOW_CONNECTION_EVERY = 1_000;
+
+    private static final long SLOW_WRITE_MILLIS = 1_000;
+
+    private static final int WARMUP_ROUNDS = 5;
+
+    private static final int MEASURED_ROUNDS = 20;
+
+    @Autowired
+    private SseFanoutEngine sseFanoutEngine;
+
+    private final SimpleMeterRegistry results = new SimpleMeterRegistry();
+
+    private final Timer deliveryLatency = Timer.builder("sse.delivery")
+            .publishPercentiles(0.5, 0.99, 0.999)
+            .register(results);
+
+    private final Timer publishTime = Timer.builder("sse.publish")
+            .publishPercentiles(0.5, 0.99)
+            .register(results);
+
+    private volatile long roundStartedAt;
+
+    private volatile boolean measuring;
+
+    private volatile CountDownLatch roundDelivered;
+
+    @Test
+    void fanOutToFiftyThousandConnections() throws Exception {
+        List<RecordingEmitter> emitters = new ArrayList<>(USERS * CONNECTIONS_PER_USER);
+        int fastConnections = 0;
+        for (long userId = 0; userId < USERS; userId++) {
+            for (int c = 0; c < CONNECTIONS_PER_USER; c++) {
+                boolean slow = emitters.size() % SLOW_CONNECTION_EVERY == 0;
+                RecordingEmitter emitter = new RecordingEmitter(slow);
+                emitters.add(emitter);
+                fastConnections += slow ? 0 : 1;
+                sseFanoutEngine.register(userId, emitter, SseEmitter.event().name("connected").data("").build());
+            }
+        }
+        assertEquals(USERS * CONNECTIONS_PER_USER, sseFanoutEngine.getConnectionCount());
+
+        for (int round = 0; round < WARMUP_ROUNDS + MEASURED_ROUNDS; round++) {
+            measuring = round >= WARMUP_ROUNDS;
+            runRound(fastConnections, round);
+        }
+
+        HistogramPrinter.print("delivery", deliveryLatency);
+        HistogramPrinter.print("publish (all users)", publishTime);
+        int slowDisconnected = USERS * CONNECTIONS_PER_USER - sseFanoutEngine.getConnectionCount();
+        System.out.printf("connections: %d, slow connections disconnected: %d%n",
+                USERS * CONNECTIONS_PER_USER, slowDisconnected);
+
+        assertEquals(MEASURED_ROUNDS * (long) fastConnections, deliveryLatency.count());
+        assertTrue(emitters.stream().filter(emitter -> emitter.slow).allMatch(emitter -> emitter.completed));
+    }
+
+    private void runRound(int fastConnections, int round) throws InterruptedException {
+        roundDelivered = new CountDownLatch(fastConnections);
+        Set<ResponseBodyEmitter.DataWithMediaType> frames = SseEmitter.event().name("round").data(round).build();
+
+        roundStartedAt = System.nanoTime();
+        for (long userId = 0; userId < USERS; userId++) {
+            sseFanoutEngine.publish(userId, frames, roundStartedAt);
+        }
+        if (measuring) {
+            publishTime.record(System.nanoTime() - roundStartedAt, TimeUnit.NANOSECONDS);
+        }
+
+        assertTrue(roundDelivered.await(30, TimeUnit.SECONDS), "round " + round + " was not delivered");
+    }
+
+    private class RecordingEmitter extends SseEmitter {
+
+        private final boolean slow;
+
+        private boolean greeted;
+
+        private volatile boolean completed;
+
+        RecordingEmitter(boolean slow) {
+            super(Long.MAX_VALUE);
+            this.slow = slow;
+        }
+
+        @Override
+        public void send(Set<DataWithMediaType> items) {
+            if (slow) {
+                try {
+                    Thread.sleep(SLOW_WRITE_MILLIS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return;
+            }
+            if (!greeted) {
+                greeted = true;
+                return;
+            }
+            if (measuring) {
+                deliveryLatency.record(System.nanoTime() - roundStartedAt, TimeUnit.NANOSECONDS);
+            }
+            roundDelivered.countDown();
+        }
+
+        @Override
+        public void complete() {
+            completed = true;
+        }
+    }
+
+    private static final class HistogramPrinter {
+
+        static void print(String name, Timer timer) {
+            StringBuilder line = new StringBuilder(name).append(':');
+            for (ValueAtPercentile percentile : timer.takeSnapshot().percentileValues()) {
+                line.append(String.format(" p%s=%.3f ms", percentile.percentile() * 100,
+                        percentile.value(TimeUnit.MILLISECONDS)));
+            }
+            line.append(String.format(" max=%.3f ms", timer.max(TimeUnit.MILLISECONDS)));
+            System.out.println(line);
+        }
+    }
+}
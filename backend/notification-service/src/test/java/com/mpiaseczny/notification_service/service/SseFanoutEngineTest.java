@@ -0,0 +1,118 @@
+package com.mpiaseczny.notification_service.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anySet;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+class SseFanoutEngineTest {
+
+    private static final Long USER_ID = 7L;
+
+    private final ThreadPoolExecutor sseWriterExecutor =
+            new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>());
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    // Holds the only writer thread, so queued frames stay queued until the test releases it
+    private final CountDownLatch writerReleased = new CountDownLatch(1);
+
+    private SseFanoutEngine sseFanoutEngine;
+
+    @BeforeEach
+    void setUp() {
+        sseFanoutEngine = new SseFanoutEngine();
+        ReflectionTestUtils.setField(sseFanoutEngine, "sseWriterExecutor", sseWriterExecutor);
+        ReflectionTestUtils.setField(sseFanoutEngine, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(sseFanoutEngine, "deliveryTracker", mock(DeliveryTracker.class));
+        ReflectionTestUtils.setField(sseFanoutEngine, "queueCapacity", 2);
+        sseFanoutEngine.registerMeters();
+        sseWriterExecutor.execute(() -> {
+            try {
+                writerReleased.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        sseWriterExecutor.shutdownNow();
+    }
+
+    @Test
+    void publish_WithDropOldest_ShouldKeepTheNewestFramesOfAFullQueue() throws Exception {
+        // Given
+        ReflectionTestUtils.setField(sseFanoutEngine, "overflowPolicy", SseOverflowPolicy.DROP_OLDEST);
+        SseEmitter emitter = mock(SseEmitter.class);
+        Set<ResponseBodyEmitter.DataWithMediaType> initial = frames("initial");
+        Set<ResponseBodyEmitter.DataWithMediaType> first = frames("first");
+        Set<ResponseBodyEmitter.DataWithMediaType> second = frames("second");
+        Set<ResponseBodyEmitter.DataWithMediaType> third = frames("third");
+        sseFanoutEngine.register(USER_ID, emitter, initial);
+
+        // When
+        sseFanoutEngine.publish(USER_ID, first, 0L);
+        sseFanoutEngine.publish(USER_ID, second, 0L);
+        sseFanoutEngine.publish(USER_ID, third, 0L);
+
+        // Then
+        awaitWriter();
+        InOrder sent = inOrder(emitter);
+        sent.verify(emitter).send(second);
+        sent.verify(emitter).send(third);
+        verify(emitter, never()).send(initial);
+        verify(emitter, never()).send(first);
+        verify(emitter, never()).complete();
+        assertEquals(2.0, meterRegistry.counter("notifications.sse.dropped").count());
+        assertEquals(1, sseFanoutEngine.getConnectionCount());
+    }
+
+    @Test
+    void publish_WithDisconnect_ShouldCloseAConnectionWhoseQueueIsFull() throws Exception {
+        // Given
+        ReflectionTestUtils.setField(sseFanoutEngine, "overflowPolicy", SseOverflowPolicy.DISCONNECT);
+        SseEmitter emitter = mock(SseEmitter.class);
+        sseFanoutEngine.register(USER_ID, emitter, frames("initial"));
+        sseFanoutEngine.publish(USER_ID, frames("first"), 0L);
+
+        // When
+        sseFanoutEngine.publish(USER_ID, frames("second"), 0L);
+        sseFanoutEngine.publish(USER_ID, frames("third"), 0L);
+
+        // Then
+        assertEquals(0, sseFanoutEngine.getConnectionCount());
+        assertEquals(1.0, meterRegistry.counter("notifications.sse.slow.disconnected").count());
+        awaitWriter();
+        verify(emitter).complete();
+        verify(emitter, never()).send(anySet());
+    }
+
+    // Lets the writer run everything queued so far; a timeout verify would hold the emitter's monitor and block it
+    private void awaitWriter() throws Exception {
+        writerReleased.countDown();
+        sseWriterExecutor.submit(() -> { }).get(5, TimeUnit.SECONDS);
+    }
+
+    private static Set<ResponseBodyEmitter.DataWithMediaType> frames(String data) {
+        return SseEmitter.event().name("order-created").data(data).build();
+    }
+}
@@ -0,0 +1,67 @@
+package com.mpiaseczny.notification_service.service;
+
+import com.mpiaseczny.notification_service.dto.EventId;
+import com.mpiaseczny.notification_service.dto.NotificationEvent;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class UserEventBufferTest {
+
+    @Test
+    void covers_ShouldNotMoveBackWhenAnOlderEventIsEvictedAfterANewerOne() {
+        // Given
+        UserEventBuffer buffer = new UserEventBuffer(2, 0);
+        buffer.append(event(100, 0, 1));
+        // From another partition, or a status change held back by its coalescing window
+        buffer.append(event(50, 1, 1));
+
+        // When
+        buffer.append(event(200, 0, 2));
+        buffer.append(event(300, 0, 3));
+
+        // Then
+        EventId seenBeforeTheEvictedEvent = new EventId(60, 0, 0);
+        assertFalse(buffer.covers(seenBeforeTheEvictedEvent));
+        assertTrue(buffer.covers(new EventId(100, 0, 1)));
+        assertTrue(buffer.covers(new EventId(200, 0, 2)));
+    }
+
+    @Test
+    void after_ShouldReturnEventsAppendedAfterAKnownIdInAppendOrder() {
+        // Given
+        UserEventBuffer buffer = new UserEventBuffer(4, 0);
+        buffer.append(event(100, 0, 1));
+        buffer.append(event(300, 0, 2));
+        buffer.append(event(200, 1, 1));
+
+        // When
+        List<NotificationEvent> missed = buffer.after(new EventId(100, 0, 1));
+
+        // Then
+        assertEquals(List.of(new EventId(300, 0, 2), new EventId(200, 1, 1)),
+                missed.stream().map(NotificationEvent::getId).toList());
+    }
+
+    @Test
+    void after_ShouldReturnNewerEventsWhenTheIdIsNotInTheBuffer() {
+        // Given
+        UserEventBuffer buffer = new UserEventBuffer(4, 0);
+        buffer.append(event(100, 0, 1));
+        buffer.append(event(300, 0, 2));
+
+        // When
+        List<NotificationEvent> missed = buffer.after(new EventId(150, 1, 7));
+
+        // Then
+        assertEquals(List.of(new EventId(300, 0, 2)), missed.stream().map(NotificationEvent::getId).toList());
+    }
+
+    private static NotificationEvent event(long timestamp, int partition, long offset) {
+        return new NotificationEvent(new EventId(timestamp, partition, offset), "order-created", "payload");
+    }
+}
@@ -1,5 +1,19 @@
 package com.mpiaseczny.order_service.common.enums;
 
 public enum OrderStatus {
-    PENDING, CONFIRMED, PROCESSING, SHIPPED, DELIVERED, CANCELLED
+    PENDING, CONFIRMED, PROCESSING, SHIPPED, DELIVERED, CANCELLED;
+
+    /**
+     * Orders move forward one step at a time and can be cancelled until they are shipped. DELIVERED and
+     * CANCELLED are final.
+     */
+    public boolean canTransitionTo(OrderStatus next) {
+        return switch (this) {
+            case PENDING -> next == CONFIRMED || next == CANCELLED;
+            case CONFIRMED -> next == PROCESSING || next == CANCELLED;
+            case PROCESSING -> next == SHIPPED || next == CANCELLED;
+            case SHIPPED -> next == DELIVERED;
+            case DELIVERED, CANCELLED -> false;
+        };
+    }
 }
@@ -0,0 +1,93 @@
+package com.mpiaseczny.order_service.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mpiaseczny.order_service.dto.OrderCreatedEvent;
+import com.mpiaseczny.order_service.dto.OrderStatusChangedEvent;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+import org.springframework.kafka.annotation.EnableKafka;
+import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.core.MicrometerConsumerListener;
+import org.springframework.kafka.support.mapping.DefaultJackson2JavaTypeMapper;
+import org.springframework.kafka.support.mapping.Jackson2JavaTypeMapper;
+import org.springframework.kafka.support.serializer.ErrorHandlingDeserializer;
+import org.springframework.kafka.support.serializer.JsonDeserializer;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Consumer for {@link com.mpiaseczny.order_service.listener.OrderCacheInvalidationListener}. Every instance reads
+ * the order topics in its own group, starting at the latest offset, since only changes made while it is running
+ * can leave its cache stale.
+ */
+@Configuration
+@EnableKafka
+@ConditionalOnProperty(name = "orders.cache.kafka-invalidation.enabled", havingValue = "true")
+public class CacheInvalidationKafkaConfig {
+
+    @Value("${spring.kafka.bootstrap-servers}")
+    private String bootstrapServers;
+
+    @Value("${orders.cache.kafka-invalidation.group-id:order-service-cache}")
+    private String groupId;
+
+    @Value("${orders.cache.kafka-invalidation.instance-id:${random.uuid}}")
+    private String instanceId;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private Environment environment;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, Object> cacheInvalidationListenerFactory() {
+        Map<String, Object> configProps = new HashMap<>();
+        configProps.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        configProps.put(ConsumerConfig.GROUP_ID_CONFIG, groupId + "-" + instanceId);
+        configProps.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "latest");
+
+        DefaultKafkaConsumerFactory<String, Object> consumerFactory = new DefaultKafkaConsumerFactory<>(
+                configProps,
+                new StringDeserializer(),
+                new ErrorHandlingDeserializer<>(eventDeserializer())
+        );
+        // Client metrics, including the records-lag gauges, for every consumer this factory creates
+        consumerFactory.addListener(new MicrometerConsumerListener<>(meterRegistry));
+
+        ConcurrentKafkaListenerContainerFactory<String, Object> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(consumerFactory);
+        factory.setBatchListener(true);
+        if (Threading.VIRTUAL.isActive(environment)) {
+            factory.getContainerProperties().setListenerTaskExecutor(new VirtualThreadTaskExecutor("cache-invalidation-"));
+        }
+        return factory;
+    }
+
+    private JsonDeserializer<Object> eventDeserializer() {
+        DefaultJackson2JavaTypeMapper typeMapper = new DefaultJackson2JavaTypeMapper();
+        typeMapper.setTypePrecedence(Jackson2JavaTypeMapper.TypePrecedence.TYPE_ID);
+        typeMapper.setIdClassMapping(Map.of(
+                "orderCreated", OrderCreatedEvent.class,
+                "orderStatusChanged", OrderStatusChangedEvent.class
+        ));
+
+        JsonDeserializer<Object> deserializer = new JsonDeserializer<>(objectMapper);
+        deserializer.setTypeMapper(typeMapper);
+        return deserializer;
+    }
+}
@@ -1,12 +1,17 @@
 package com.mpiaseczny.order_service.config;
 
+import com.mpiaseczny.order_service.dto.OrderCreatedEvent;
+import com.mpiaseczny.order_service.dto.OrderStatusChangedEvent;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.apache.kafka.clients.producer.ProducerConfig;
 import org.apache.kafka.common.serialization.StringSerializer;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.kafka.core.DefaultKafkaProducerFactory;
 import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.core.MicrometerProducerListener;
 import org.springframework.kafka.core.ProducerFactory;
 import org.springframework.kafka.support.serializer.JsonSerializer;
 
@@ -15,9 +20,34 @@ import java.util.Map;
 
 @Configuration
 public class KafkaConfig {
+
+    /**
+     * Logical type ids written to the {@code __TypeId__} header, so consumers map them to their own classes.
+     */
+    private static final String EVENT_TYPE_MAPPINGS =
+            "orderCreated:" + OrderCreatedEvent.class.getName()
+                    + ",orderStatusChanged:" + OrderStatusChangedEvent.class.getName();
     
     @Value("${spring.kafka.bootstrap-servers}")
     private String bootstrapServers;
+
+    @Value("${orders.kafka.producer.acks:all}")
+    private String acks;
+
+    @Value("${orders.kafka.producer.enable-idempotence:true}")
+    private boolean enableIdempotence;
+
+    @Value("${orders.kafka.producer.linger-ms:5}")
+    private int lingerMs;
+
+    @Value("${orders.kafka.producer.batch-size:16384}")
+    private int batchSize;
+
+    @Value("${orders.kafka.producer.compression-type:none}")
+    private String compressionType;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
     
     @Bean
     public ProducerFactory<String, Object> producerFactory() {
@@ -25,7 +55,15 @@ public class KafkaConfig {
         configProps.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
         configProps.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
         configProps.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, JsonSerializer.class);
-        return new DefaultKafkaProducerFactory<>(configProps);
+        configProps.put(JsonSerializer.TYPE_MAPPINGS, EVENT_TYPE_MAPPINGS);
+        configProps.put(ProducerConfig.ACKS_CONFIG, acks);
+        configProps.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, enableIdempotence);
+        configProps.put(ProducerConfig.LINGER_MS_CONFIG, lingerMs);
+        configProps.put(ProducerConfig.BATCH_SIZE_CONFIG, batchSize);
+        configProps.put(ProducerConfig.COMPRESSION_TYPE_CONFIG, compressionType);
+        DefaultKafkaProducerFactory<String, Object> producerFactory = new DefaultKafkaProducerFactory<>(configProps);
+        producerFactory.addListener(new MicrometerProducerListener<>(meterRegistry));
+        return producerFactory;
     }
     
     @Bean
@@ -1,16 +1,30 @@
 package com.mpiaseczny.order_service.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.mpiaseczny.order_service.common.enums.OrderStatus;
+import com.mpiaseczny.order_service.dto.BulkItemResult;
 import com.mpiaseczny.order_service.dto.CreateOrderRequest;
+import com.mpiaseczny.order_service.dto.OrderList;
+import com.mpiaseczny.order_service.dto.OrderPage;
+import com.mpiaseczny.order_service.dto.OrderStatusUpdate;
+import com.mpiaseczny.order_service.dto.OrderSummary;
 import com.mpiaseczny.order_service.dto.UpdateOrderRequest;
 import com.mpiaseczny.order_service.entity.Order;
 import com.mpiaseczny.order_service.service.OrderService;
+import com.mpiaseczny.order_service.service.OrderStatusConflictException;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.List;
 import java.util.Map;
 
@@ -18,16 +32,66 @@ import java.util.Map;
 @RequestMapping("/api/orders")
 public class OrderController {
 
+    private static final MediaType APPLICATION_NDJSON = MediaType.parseMediaType("application/x-ndjson");
+
     @Autowired
     private OrderService orderService;
 
+    @Autowired
+    private ObjectMapper objectMapper;
+
     @GetMapping
-    public ResponseEntity<List<Order>> getOrders(
+    public ResponseEntity<List<OrderSummary>> getOrders(
+            @RequestHeader("X-User-Id") Long userId,
+            @RequestParam(required = false) boolean activeOnly,
+            WebRequest webRequest
+    ) {
+        // A matching If-None-Match gets its 304 from the version of the user's lists, without loading the list
+        long version = orderService.getOrderListVersion(userId);
+        if (webRequest.checkNotModified(OrderList.etag(userId, activeOnly, version))) {
+            return null;
+        }
+
+        OrderList orders = orderService.getOrderList(userId, activeOnly, version);
+
+        return ResponseEntity.ok()
+                .eTag(orders.getEtag())
+                .cacheControl(CacheControl.noCache())
+                .body(orders.getOrders());
+    }
+
+    @GetMapping("/page")
+    public ResponseEntity<?> getOrdersPage(
+            @RequestHeader("X-User-Id") Long userId,
+            @RequestParam(required = false) boolean activeOnly,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size
+    ) {
+        try {
+            OrderPage page = orderService.getOrdersPage(userId, activeOnly, cursor, size);
+            return ResponseEntity.ok(page);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportOrders(
             @RequestHeader("X-User-Id") Long userId,
             @RequestParam(required = false) boolean activeOnly
     ) {
-        List<Order> orders = orderService.getOrders(userId, activeOnly);
-        return ResponseEntity.ok(orders);
+        StreamingResponseBody body = outputStream -> orderService.exportOrders(userId, activeOnly, order -> {
+            try {
+                outputStream.write(objectMapper.writeValueAsBytes(order));
+                outputStream.write('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+
+        return ResponseEntity.ok()
+                .contentType(APPLICATION_NDJSON)
+                .body(body);
     }
 
     @PostMapping
@@ -43,6 +107,32 @@ public class OrderController {
         }
     }
 
+    @PostMapping("/batch")
+    public ResponseEntity<?> createOrders(
+            @RequestHeader("X-User-Id") Long userId,
+            @RequestBody List<CreateOrderRequest> requests
+    ) {
+        try {
+            List<BulkItemResult> results = orderService.createOrders(userId, requests);
+            return ResponseEntity.ok(results);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    @PutMapping("/status/batch")
+    public ResponseEntity<?> updateOrderStatuses(@RequestBody List<OrderStatusUpdate> updates) {
+        try {
+            List<BulkItemResult> results = orderService.updateOrderStatuses(updates);
+            return ResponseEntity.ok(results);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (ObjectOptimisticLockingFailureException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body(Map.of("error", "Orders were changed concurrently, nothing was updated; reload them and retry"));
+        }
+    }
+
     @PutMapping("/{id}/status")
     public ResponseEntity<?> updateOrderStatus(
             @PathVariable Long id,
@@ -52,6 +142,8 @@ public class OrderController {
             OrderStatus status = updateOrderRequest.getStatus();
             Order updatedOrder = orderService.updateOrderStatus(id, status);
             return ResponseEntity.ok(updatedOrder);
+        } catch (OrderStatusConflictException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", e.getMessage()));
         } catch (IllegalArgumentException e) {
             return ResponseEntity.badRequest().body(Map.of("error", "Invalid status: " + updateOrderRequest.getStatus()));
         } catch (RuntimeException e) {
@@ -0,0 +1,26 @@
+package com.mpiaseczny.order_service.dto;
+
+import com.mpiaseczny.order_service.entity.Order;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Outcome of one item of a bulk request, at the same position as the item. {@code status} is the HTTP status the
+ * single-item endpoint would have answered with; either {@code order} or {@code error} is set.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkItemResult {
+
+    private int index;
+
+    private int status;
+
+    private Order order;
+
+    private String error;
+}
@@ -3,6 +3,7 @@ package com.mpiaseczny.order_service.dto;
 import com.mpiaseczny.order_service.common.enums.OrderStatus;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
+import lombok.NoArgsConstructor;
 import lombok.Setter;
 
 import java.time.Instant;
@@ -10,6 +11,7 @@ import java.time.Instant;
 @Getter
 @Setter
 @AllArgsConstructor
+@NoArgsConstructor
 public class OrderCreatedEvent {
     
     private Long orderId;
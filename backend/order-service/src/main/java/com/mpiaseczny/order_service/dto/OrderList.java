@@ -0,0 +1,29 @@
+package com.mpiaseczny.order_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * A user's order list together with the version of the user's lists it was loaded at. Its strong ETag comes from
+ * that version alone, so every instance hands out the same validator and can check one without loading the list.
+ */
+@Getter
+@AllArgsConstructor
+public class OrderList {
+
+    private List<OrderSummary> orders;
+
+    private long version;
+
+    private String etag;
+
+    public static OrderList of(Long userId, boolean activeOnly, long version, List<OrderSummary> orders) {
+        return new OrderList(orders, version, etag(userId, activeOnly, version));
+    }
+
+    public static String etag(Long userId, boolean activeOnly, long version) {
+        return "\"" + userId + "-" + version + (activeOnly ? "-active" : "") + "\"";
+    }
+}
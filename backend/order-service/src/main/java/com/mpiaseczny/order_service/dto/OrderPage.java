@@ -0,0 +1,16 @@
+package com.mpiaseczny.order_service.dto;
+
+import com.mpiaseczny.order_service.entity.Order;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+@Getter
+@AllArgsConstructor
+public class OrderPage {
+
+    private List<Order> items;
+
+    private String nextCursor;
+}
@@ -3,11 +3,15 @@ package com.mpiaseczny.order_service.dto;
 import com.mpiaseczny.order_service.common.enums.OrderStatus;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
+import lombok.NoArgsConstructor;
 import lombok.Setter;
 
+import java.time.Instant;
+
 @Getter
 @Setter
 @AllArgsConstructor
+@NoArgsConstructor
 public class OrderStatusChangedEvent {
 
     private Long orderId;
@@ -15,4 +19,8 @@ public class OrderStatusChangedEvent {
     private OrderStatus oldStatus;
 
     private OrderStatus newStatus;
+
+    private Long createdById;
+
+    private Instant changedAt;
 }
@@ -0,0 +1,21 @@
+package com.mpiaseczny.order_service.dto;
+
+import com.mpiaseczny.order_service.common.enums.OrderStatus;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderStatusUpdate {
+
+    @NotNull(message = "Order id is required")
+    private Long orderId;
+
+    @NotNull(message = "Status is required")
+    private OrderStatus status;
+}
@@ -0,0 +1,24 @@
+package com.mpiaseczny.order_service.dto;
+
+import com.mpiaseczny.order_service.common.enums.OrderStatus;
+
+import java.time.Instant;
+
+/**
+ * Read-only view of an order. Queries returning this projection select only these columns
+ * and never materialize managed {@link com.mpiaseczny.order_service.entity.Order} entities.
+ */
+public interface OrderSummary {
+
+    Long getId();
+
+    Instant getCreatedAt();
+
+    OrderStatus getStatus();
+
+    Long getCreatedById();
+
+    Long getCustomerId();
+
+    String getDescription();
+}
@@ -8,16 +8,22 @@ import lombok.NoArgsConstructor;
 import lombok.Setter;
 
 import java.time.Instant;
+import java.time.temporal.ChronoUnit;
 
 @Getter
 @Setter
 @NoArgsConstructor
 @Entity
-@Table(name = "Orders")
+@Table(name = "Orders", indexes = {
+        @Index(name = "idx_orders_created_by_status_created_at", columnList = "createdById, status, createdAt"),
+        @Index(name = "idx_orders_created_by_created_at", columnList = "createdById, createdAt")
+})
 public class Order {
     
+    // Sequence ids are assigned without an insert, which lets Hibernate batch the inserts; IDENTITY would not
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "orders_seq")
+    @SequenceGenerator(name = "orders_seq", sequenceName = "orders_seq", allocationSize = 50)
     private Long id;
 
     @NotNull
@@ -34,10 +40,14 @@ public class Order {
     private Long customerId;
 
     private String description;
+
+    @Version
+    private Long version;
     
     @PrePersist
     protected void onCreate() {
-        createdAt = Instant.now();
+        // Match the column precision so keyset cursors built from an unflushed entity compare correctly
+        createdAt = Instant.now().truncatedTo(ChronoUnit.MICROS);
         if (status == null) {
             status = OrderStatus.PENDING;
         }
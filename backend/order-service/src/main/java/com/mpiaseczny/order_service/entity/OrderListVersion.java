@@ -0,0 +1,26 @@
+package com.mpiaseczny.order_service.entity;
+
+import jakarta.persistence.*;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Counts the changes to one user's orders, so a conditional list request can be answered from this row alone.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "order_list_versions")
+public class OrderListVersion {
+
+    @Id
+    private Long userId;
+
+    @NotNull
+    private Long version;
+}
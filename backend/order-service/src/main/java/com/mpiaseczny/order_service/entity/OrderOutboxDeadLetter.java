@@ -0,0 +1,71 @@
+package com.mpiaseczny.order_service.entity;
+
+import jakarta.persistence.*;
+import jakarta.validation.constraints.NotNull;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+import java.time.Instant;
+
+/**
+ * An outbox event the relay could not publish because its payload could not be read, kept for inspection and
+ * manual replay instead of being deleted.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@Entity
+@Table(name = "order_outbox_dead_letter")
+public class OrderOutboxDeadLetter {
+
+    private static final int MAX_ERROR_LENGTH = 1000;
+
+    // The id the event had in order_outbox, so moving it twice after a crash writes the same row
+    @Id
+    private Long id;
+
+    @NotNull
+    @Column(updatable = false)
+    private String eventId;
+
+    @NotNull
+    private Long orderId;
+
+    @NotNull
+    private String topic;
+
+    @NotNull
+    private String eventType;
+
+    @NotNull
+    @JdbcTypeCode(SqlTypes.LONG32VARCHAR)
+    private String payload;
+
+    @NotNull
+    private Instant createdAt;
+
+    @Column(length = 64)
+    private String correlationId;
+
+    @Column(length = MAX_ERROR_LENGTH)
+    private String error;
+
+    @NotNull
+    private Instant failedAt;
+
+    public OrderOutboxDeadLetter(OrderOutboxEvent outboxEvent, String error) {
+        this.id = outboxEvent.getId();
+        this.eventId = outboxEvent.getEventId();
+        this.orderId = outboxEvent.getOrderId();
+        this.topic = outboxEvent.getTopic();
+        this.eventType = outboxEvent.getEventType();
+        this.payload = outboxEvent.getPayload();
+        this.createdAt = outboxEvent.getCreatedAt();
+        this.correlationId = outboxEvent.getCorrelationId();
+        this.error = error != null && error.length() > MAX_ERROR_LENGTH ? error.substring(0, MAX_ERROR_LENGTH) : error;
+        this.failedAt = Instant.now();
+    }
+}
@@ -0,0 +1,77 @@
+package com.mpiaseczny.order_service.entity;
+
+import jakarta.persistence.*;
+import jakarta.validation.constraints.NotNull;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+import java.time.Instant;
+import java.util.UUID;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@Entity
+@Table(name = "order_outbox")
+public class OrderOutboxEvent {
+
+    /**
+     * The relay publishes in id order, so ids must grow in commit order for the changes of one order, whichever
+     * instance wrote them. A change is only written after reading the committed previous one, so one nextval per
+     * row keeps that true; a pooled block per instance would not.
+     */
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "order_outbox_seq")
+    @SequenceGenerator(name = "order_outbox_seq", sequenceName = "order_outbox_seq", allocationSize = 1)
+    private Long id;
+
+    /**
+     * Stable identifier sent as a Kafka header, so consumers can drop duplicates after a relay retry.
+     */
+    @NotNull
+    @Column(unique = true, updatable = false)
+    private String eventId;
+
+    @NotNull
+    private Long orderId;
+
+    @NotNull
+    private String topic;
+
+    @NotNull
+    private String eventType;
+
+    // Plain text on every database; @Lob would be stored as a large object on PostgreSQL
+    @NotNull
+    @JdbcTypeCode(SqlTypes.LONG32VARCHAR)
+    private String payload;
+
+    @NotNull
+    private Instant createdAt;
+
+    /**
+     * Sent as the {@code correlationId} header: the id of the request that produced the event, or the event id.
+     */
+    @Column(length = 64, updatable = false)
+    private String correlationId;
+
+    // W3C traceparent of the producing request when it was sampled, so the relay can continue its trace
+    @Column(length = 64, updatable = false)
+    private String traceParent;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = Instant.now();
+    }
+
+    public OrderOutboxEvent(Long orderId, String topic, String eventType, String payload) {
+        this.eventId = UUID.randomUUID().toString();
+        this.orderId = orderId;
+        this.topic = topic;
+        this.eventType = eventType;
+        this.payload = payload;
+    }
+}
@@ -0,0 +1,34 @@
+package com.mpiaseczny.order_service.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Committed on the producer thread that completed the send, so the event thread is not the relay's.
+ */
+@Name("com.mpiaseczny.KafkaPublish")
+@Label("Kafka Publish")
+@Description("An outbox event sent to Kafka, from the send until the broker acknowledged or rejected it")
+@Category({"Order Management", "Order Service"})
+@StackTrace(false)
+public class KafkaPublish extends Event {
+
+    @Label("Topic")
+    public String topic;
+
+    @Label("Order Id")
+    public long orderId;
+
+    @Label("Event Id")
+    public String eventId;
+
+    @Label("Correlation Id")
+    public String correlationId;
+
+    @Label("Succeeded")
+    public boolean succeeded;
+}
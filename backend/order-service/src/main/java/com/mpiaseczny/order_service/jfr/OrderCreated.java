@@ -0,0 +1,20 @@
+package com.mpiaseczny.order_service.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("com.mpiaseczny.OrderCreated")
+@Label("Order Created")
+@Description("An order created through OrderService.createOrder")
+public class OrderCreated extends OrderOperation {
+
+    @Label("Order Id")
+    public long orderId;
+
+    @Label("User Id")
+    public long userId;
+
+    @Label("Customer Id")
+    public long customerId;
+}
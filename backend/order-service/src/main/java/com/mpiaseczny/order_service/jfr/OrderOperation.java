@@ -0,0 +1,18 @@
+package com.mpiaseczny.order_service.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.StackTrace;
+
+/**
+ * Common part of the JFR events for order operations. Like the {@code orders.operation} timer, they last until the
+ * operation's transaction completed and record whether it committed.
+ */
+@Category({"Order Management", "Order Service"})
+@StackTrace(false)
+public abstract class OrderOperation extends Event {
+
+    @Label("Succeeded")
+    public boolean succeeded;
+}
@@ -0,0 +1,20 @@
+package com.mpiaseczny.order_service.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("com.mpiaseczny.OrderStatusTransition")
+@Label("Order Status Transition")
+@Description("A status change through OrderService.updateOrderStatus, including rejected and conflicting ones")
+public class OrderStatusTransition extends OrderOperation {
+
+    @Label("Order Id")
+    public long orderId;
+
+    @Label("From Status")
+    public String fromStatus;
+
+    @Label("To Status")
+    public String toStatus;
+}
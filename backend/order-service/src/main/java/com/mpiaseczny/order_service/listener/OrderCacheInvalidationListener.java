@@ -0,0 +1,48 @@
+package com.mpiaseczny.order_service.listener;
+
+import com.mpiaseczny.order_service.dto.OrderCreatedEvent;
+import com.mpiaseczny.order_service.dto.OrderStatusChangedEvent;
+import com.mpiaseczny.order_service.service.OrderListCache;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.stereotype.Component;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Invalidates cached order lists of users whose orders were changed through another instance. Changes made through
+ * this instance arrive here too; invalidating them again is harmless.
+ */
+@Component
+@ConditionalOnProperty(name = "orders.cache.kafka-invalidation.enabled", havingValue = "true")
+public class OrderCacheInvalidationListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(OrderCacheInvalidationListener.class);
+
+    @Autowired
+    private OrderListCache orderListCache;
+
+    @KafkaListener(topics = {"order-created", "order-status-changed"}, containerFactory = "cacheInvalidationListenerFactory")
+    public void handleOrderEvents(List<ConsumerRecord<String, Object>> records) {
+        Set<Long> userIds = new HashSet<>();
+        for (ConsumerRecord<String, Object> record : records) {
+            if (record.value() instanceof OrderCreatedEvent event) {
+                userIds.add(event.getCreatedById());
+            } else if (record.value() instanceof OrderStatusChangedEvent event && event.getCreatedById() != null) {
+                userIds.add(event.getCreatedById());
+            } else {
+                logger.warn("Skipping record {}-{}@{} that names no order owner",
+                        record.topic(), record.partition(), record.offset());
+            }
+        }
+
+        userIds.forEach(orderListCache::invalidate);
+        logger.debug("Invalidated cached order lists of {} users", userIds.size());
+    }
+}
@@ -0,0 +1,30 @@
+package com.mpiaseczny.order_service.repository;
+
+import com.mpiaseczny.order_service.entity.OrderListVersion;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface OrderListVersionRepository extends JpaRepository<OrderListVersion, Long> {
+
+    @Query("select v.version from OrderListVersion v where v.userId = :userId")
+    Optional<Long> findVersion(@Param("userId") Long userId);
+
+    /**
+     * Returns the number of updated rows, so 0 means the user has no version row yet. Leaves the persistence context
+     * alone, as the bulk paths still hold their managed orders.
+     */
+    @Modifying
+    @Query("update OrderListVersion v set v.version = v.version + 1 where v.userId = :userId")
+    int increment(@Param("userId") Long userId);
+
+    // A plain insert, where saving an entity with an assigned id would merge into a row created concurrently
+    @Modifying
+    @Query(value = "insert into order_list_versions (user_id, version) values (:userId, 0)", nativeQuery = true)
+    void create(@Param("userId") Long userId);
+}
@@ -0,0 +1,9 @@
+package com.mpiaseczny.order_service.repository;
+
+import com.mpiaseczny.order_service.entity.OrderOutboxDeadLetter;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface OrderOutboxDeadLetterRepository extends JpaRepository<OrderOutboxDeadLetter, Long> {
+}
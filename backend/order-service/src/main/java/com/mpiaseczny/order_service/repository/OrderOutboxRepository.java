@@ -0,0 +1,14 @@
+package com.mpiaseczny.order_service.repository;
+
+import com.mpiaseczny.order_service.entity.OrderOutboxEvent;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface OrderOutboxRepository extends JpaRepository<OrderOutboxEvent, Long> {
+
+    List<OrderOutboxEvent> findAllByOrderByIdAsc(Limit limit);
+}
@@ -1,16 +1,77 @@
 package com.mpiaseczny.order_service.repository;
 
 import com.mpiaseczny.order_service.common.enums.OrderStatus;
+import com.mpiaseczny.order_service.dto.OrderSummary;
 import com.mpiaseczny.order_service.entity.Order;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.Instant;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
 public interface OrderRepository extends JpaRepository<Order, Long> {
     
-    List<Order> findByCreatedByIdOrderByCreatedAtDesc(Long createdById);
+    List<OrderSummary> findByCreatedByIdOrderByCreatedAtDesc(Long createdById);
 
-    List<Order> findByCreatedByIdAndStatusInOrderByCreatedAtDesc(Long createdById, List<OrderStatus> statuses);
+    List<OrderSummary> findByCreatedByIdAndStatusInOrderByCreatedAtDesc(Long createdById, List<OrderStatus> statuses);
+
+    List<Order> findByCreatedByIdOrderByCreatedAtDescIdDesc(Long createdById, Limit limit);
+
+    List<Order> findByCreatedByIdAndStatusInOrderByCreatedAtDescIdDesc(Long createdById, List<OrderStatus> statuses, Limit limit);
+
+    @Query("""
+            select o from Order o
+            where o.createdById = :createdById
+              and (o.createdAt < :createdAt or (o.createdAt = :createdAt and o.id < :id))
+            order by o.createdAt desc, o.id desc
+            """)
+    List<Order> findPageAfter(@Param("createdById") Long createdById,
+                              @Param("createdAt") Instant createdAt,
+                              @Param("id") Long id,
+                              Limit limit);
+
+    @Query("""
+            select o from Order o
+            where o.createdById = :createdById
+              and o.status in :statuses
+              and (o.createdAt < :createdAt or (o.createdAt = :createdAt and o.id < :id))
+            order by o.createdAt desc, o.id desc
+            """)
+    List<Order> findPageAfterWithStatusIn(@Param("createdById") Long createdById,
+                                          @Param("statuses") List<OrderStatus> statuses,
+                                          @Param("createdAt") Instant createdAt,
+                                          @Param("id") Long id,
+                                          Limit limit);
+
+    /**
+     * Moves the order to {@code newStatus} only if it is still in {@code expectedStatus} at {@code expectedVersion}.
+     * Returns the number of updated rows, so 0 means another transaction changed the order first.
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("""
+            update Order o set o.status = :newStatus, o.version = o.version + 1
+            where o.id = :id and o.status = :expectedStatus and o.version = :expectedVersion
+            """)
+    int transitionStatus(@Param("id") Long id,
+                         @Param("expectedStatus") OrderStatus expectedStatus,
+                         @Param("expectedVersion") Long expectedVersion,
+                         @Param("newStatus") OrderStatus newStatus);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("select o from Order o where o.createdById = :createdById order by o.createdAt desc, o.id desc")
+    Stream<Order> streamByCreatedById(@Param("createdById") Long createdById);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("select o from Order o where o.createdById = :createdById and o.status in :statuses order by o.createdAt desc, o.id desc")
+    Stream<Order> streamByCreatedByIdAndStatusIn(@Param("createdById") Long createdById,
+                                               @Param("statuses") List<OrderStatus> statuses);
 }
@@ -0,0 +1,113 @@
+package com.mpiaseczny.order_service.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.mpiaseczny.order_service.dto.OrderList;
+import com.mpiaseczny.order_service.dto.OrderSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Bounded local cache of each user's order list and active order list, each kept with the version of the user's
+ * lists ({@link OrderListVersions}) it was loaded at. A list is served only while that version is current, so a list
+ * another instance changed is reloaded on the next read even before cross-instance invalidation arrives; writes
+ * still drop the owner's lists once their transaction commits, to free them early. {@code orders.cache.ttl} only
+ * bounds how long an unused list is kept.
+ */
+@Component
+public class OrderListCache {
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${orders.cache.enabled:true}")
+    private boolean enabled = true;
+
+    @Value("${orders.cache.max-size:10000}")
+    private long maxSize = 10000;
+
+    @Value("${orders.cache.ttl:5m}")
+    private Duration ttl = Duration.ofMinutes(5);
+
+    private Cache<ListKey, OrderList> lists;
+
+    @PostConstruct
+    void init() {
+        lists = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, lists, "orders.lists");
+    }
+
+    public List<OrderSummary> get(Long userId, boolean activeOnly, long version,
+                                  Supplier<List<OrderSummary>> loader) {
+        return getWithETag(userId, activeOnly, version, loader).getOrders();
+    }
+
+    /**
+     * The list at {@code version} or later, which the caller read before calling. The loader runs only when no
+     * current list is cached, or on every call while caching is disabled.
+     */
+    public OrderList getWithETag(Long userId, boolean activeOnly, long version, Supplier<List<OrderSummary>> loader) {
+        if (!enabled) {
+            return OrderList.of(userId, activeOnly, version, loader.get());
+        }
+        ListKey key = new ListKey(userId, activeOnly);
+        OrderList cached = lists.get(key, k -> load(userId, activeOnly, version, loader));
+        if (cached.getVersion() >= version) {
+            return cached;
+        }
+        return lists.asMap().compute(key, (k, current) -> current != null && current.getVersion() >= version
+                ? current
+                : load(userId, activeOnly, version, loader));
+    }
+
+    private static OrderList load(Long userId, boolean activeOnly, long version,
+                                  Supplier<List<OrderSummary>> loader) {
+        return OrderList.of(userId, activeOnly, version, List.copyOf(loader.get()));
+    }
+
+    /**
+     * Drops both lists of the user after the current transaction commits, or right away outside a transaction.
+     */
+    public void invalidateAfterCommit(Long userId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            invalidate(userId);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                invalidate(userId);
+            }
+        });
+    }
+
+    public void invalidate(Long userId) {
+        lists.invalidate(new ListKey(userId, false));
+        lists.invalidate(new ListKey(userId, true));
+    }
+
+    @AllArgsConstructor
+    @EqualsAndHashCode
+    private static class ListKey {
+
+        private final Long userId;
+
+        private final boolean activeOnly;
+    }
+}
@@ -0,0 +1,59 @@
+package com.mpiaseczny.order_service.service;
+
+import com.mpiaseczny.order_service.repository.OrderListVersionRepository;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Per-user version of the order lists, kept in the database so every instance hands out the same ETag. Each write to
+ * a user's orders bumps it inside the writing transaction, so the bump commits or rolls back with the write;
+ * concurrent writes of one user wait for each other on the version row.
+ */
+@Component
+public class OrderListVersions {
+
+    @Autowired
+    private OrderListVersionRepository orderListVersionRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate newTransaction;
+
+    @PostConstruct
+    void init() {
+        newTransaction = new TransactionTemplate(transactionManager);
+        newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * The current version with one primary-key lookup; 0 for a user whose orders were never changed.
+     */
+    public long get(Long userId) {
+        return orderListVersionRepository.findVersion(userId).orElse(0L);
+    }
+
+    /**
+     * Bumps the version of the user's lists within the calling transaction.
+     */
+    public void bump(Long userId) {
+        if (orderListVersionRepository.increment(userId) == 0) {
+            create(userId);
+            orderListVersionRepository.increment(userId);
+        }
+    }
+
+    // Committed on its own, so two first writes of a user race on the insert and not on their whole transactions
+    private void create(Long userId) {
+        try {
+            newTransaction.executeWithoutResult(status -> orderListVersionRepository.create(userId));
+        } catch (DataIntegrityViolationException e) {
+            // Another transaction created the row first
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.mpiaseczny.order_service.service;
+
+import com.mpiaseczny.order_service.jfr.OrderOperation;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.function.Supplier;
+
+/**
+ * Times order operations into {@code orders.operation}, tagged with the operation and whether it succeeded. Inside a
+ * transaction the timer stops when the transaction completes, so the commit, where the batched inserts and updates
+ * are actually sent, is part of the measurement and a rollback counts as a failure. A JFR event passed along is
+ * committed at the same moment, with the same outcome.
+ */
+@Component
+public class OrderMetrics {
+
+    private static final String SUCCESS = "success";
+
+    private static final String FAILURE = "failure";
+
+    private final MeterRegistry meterRegistry;
+
+    public OrderMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    public <T> T time(String operation, Supplier<T> work) {
+        return time(operation, null, work);
+    }
+
+    /**
+     * @param flightEvent begun here and committed when the operation completes; {@code work} fills in its fields
+     */
+    public <T> T time(String operation, OrderOperation flightEvent, Supplier<T> work) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        if (flightEvent != null) {
+            flightEvent.begin();
+        }
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    stop(sample, operation, flightEvent, status == STATUS_COMMITTED);
+                }
+            });
+            return work.get();
+        }
+
+        try {
+            T result = work.get();
+            stop(sample, operation, flightEvent, true);
+            return result;
+        } catch (RuntimeException e) {
+            stop(sample, operation, flightEvent, false);
+            throw e;
+        }
+    }
+
+    private void stop(Timer.Sample sample, String operation, OrderOperation flightEvent, boolean succeeded) {
+        sample.stop(timer(operation, succeeded ? SUCCESS : FAILURE));
+        if (flightEvent != null) {
+            flightEvent.succeeded = succeeded;
+            flightEvent.commit();
+        }
+    }
+
+    private Timer timer(String operation, String outcome) {
+        return Timer.builder("orders.operation")
+                .description("Time from the start of an order operation until its transaction completed")
+                .tag("operation", operation)
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,269 @@
+package com.mpiaseczny.order_service.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mpiaseczny.order_service.entity.OrderOutboxDeadLetter;
+import com.mpiaseczny.order_service.entity.OrderOutboxEvent;
+import com.mpiaseczny.order_service.jfr.KafkaPublish;
+import com.mpiaseczny.order_service.repository.OrderOutboxDeadLetterRepository;
+import com.mpiaseczny.order_service.repository.OrderOutboxRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.tracing.Span;
+import io.micrometer.tracing.Tracer;
+import io.micrometer.tracing.propagation.Propagator;
+import jakarta.annotation.PostConstruct;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.KafkaException;
+import org.apache.kafka.common.header.Headers;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Limit;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Drains {@code order_outbox} to Kafka in id order. Rows are deleted only after the broker acknowledged them,
+ * so delivery is at-least-once; notification-service drops the duplicates by their {@code eventId} header. The
+ * {@code producedAt} and {@code correlationId} headers let consumers measure and trace delivery latency. Events
+ * whose payload cannot be read are moved to {@code order_outbox_dead_letter}.
+ * <p>
+ * Draining in id order keeps the changes of one order in order only because outbox ids grow with commit order for
+ * each order, on every instance that writes them. {@link OrderOutboxEvent} takes one sequence value per row for this
+ * and {@code OrderOutboxIdOrderTest} checks it; a pooled or per-instance id strategy would break the guarantee.
+ * <p>
+ * Rows are not claimed, so two relays would publish the same events and could interleave the changes of one
+ * order. Run it on a single instance: {@code orders.outbox.relay.enabled: false} on all others.
+ */
+@Component
+@ConditionalOnProperty(name = "orders.outbox.relay.enabled", havingValue = "true", matchIfMissing = true)
+public class OrderOutboxRelay {
+
+    private static final Logger logger = LoggerFactory.getLogger(OrderOutboxRelay.class);
+
+    public static final String EVENT_ID_HEADER = "eventId";
+
+    // When the event was stored, in epoch milliseconds
+    public static final String PRODUCED_AT_HEADER = "producedAt";
+
+    public static final String CORRELATION_ID_HEADER = "correlationId";
+
+    public static final String TRACE_PARENT_HEADER = "traceparent";
+
+    @Autowired
+    private OrderOutboxRepository orderOutboxRepository;
+
+    @Autowired
+    private OrderOutboxDeadLetterRepository orderOutboxDeadLetterRepository;
+
+    @Autowired
+    private KafkaTemplate<String, Object> kafkaTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    // Only present with management.tracing.enabled, see application-tracing.yml
+    @Autowired(required = false)
+    private Tracer tracer;
+
+    @Autowired(required = false)
+    private Propagator propagator;
+
+    @Value("${orders.outbox.batch-size:100}")
+    private int batchSize = 100;
+
+    @Value("${orders.outbox.send-timeout-ms:10000}")
+    private long sendTimeoutMs = 10000;
+
+    private final AtomicLong lagMillis = new AtomicLong();
+
+    private Counter publishedCounter;
+
+    private Counter failedCounter;
+
+    @PostConstruct
+    void registerMeters() {
+        Gauge.builder("orders.outbox.lag", lagMillis, AtomicLong::get)
+                .description("Age of the oldest unpublished outbox event")
+                .baseUnit("milliseconds")
+                .register(meterRegistry);
+        publishedCounter = Counter.builder("orders.outbox.published")
+                .description("Outbox events acknowledged by Kafka")
+                .register(meterRegistry);
+        failedCounter = Counter.builder("orders.outbox.failed")
+                .description("Outbox events that could not be published")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${orders.outbox.poll-interval-ms:500}")
+    public void relay() {
+        int processed;
+        do {
+            processed = relayBatch();
+        } while (processed == batchSize);
+    }
+
+    int relayBatch() {
+        List<OrderOutboxEvent> batch = orderOutboxRepository.findAllByOrderByIdAsc(Limit.of(batchSize));
+        if (batch.isEmpty()) {
+            lagMillis.set(0);
+            return 0;
+        }
+
+        lagMillis.set(Duration.between(batch.get(0).getCreatedAt(), Instant.now()).toMillis());
+
+        List<CompletableFuture<SendResult<String, Object>>> sends = new ArrayList<>(batch.size());
+        List<OrderOutboxDeadLetter> deadLetters = new ArrayList<>();
+        for (OrderOutboxEvent outboxEvent : batch) {
+            ProducerRecord<String, Object> record;
+            try {
+                record = toRecord(outboxEvent);
+            } catch (IllegalStateException e) {
+                logger.error("Moving unreadable outbox event {} to the dead-letter table: {}",
+                        outboxEvent.getEventId(), e.getMessage(), e);
+                Throwable cause = e.getCause() != null ? e.getCause() : e;
+                deadLetters.add(new OrderOutboxDeadLetter(outboxEvent, cause.toString()));
+                sends.add(null);
+                continue;
+            }
+
+            try {
+                sends.add(send(record, outboxEvent));
+            } catch (KafkaException e) {
+                sends.add(CompletableFuture.failedFuture(e));
+                break;
+            }
+        }
+
+        List<Long> processedIds = new ArrayList<>(sends.size());
+        int published = 0;
+        for (int i = 0; i < sends.size(); i++) {
+            OrderOutboxEvent outboxEvent = batch.get(i);
+            CompletableFuture<SendResult<String, Object>> send = sends.get(i);
+            if (send == null) {
+                processedIds.add(outboxEvent.getId());
+                failedCounter.increment();
+                continue;
+            }
+
+            try {
+                send.get(sendTimeoutMs, TimeUnit.MILLISECONDS);
+                processedIds.add(outboxEvent.getId());
+                published++;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (ExecutionException | TimeoutException e) {
+                // Keep the failed event and everything after it, so per-order ordering survives the retry
+                logger.warn("Failed to publish outbox event {} to {}: {}",
+                        outboxEvent.getEventId(), outboxEvent.getTopic(), e.getMessage());
+                failedCounter.increment();
+                break;
+            }
+        }
+
+        if (!deadLetters.isEmpty()) {
+            // Saved before the delete; after a crash in between the next pass writes the same rows again
+            orderOutboxDeadLetterRepository.saveAll(deadLetters);
+        }
+        if (!processedIds.isEmpty()) {
+            orderOutboxRepository.deleteAllByIdInBatch(processedIds);
+        }
+        publishedCounter.increment(published);
+
+        return processedIds.size();
+    }
+
+    private ProducerRecord<String, Object> toRecord(OrderOutboxEvent outboxEvent) {
+        // Keyed by order id so every change of one order lands on the same partition, in order
+        ProducerRecord<String, Object> record = new ProducerRecord<>(
+                outboxEvent.getTopic(),
+                String.valueOf(outboxEvent.getOrderId()),
+                readEvent(outboxEvent)
+        );
+        Headers headers = record.headers();
+        headers.add(EVENT_ID_HEADER, outboxEvent.getEventId().getBytes(StandardCharsets.UTF_8));
+        headers.add(PRODUCED_AT_HEADER,
+                Long.toString(outboxEvent.getCreatedAt().toEpochMilli()).getBytes(StandardCharsets.UTF_8));
+        if (outboxEvent.getCorrelationId() != null) {
+            headers.add(CORRELATION_ID_HEADER, outboxEvent.getCorrelationId().getBytes(StandardCharsets.UTF_8));
+        }
+        return record;
+    }
+
+    private CompletableFuture<SendResult<String, Object>> send(ProducerRecord<String, Object> record,
+                                                               OrderOutboxEvent outboxEvent) {
+        KafkaPublish flightEvent = new KafkaPublish();
+        flightEvent.topic = outboxEvent.getTopic();
+        flightEvent.orderId = outboxEvent.getOrderId();
+        flightEvent.eventId = outboxEvent.getEventId();
+        flightEvent.correlationId = outboxEvent.getCorrelationId();
+        flightEvent.begin();
+
+        return tracedSend(record, outboxEvent).whenComplete((result, e) -> {
+            flightEvent.succeeded = e == null;
+            flightEvent.commit();
+        });
+    }
+
+    /**
+     * Sends the record, inside a producer span continuing the trace of the request that stored the event when
+     * that request was sampled. The span's context goes out in the {@code traceparent} header.
+     */
+    private CompletableFuture<SendResult<String, Object>> tracedSend(ProducerRecord<String, Object> record,
+                                                                     OrderOutboxEvent outboxEvent) {
+        if (tracer == null || propagator == null || outboxEvent.getTraceParent() == null) {
+            return kafkaTemplate.send(record);
+        }
+
+        Span span = propagator.extract(Map.of(TRACE_PARENT_HEADER, outboxEvent.getTraceParent()), Map::get)
+                .name("order-outbox publish")
+                .kind(Span.Kind.PRODUCER)
+                .remoteServiceName("kafka")
+                .tag("messaging.destination.name", record.topic())
+                .start();
+        propagator.inject(span.context(), record.headers(),
+                (headers, key, value) -> headers.add(key, value.getBytes(StandardCharsets.UTF_8)));
+        try {
+            return kafkaTemplate.send(record).whenComplete((result, e) -> {
+                if (e != null) {
+                    span.error(e);
+                }
+                span.end();
+            });
+        } catch (KafkaException e) {
+            span.error(e);
+            span.end();
+            throw e;
+        }
+    }
+
+    private Object readEvent(OrderOutboxEvent outboxEvent) {
+        try {
+            Class<?> eventType = Class.forName(outboxEvent.getEventType());
+            return objectMapper.readValue(outboxEvent.getPayload(), eventType);
+        } catch (Exception e) {
+            throw new IllegalStateException("Unreadable outbox event " + outboxEvent.getEventId(), e);
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.mpiaseczny.order_service.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mpiaseczny.order_service.entity.OrderOutboxEvent;
+import com.mpiaseczny.order_service.filter.CorrelationIdFilter;
+import com.mpiaseczny.order_service.repository.OrderOutboxRepository;
+import io.micrometer.tracing.TraceContext;
+import io.micrometer.tracing.Tracer;
+import io.micrometer.tracing.propagation.Propagator;
+import org.slf4j.MDC;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.HashMap;
+import java.util.Map;
+
+@Service
+public class OrderOutboxService {
+
+    @Autowired
+    private OrderOutboxRepository orderOutboxRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    // Only present with management.tracing.enabled, see application-tracing.yml
+    @Autowired(required = false)
+    private Tracer tracer;
+
+    @Autowired(required = false)
+    private Propagator propagator;
+
+    /**
+     * Stores the event in the outbox as part of the caller's transaction; {@link OrderOutboxRelay}
+     * publishes it once that transaction commits.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void enqueue(String topic, Long orderId, Object event) {
+        String payload;
+        try {
+            payload = objectMapper.writeValueAsString(event);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize event for order " + orderId, e);
+        }
+
+        OrderOutboxEvent outboxEvent = new OrderOutboxEvent(orderId, topic, event.getClass().getName(), payload);
+        // Events produced outside a request thread are correlated by their own id
+        String correlationId = MDC.get(CorrelationIdFilter.MDC_KEY);
+        outboxEvent.setCorrelationId(correlationId != null ? correlationId : outboxEvent.getEventId());
+        outboxEvent.setTraceParent(sampledTraceParent());
+        orderOutboxRepository.save(outboxEvent);
+    }
+
+    private String sampledTraceParent() {
+        if (tracer == null || propagator == null) {
+            return null;
+        }
+        TraceContext context = tracer.currentTraceContext().context();
+        if (context == null || !Boolean.TRUE.equals(context.sampled())) {
+            return null;
+        }
+        Map<String, String> carrier = new HashMap<>();
+        propagator.inject(context, carrier, Map::put);
+        return carrier.get(OrderOutboxRelay.TRACE_PARENT_HEADER);
+    }
+}
@@ -1,17 +1,41 @@
 package com.mpiaseczny.order_service.service;
 
 import com.mpiaseczny.order_service.common.enums.OrderStatus;
+import com.mpiaseczny.order_service.common.pagination.OrderCursor;
+import com.mpiaseczny.order_service.dto.BulkItemResult;
 import com.mpiaseczny.order_service.dto.CreateOrderRequest;
 import com.mpiaseczny.order_service.dto.OrderCreatedEvent;
+import com.mpiaseczny.order_service.dto.OrderList;
+import com.mpiaseczny.order_service.dto.OrderPage;
+import com.mpiaseczny.order_service.dto.OrderSummary;
 import com.mpiaseczny.order_service.dto.OrderStatusChangedEvent;
+import com.mpiaseczny.order_service.dto.OrderStatusUpdate;
 import com.mpiaseczny.order_service.entity.Order;
+import com.mpiaseczny.order_service.jfr.OrderCreated;
+import com.mpiaseczny.order_service.jfr.OrderStatusTransition;
 import com.mpiaseczny.order_service.repository.OrderRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
-import java.util.Optional;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 public class OrderService {
@@ -20,28 +44,121 @@ public class OrderService {
     private OrderRepository orderRepository;
 
     @Autowired
-    private KafkaTemplate<String, Object> kafkaTemplate;
+    private OrderOutboxService orderOutboxService;
+
+    @Autowired
+    private Validator validator;
+
+    @Autowired
+    private OrderListCache orderListCache;
+
+    @Autowired
+    private OrderListVersions orderListVersions;
+
+    @Autowired
+    private OrderMetrics orderMetrics;
 
     private static final String ORDER_CREATED_TOPIC = "order-created";
 
     private static final String ORDER_STATUS_CHANGED_TOPIC = "order-status-changed";
 
-    public List<Order> getOrders(Long userId, boolean activeOnly) {
-        if (activeOnly) {
-            List<OrderStatus> activeStatuses = List.of(
-                    OrderStatus.PENDING,
-                    OrderStatus.CONFIRMED,
-                    OrderStatus.PROCESSING,
-                    OrderStatus.SHIPPED
-            );
+    private static final List<OrderStatus> ACTIVE_STATUSES = List.of(
+            OrderStatus.PENDING,
+            OrderStatus.CONFIRMED,
+            OrderStatus.PROCESSING,
+            OrderStatus.SHIPPED
+    );
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${orders.page.default-size:20}")
+    private int defaultPageSize = 20;
+
+    @Value("${orders.page.max-size:100}")
+    private int maxPageSize = 100;
+
+    @Value("${orders.bulk.max-size:1000}")
+    private int maxBulkSize = 1000;
+
+    public List<OrderSummary> getOrders(Long userId, boolean activeOnly) {
+        long version = orderListVersions.get(userId);
+        return orderListCache.get(userId, activeOnly, version, () -> loadOrders(userId, activeOnly));
+    }
+
+    /**
+     * Version of the user's order lists, read with one primary-key lookup. It changes with every write to the user's
+     * orders, so a conditional request can be checked against {@link OrderList#etag} before any list is loaded.
+     */
+    public long getOrderListVersion(Long userId) {
+        return orderListVersions.get(userId);
+    }
+
+    /**
+     * Same list as {@link #getOrders}, at the {@code version} the caller read, or later, with its ETag.
+     */
+    public OrderList getOrderList(Long userId, boolean activeOnly, long version) {
+        return orderListCache.getWithETag(userId, activeOnly, version, () -> loadOrders(userId, activeOnly));
+    }
 
-            return orderRepository.findByCreatedByIdAndStatusInOrderByCreatedAtDesc(userId, activeStatuses);
+    private List<OrderSummary> loadOrders(Long userId, boolean activeOnly) {
+        if (activeOnly) {
+            return orderRepository.findByCreatedByIdAndStatusInOrderByCreatedAtDesc(userId, ACTIVE_STATUSES);
         }
 
         return orderRepository.findByCreatedByIdOrderByCreatedAtDesc(userId);
     }
 
+    @Transactional(readOnly = true)
+    public OrderPage getOrdersPage(Long userId, boolean activeOnly, String cursor, Integer size) {
+        int pageSize = size == null ? defaultPageSize : Math.min(size, maxPageSize);
+        if (pageSize < 1) {
+            throw new IllegalArgumentException("Page size must be positive");
+        }
+
+        // One extra row tells us whether a next page exists without issuing a count query
+        Limit limit = Limit.of(pageSize + 1);
+        List<Order> orders;
+
+        if (cursor == null || cursor.isBlank()) {
+            orders = activeOnly
+                    ? orderRepository.findByCreatedByIdAndStatusInOrderByCreatedAtDescIdDesc(userId, ACTIVE_STATUSES, limit)
+                    : orderRepository.findByCreatedByIdOrderByCreatedAtDescIdDesc(userId, limit);
+        } else {
+            OrderCursor position = OrderCursor.decode(cursor);
+            orders = activeOnly
+                    ? orderRepository.findPageAfterWithStatusIn(userId, ACTIVE_STATUSES, position.getCreatedAt(), position.getId(), limit)
+                    : orderRepository.findPageAfter(userId, position.getCreatedAt(), position.getId(), limit);
+        }
+
+        if (orders.size() <= pageSize) {
+            return new OrderPage(orders, null);
+        }
+
+        List<Order> items = orders.subList(0, pageSize);
+        return new OrderPage(items, OrderCursor.of(items.get(pageSize - 1)).encode());
+    }
+
+    @Transactional(readOnly = true)
+    public void exportOrders(Long userId, boolean activeOnly, Consumer<Order> consumer) {
+        try (Stream<Order> orders = activeOnly
+                ? orderRepository.streamByCreatedByIdAndStatusIn(userId, ACTIVE_STATUSES)
+                : orderRepository.streamByCreatedById(userId)) {
+            orders.forEach(order -> {
+                consumer.accept(order);
+                // Keep the persistence context from growing with every streamed row
+                entityManager.detach(order);
+            });
+        }
+    }
+
+    @Transactional
     public Order createOrder(Long userId, CreateOrderRequest request) {
+        OrderCreated flightEvent = new OrderCreated();
+        return orderMetrics.time("create", flightEvent, () -> saveOrder(userId, request, flightEvent));
+    }
+
+    private Order saveOrder(Long userId, CreateOrderRequest request, OrderCreated flightEvent) {
         Order order = new Order(
                 userId,
                 request.getCustomerId(),
@@ -49,36 +166,190 @@ public class OrderService {
         );
 
         Order savedOrder = orderRepository.save(order);
+        flightEvent.orderId = savedOrder.getId();
+        flightEvent.userId = userId;
+        flightEvent.customerId = request.getCustomerId();
 
-        OrderCreatedEvent event = new OrderCreatedEvent(
-                savedOrder.getId(),
-                savedOrder.getCreatedAt(),
-                savedOrder.getStatus(),
-                savedOrder.getCreatedById(),
-                savedOrder.getCustomerId(),
-                savedOrder.getDescription()
-        );
-
-        kafkaTemplate.send(ORDER_CREATED_TOPIC, event);
+        orderOutboxService.enqueue(ORDER_CREATED_TOPIC, savedOrder.getId(), toCreatedEvent(savedOrder));
+        orderListVersions.bump(userId);
+        orderListCache.invalidateAfterCommit(userId);
 
         return savedOrder;
     }
 
+    /**
+     * Creates every valid order in one transaction. Inserts of the orders and their outbox events are sent in
+     * JDBC batches on flush; invalid items are reported in their result and do not affect the others.
+     */
+    @Transactional
+    public List<BulkItemResult> createOrders(Long userId, List<CreateOrderRequest> requests) {
+        checkBulkSize(requests);
+
+        List<BulkItemResult> results = new ArrayList<>(requests.size());
+        for (int i = 0; i < requests.size(); i++) {
+            CreateOrderRequest request = requests.get(i);
+            String error = validationError(request);
+            if (error != null) {
+                results.add(new BulkItemResult(i, HttpStatus.BAD_REQUEST.value(), null, error));
+                continue;
+            }
+
+            Order savedOrder = orderRepository.save(new Order(
+                    userId,
+                    request.getCustomerId(),
+                    request.getDescription()
+            ));
+            orderOutboxService.enqueue(ORDER_CREATED_TOPIC, savedOrder.getId(), toCreatedEvent(savedOrder));
+            results.add(new BulkItemResult(i, HttpStatus.CREATED.value(), savedOrder, null));
+        }
+        orderListVersions.bump(userId);
+        orderListCache.invalidateAfterCommit(userId);
+
+        return results;
+    }
+
+    /**
+     * Changes the status with a single conditional UPDATE, so of several concurrent requests for the same order
+     * exactly one wins and its event carries the status it actually replaced. The others fail with
+     * {@link OrderStatusConflictException}, as do transitions {@link OrderStatus} does not allow.
+     */
+    @Transactional
     public Order updateOrderStatus(Long id, OrderStatus status) {
+        OrderStatusTransition flightEvent = new OrderStatusTransition();
+        flightEvent.orderId = id;
+        flightEvent.toStatus = String.valueOf(status);
+        return orderMetrics.time("update_status", flightEvent, () -> applyStatus(id, status, flightEvent));
+    }
+
+    private Order applyStatus(Long id, OrderStatus status, OrderStatusTransition flightEvent) {
         Order order = orderRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Order not found with id: " + id));
 
+        OrderStatus oldStatus = order.getStatus();
+        flightEvent.fromStatus = oldStatus.name();
+        checkTransition(order, status);
+
+        if (orderRepository.transitionStatus(id, oldStatus, order.getVersion(), status) == 0) {
+            throw new OrderStatusConflictException("Order " + id + " was changed concurrently, reload it and retry");
+        }
+
+        // The UPDATE bypassed the persistence context and cleared it, so bring the detached copy up to date
+        order.setStatus(status);
+        order.setVersion(order.getVersion() + 1);
+
         OrderStatusChangedEvent event = new OrderStatusChangedEvent(
                 order.getId(),
+                oldStatus,
+                status,
+                order.getCreatedById(),
+                Instant.now()
+        );
+        orderOutboxService.enqueue(ORDER_STATUS_CHANGED_TOPIC, order.getId(), event);
+        orderListVersions.bump(order.getCreatedById());
+        orderListCache.invalidateAfterCommit(order.getCreatedById());
+
+        return order;
+    }
+
+    /**
+     * Applies the status changes in order, loading all affected orders with one query. The updates and outbox
+     * inserts are sent in JDBC batches on flush; unknown orders, invalid items and transitions {@link OrderStatus}
+     * does not allow are reported in their result.
+     */
+    @Transactional
+    public List<BulkItemResult> updateOrderStatuses(List<OrderStatusUpdate> updates) {
+        checkBulkSize(updates);
+
+        Set<Long> orderIds = new HashSet<>();
+        for (OrderStatusUpdate update : updates) {
+            if (update != null && update.getOrderId() != null) {
+                orderIds.add(update.getOrderId());
+            }
+        }
+        Map<Long, Order> ordersById = new HashMap<>();
+        orderRepository.findAllById(orderIds).forEach(order -> ordersById.put(order.getId(), order));
+
+        List<BulkItemResult> results = new ArrayList<>(updates.size());
+        // Sorted, so two bulk updates bump the version rows of shared owners in the same order and cannot deadlock
+        Set<Long> owners = new TreeSet<>();
+        for (int i = 0; i < updates.size(); i++) {
+            OrderStatusUpdate update = updates.get(i);
+            String error = validationError(update);
+            if (error != null) {
+                results.add(new BulkItemResult(i, HttpStatus.BAD_REQUEST.value(), null, error));
+                continue;
+            }
+
+            Order order = ordersById.get(update.getOrderId());
+            if (order == null) {
+                results.add(new BulkItemResult(i, HttpStatus.NOT_FOUND.value(), null,
+                        "Order not found with id: " + update.getOrderId()));
+                continue;
+            }
+
+            if (!order.getStatus().canTransitionTo(update.getStatus())) {
+                results.add(new BulkItemResult(i, HttpStatus.CONFLICT.value(), null,
+                        transitionError(order, update.getStatus())));
+                continue;
+            }
+
+            OrderStatusChangedEvent event = new OrderStatusChangedEvent(
+                    order.getId(),
+                    order.getStatus(),
+                    update.getStatus(),
+                    order.getCreatedById(),
+                    Instant.now()
+            );
+            // Managed entity, written by a versioned batch update on flush; a concurrent change fails the whole batch
+            order.setStatus(update.getStatus());
+            orderOutboxService.enqueue(ORDER_STATUS_CHANGED_TOPIC, order.getId(), event);
+            results.add(new BulkItemResult(i, HttpStatus.OK.value(), order, null));
+            owners.add(order.getCreatedById());
+        }
+        owners.forEach(orderListVersions::bump);
+        owners.forEach(orderListCache::invalidateAfterCommit);
+
+        return results;
+    }
+
+    private OrderCreatedEvent toCreatedEvent(Order order) {
+        return new OrderCreatedEvent(
+                order.getId(),
+                order.getCreatedAt(),
                 order.getStatus(),
-                status
+                order.getCreatedById(),
+                order.getCustomerId(),
+                order.getDescription()
         );
+    }
 
-        order.setStatus(status);
-        Order savedOrder = orderRepository.save(order);
+    private void checkTransition(Order order, OrderStatus status) {
+        if (!order.getStatus().canTransitionTo(status)) {
+            throw new OrderStatusConflictException(transitionError(order, status));
+        }
+    }
 
-        kafkaTemplate.send(ORDER_STATUS_CHANGED_TOPIC, event);
+    private String transitionError(Order order, OrderStatus status) {
+        return "Cannot change status of order " + order.getId() + " from " + order.getStatus() + " to " + status;
+    }
 
-        return savedOrder;
+    private void checkBulkSize(List<?> items) {
+        if (items.size() > maxBulkSize) {
+            throw new IllegalArgumentException("At most " + maxBulkSize + " items are allowed per request");
+        }
+    }
+
+    private String validationError(Object item) {
+        if (item == null) {
+            return "Item is required";
+        }
+        Set<ConstraintViolation<Object>> violations = validator.validate(item);
+        if (violations.isEmpty()) {
+            return null;
+        }
+        return violations.stream()
+                .map(ConstraintViolation::getMessage)
+                .sorted()
+                .collect(Collectors.joining(", "));
     }
 }
@@ -0,0 +1,12 @@
+package com.mpiaseczny.order_service.service;
+
+/**
+ * The requested status change does not apply to the order's current status, either because the transition is not
+ * allowed or because another request changed the order first.
+ */
+public class OrderStatusConflictException extends RuntimeException {
+
+    public OrderStatusConflictException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,30 @@
+-- Increments match allocationSize of the entity sequence generators
+CREATE SEQUENCE orders_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE order_outbox_seq START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE orders (
+    id            BIGINT                      NOT NULL,
+    created_at    TIMESTAMP(6) WITH TIME ZONE NOT NULL,
+    status        ENUM ('PENDING', 'CONFIRMED', 'PROCESSING', 'SHIPPED', 'DELIVERED', 'CANCELLED') NOT NULL,
+    created_by_id BIGINT                      NOT NULL,
+    customer_id   BIGINT                      NOT NULL,
+    description   VARCHAR(255),
+    version       BIGINT,
+    PRIMARY KEY (id)
+);
+
+-- Per-user lists and keyset pages, with and without the active-status filter
+CREATE INDEX idx_orders_created_by_status_created_at ON orders (created_by_id, status, created_at);
+CREATE INDEX idx_orders_created_by_created_at ON orders (created_by_id, created_at);
+
+CREATE TABLE order_outbox (
+    id         BIGINT                      NOT NULL,
+    event_id   VARCHAR(255)                NOT NULL,
+    order_id   BIGINT                      NOT NULL,
+    topic      VARCHAR(255)                NOT NULL,
+    event_type VARCHAR(255)                NOT NULL,
+    payload    CHARACTER LARGE OBJECT      NOT NULL,
+    created_at TIMESTAMP(6) WITH TIME ZONE NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT uk_order_outbox_event_id UNIQUE (event_id)
+);
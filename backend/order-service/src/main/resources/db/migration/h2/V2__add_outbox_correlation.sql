@@ -0,0 +1,3 @@
+-- Correlation id of the request that produced the event and, when it was sampled, its W3C traceparent
+ALTER TABLE order_outbox ADD COLUMN correlation_id VARCHAR(64);
+ALTER TABLE order_outbox ADD COLUMN trace_parent VARCHAR(64);
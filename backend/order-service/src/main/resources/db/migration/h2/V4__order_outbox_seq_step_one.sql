@@ -0,0 +1,2 @@
+-- One outbox id per nextval, so ids follow commit order across instances; matches allocationSize of the generator
+ALTER SEQUENCE order_outbox_seq INCREMENT BY 1;
@@ -0,0 +1,14 @@
+-- Outbox events the relay could not turn into a Kafka record, keyed by their outbox id
+CREATE TABLE order_outbox_dead_letter (
+    id             BIGINT                      NOT NULL,
+    event_id       VARCHAR(255)                NOT NULL,
+    order_id       BIGINT                      NOT NULL,
+    topic          VARCHAR(255)                NOT NULL,
+    event_type     VARCHAR(255)                NOT NULL,
+    payload        TEXT                        NOT NULL,
+    created_at     TIMESTAMP(6) WITH TIME ZONE NOT NULL,
+    correlation_id VARCHAR(64),
+    error          VARCHAR(1000),
+    failed_at      TIMESTAMP(6) WITH TIME ZONE NOT NULL,
+    PRIMARY KEY (id)
+);
@@ -0,0 +1,6 @@
+-- One row per user, bumped by every write to the user's orders; the ETag of the order lists is built from it
+CREATE TABLE order_list_versions (
+    user_id BIGINT NOT NULL,
+    version BIGINT NOT NULL,
+    PRIMARY KEY (user_id)
+);
@@ -0,0 +1,77 @@
+package com.mpiaseczny.order_service.config;
+
+import com.mpiaseczny.order_service.jfr.OrderCreated;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FlightRecordingEndpointTest {
+
+    @TempDir
+    private Path dumpDirectory;
+
+    private final FlightRecordingEndpoint endpoint = new FlightRecordingEndpoint();
+
+    @AfterEach
+    void tearDown() {
+        endpoint.stop();
+    }
+
+    @Test
+    void dump_ShouldWriteApplicationEventsRecordedSinceStartup() throws Exception {
+        // Given
+        ReflectionTestUtils.setField(endpoint, "applicationName", "order-service");
+        ReflectionTestUtils.setField(endpoint, "dumpDirectory", dumpDirectory);
+        endpoint.start();
+
+        OrderCreated flightEvent = new OrderCreated();
+        flightEvent.orderId = 7L;
+        flightEvent.succeeded = true;
+        flightEvent.commit();
+
+        // When
+        Map<String, Object> dumped = endpoint.dump();
+
+        // Then
+        Path file = Path.of((String) dumped.get("file"));
+        assertTrue(file.startsWith(dumpDirectory.toAbsolutePath()));
+        List<RecordedEvent> orderEvents = RecordingFile.readAllEvents(file).stream()
+                .filter(event -> event.getEventType().getName().equals("com.mpiaseczny.OrderCreated"))
+                .toList();
+        assertEquals(1, orderEvents.size());
+        assertEquals(7L, orderEvents.get(0).getLong("orderId"));
+        assertTrue(RecordingFile.readAllEvents(file).stream()
+                .noneMatch(event -> event.getEventType().getName().equals("jdk.InitialEnvironmentVariable")));
+    }
+
+    @Test
+    void dump_ShouldKeepOnlyTheNewestDumps() throws Exception {
+        // Given
+        ReflectionTestUtils.setField(endpoint, "applicationName", "order-service");
+        ReflectionTestUtils.setField(endpoint, "dumpDirectory", dumpDirectory);
+        ReflectionTestUtils.setField(endpoint, "maxDumps", 1);
+        endpoint.start();
+        Files.createFile(dumpDirectory.resolve("order-service-20240101-000000.jfr"));
+
+        // When
+        Map<String, Object> dumped = endpoint.dump();
+
+        // Then
+        try (Stream<Path> files = Files.list(dumpDirectory)) {
+            assertEquals(List.of(Path.of((String) dumped.get("file")).getFileName()),
+                    files.map(Path::getFileName).toList());
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.mpiaseczny.order_service.config;
+
+import com.mpiaseczny.order_service.common.enums.OrderStatus;
+import com.mpiaseczny.order_service.dto.OrderStatusChangedEvent;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.Banner;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Publishes keyed order events to an embedded broker with each producer profile and prints events/sec. Each profile
+ * gets the producer {@link KafkaConfig} builds from application.yml and the profile's own file, so the numbers follow
+ * the {@code orders.kafka.producer.*} settings that ship. Not picked up by the default surefire includes; run with
+ * {@code mvn test -Dtest=KafkaProducerProfileBenchmark}.
+ */
+@SpringJUnitConfig
+@EmbeddedKafka(partitions = 6, topics = KafkaProducerProfileBenchmark.TOPIC)
+class KafkaProducerProfileBenchmark {
+
+    static final String TOPIC = "order-status-changed";
+
+    private static final int WARMUP_EVENTS = 20_000;
+
+    private static final int MEASURED_EVENTS = 200_000;
+
+    private static final int ORDER_COUNT = 10_000;
+
+    @Autowired
+    private EmbeddedKafkaBroker embeddedKafka;
+
+    @Test
+    void publishThroughputPerProfile() throws Exception {
+        Map<String, String[]> profiles = new LinkedHashMap<>();
+        profiles.put("default", new String[0]);
+        profiles.put("kafka-throughput", new String[] {"--spring.profiles.active=kafka-throughput"});
+        profiles.put("kafka-throughput (zstd)", new String[] {"--spring.profiles.active=kafka-throughput",
+                "--orders.kafka.producer.compression-type=zstd"});
+
+        for (Map.Entry<String, String[]> profile : profiles.entrySet()) {
+            double eventsPerSecond = measure(profile.getValue());
+            System.out.printf("%-26s %,12.0f events/sec%n", profile.getKey(), eventsPerSecond);
+        }
+    }
+
+    private double measure(String[] args) throws Exception {
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(KafkaConfig.class, Meters.class)
+                .web(WebApplicationType.NONE)
+                .bannerMode(Banner.Mode.OFF)
+                .logStartupInfo(false)
+                .properties("spring.kafka.bootstrap-servers=" + embeddedKafka.getBrokersAsString())
+                .run(args)) {
+            @SuppressWarnings("unchecked")
+            KafkaTemplate<String, Object> kafkaTemplate = context.getBean(KafkaTemplate.class);
+            publish(kafkaTemplate, WARMUP_EVENTS);
+
+            long start = System.nanoTime();
+            publish(kafkaTemplate, MEASURED_EVENTS);
+            long elapsed = System.nanoTime() - start;
+
+            return MEASURED_EVENTS / (elapsed / 1_000_000_000.0);
+        }
+    }
+
+    private void publish(KafkaTemplate<String, Object> kafkaTemplate, int events) throws Exception {
+        List<CompletableFuture<SendResult<String, Object>>> sends = new ArrayList<>(events);
+        for (int i = 0; i < events; i++) {
+            long orderId = i % ORDER_COUNT;
+            OrderStatusChangedEvent event = new OrderStatusChangedEvent(
+                    orderId, OrderStatus.PENDING, OrderStatus.CONFIRMED, 1L, Instant.now());
+            sends.add(kafkaTemplate.send(TOPIC, String.valueOf(orderId), event));
+        }
+        kafkaTemplate.flush();
+        CompletableFuture.allOf(sends.toArray(CompletableFuture[]::new)).get(2, TimeUnit.MINUTES);
+    }
+
+    @Configuration
+    static class Meters {
+
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+    }
+}
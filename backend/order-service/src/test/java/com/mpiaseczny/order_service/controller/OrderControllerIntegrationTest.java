@@ -3,9 +3,14 @@ package com.mpiaseczny.order_service.controller;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.mpiaseczny.order_service.common.enums.OrderStatus;
 import com.mpiaseczny.order_service.dto.CreateOrderRequest;
+import com.mpiaseczny.order_service.dto.OrderStatusUpdate;
 import com.mpiaseczny.order_service.dto.UpdateOrderRequest;
 import com.mpiaseczny.order_service.entity.Order;
+import com.mpiaseczny.order_service.entity.OrderOutboxEvent;
+import com.mpiaseczny.order_service.filter.CorrelationIdFilter;
+import com.mpiaseczny.order_service.repository.OrderOutboxRepository;
 import com.mpiaseczny.order_service.repository.OrderRepository;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -16,12 +21,18 @@ import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.context.WebApplicationContext;
 
 import java.time.Instant;
+import java.util.Collections;
+import java.util.List;
 
 import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -36,9 +47,15 @@ class OrderControllerIntegrationTest {
     @Autowired
     private OrderRepository orderRepository;
 
+    @Autowired
+    private OrderOutboxRepository orderOutboxRepository;
+
     @Autowired
     private ObjectMapper objectMapper;
 
+    @Autowired
+    private CorrelationIdFilter correlationIdFilter;
+
     @MockitoBean
     private KafkaTemplate<String, Object> kafkaTemplate;
 
@@ -50,8 +67,16 @@ class OrderControllerIntegrationTest {
 
     @BeforeEach
     void setUp() {
-        mockMvc = MockMvcBuilders.webAppContextSetup(webApplicationContext).build();
+        mockMvc = MockMvcBuilders.webAppContextSetup(webApplicationContext).addFilters(correlationIdFilter).build();
+        orderRepository.deleteAll();
+        orderOutboxRepository.deleteAll();
+    }
+
+    @AfterEach
+    void tearDown() {
+        // Clears rows committed by tests that run outside the rolled-back test transaction
         orderRepository.deleteAll();
+        orderOutboxRepository.deleteAll();
     }
 
     @Test
@@ -74,6 +99,46 @@ class OrderControllerIntegrationTest {
                 .andExpect(jsonPath("$.createdAt").exists());
     }
 
+    @Test
+    void createOrder_ShouldWriteOutboxEventInsteadOfPublishingDirectly() throws Exception {
+        // Given
+        CreateOrderRequest request = new CreateOrderRequest(TEST_CUSTOMER_ID, TEST_DESCRIPTION);
+
+        // When
+        mockMvc.perform(post("/api/orders")
+                        .header("X-User-Id", TEST_USER_ID)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isCreated());
+
+        // Then
+        List<OrderOutboxEvent> outboxEvents = orderOutboxRepository.findAll();
+        assertEquals(1, outboxEvents.size());
+        assertEquals("order-created", outboxEvents.get(0).getTopic());
+        assertEquals(TEST_DESCRIPTION, objectMapper.readTree(outboxEvents.get(0).getPayload()).get("description").asText());
+        verifyNoInteractions(kafkaTemplate);
+    }
+
+    @Test
+    void createOrder_ShouldStampOutboxEventWithRequestCorrelationId() throws Exception {
+        // Given
+        CreateOrderRequest request = new CreateOrderRequest(TEST_CUSTOMER_ID, TEST_DESCRIPTION);
+
+        // When
+        mockMvc.perform(post("/api/orders")
+                        .header("X-User-Id", TEST_USER_ID)
+                        .header(CorrelationIdFilter.CORRELATION_ID_HEADER, "checkout-42")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isCreated())
+                .andExpect(header().string(CorrelationIdFilter.CORRELATION_ID_HEADER, "checkout-42"));
+
+        // Then
+        List<OrderOutboxEvent> outboxEvents = orderOutboxRepository.findAll();
+        assertEquals(1, outboxEvents.size());
+        assertEquals("checkout-42", outboxEvents.get(0).getCorrelationId());
+    }
+
     @Test
     void createOrder_WithInvalidData_ShouldReturnBadRequest() throws Exception {
         // Given
@@ -157,6 +222,7 @@ class OrderControllerIntegrationTest {
                 .andExpect(content().contentType(MediaType.APPLICATION_JSON))
                 .andExpect(jsonPath("$.id").value(savedOrder.getId()))
                 .andExpect(jsonPath("$.status").value("CONFIRMED"))
+                .andExpect(jsonPath("$.version").value(1))
                 .andExpect(jsonPath("$.customerId").value(TEST_CUSTOMER_ID))
                 .andExpect(jsonPath("$.description").value(TEST_DESCRIPTION));
     }
@@ -177,6 +243,25 @@ class OrderControllerIntegrationTest {
                 .andExpect(jsonPath("$.error").exists());
     }
 
+    @Test
+    void updateOrderStatus_WithTransitionNotAllowed_ShouldReturnConflict() throws Exception {
+        // Given
+        Order savedOrder = orderRepository.save(createTestOrder(TEST_USER_ID, OrderStatus.DELIVERED));
+
+        UpdateOrderRequest updateRequest = new UpdateOrderRequest();
+        updateRequest.setStatus(OrderStatus.PENDING);
+
+        // When & Then
+        mockMvc.perform(put("/api/orders/{id}/status", savedOrder.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(updateRequest)))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.error").value(
+                        "Cannot change status of order " + savedOrder.getId() + " from DELIVERED to PENDING"));
+
+        assertEquals(OrderStatus.DELIVERED, orderRepository.findById(savedOrder.getId()).orElseThrow().getStatus());
+    }
+
     @Test
     void updateOrderStatus_WithNullStatus_ShouldReturnBadRequest() throws Exception {
         // Given
@@ -193,6 +278,141 @@ class OrderControllerIntegrationTest {
                 .andExpect(status().isBadRequest());
     }
 
+    @Test
+    void getOrdersPage_ShouldWalkAllOrdersUsingCursor() throws Exception {
+        // Given
+        orderRepository.save(createTestOrder(TEST_USER_ID, OrderStatus.PENDING));
+        orderRepository.save(createTestOrder(TEST_USER_ID, OrderStatus.CONFIRMED));
+        orderRepository.save(createTestOrder(TEST_USER_ID, OrderStatus.SHIPPED));
+
+        // When & Then
+        MvcResult firstPage = mockMvc.perform(get("/api/orders/page")
+                        .header("X-User-Id", TEST_USER_ID)
+                        .param("size", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items", hasSize(2)))
+                .andExpect(jsonPath("$.nextCursor").isNotEmpty())
+                .andReturn();
+
+        String nextCursor = objectMapper.readTree(firstPage.getResponse().getContentAsString())
+                .get("nextCursor").asText();
+
+        mockMvc.perform(get("/api/orders/page")
+                        .header("X-User-Id", TEST_USER_ID)
+                        .param("size", "2")
+                        .param("cursor", nextCursor))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items", hasSize(1)))
+                .andExpect(jsonPath("$.nextCursor").doesNotExist());
+    }
+
+    @Test
+    void getOrdersPage_WithInvalidCursor_ShouldReturnBadRequest() throws Exception {
+        mockMvc.perform(get("/api/orders/page")
+                        .header("X-User-Id", TEST_USER_ID)
+                        .param("cursor", "not-a-cursor"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").exists());
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void exportOrders_ShouldStreamOrdersAsNdjson() throws Exception {
+        // Given
+        orderRepository.save(createTestOrder(TEST_USER_ID, OrderStatus.PENDING));
+        orderRepository.save(createTestOrder(TEST_USER_ID, OrderStatus.CANCELLED));
+        orderRepository.save(createTestOrder(2L, OrderStatus.PENDING));
+
+        // When
+        MvcResult result = mockMvc.perform(get("/api/orders/export")
+                        .header("X-User-Id", TEST_USER_ID))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        // Then
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-ndjson"));
+
+        String[] lines = result.getResponse().getContentAsString().strip().split("\n");
+        assertEquals(2, lines.length);
+        for (String line : lines) {
+            assertEquals(TEST_USER_ID.longValue(), objectMapper.readTree(line).get("createdById").asLong());
+        }
+    }
+
+    @Test
+    void createOrders_ShouldReturnPerItemResultsAndWriteOutboxEvents() throws Exception {
+        // Given
+        List<CreateOrderRequest> requests = List.of(
+                new CreateOrderRequest(TEST_CUSTOMER_ID, "First"),
+                new CreateOrderRequest(null, ""),
+                new CreateOrderRequest(TEST_CUSTOMER_ID, "Second")
+        );
+
+        // When & Then
+        mockMvc.perform(post("/api/orders/batch")
+                        .header("X-User-Id", TEST_USER_ID)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(requests)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(3)))
+                .andExpect(jsonPath("$[*].status", contains(201, 400, 201)))
+                .andExpect(jsonPath("$[0].order.id").exists())
+                .andExpect(jsonPath("$[0].order.createdById").value(TEST_USER_ID))
+                .andExpect(jsonPath("$[1].error").exists())
+                .andExpect(jsonPath("$[2].order.description").value("Second"));
+
+        assertEquals(2, orderRepository.count());
+        assertEquals(2, orderOutboxRepository.findAll().stream()
+                .filter(event -> "order-created".equals(event.getTopic()))
+                .count());
+    }
+
+    @Test
+    void createOrders_WhenTooManyItems_ShouldReturnBadRequest() throws Exception {
+        // Given
+        List<CreateOrderRequest> requests = Collections.nCopies(1001, new CreateOrderRequest(TEST_CUSTOMER_ID, TEST_DESCRIPTION));
+
+        // When & Then
+        mockMvc.perform(post("/api/orders/batch")
+                        .header("X-User-Id", TEST_USER_ID)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(requests)))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").exists());
+
+        assertEquals(0, orderRepository.count());
+    }
+
+    @Test
+    void updateOrderStatuses_ShouldReturnPerItemResults() throws Exception {
+        // Given
+        Order first = orderRepository.save(createTestOrder(TEST_USER_ID, OrderStatus.PENDING));
+        Order second = orderRepository.save(createTestOrder(TEST_USER_ID, OrderStatus.PENDING));
+        List<OrderStatusUpdate> updates = List.of(
+                new OrderStatusUpdate(first.getId(), OrderStatus.CONFIRMED),
+                new OrderStatusUpdate(999_999L, OrderStatus.CONFIRMED),
+                new OrderStatusUpdate(second.getId(), OrderStatus.CANCELLED)
+        );
+
+        // When & Then
+        mockMvc.perform(put("/api/orders/status/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(updates)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[*].status", contains(200, 404, 200)))
+                .andExpect(jsonPath("$[0].order.status").value("CONFIRMED"))
+                .andExpect(jsonPath("$[1].error").value("Order not found with id: 999999"))
+                .andExpect(jsonPath("$[2].order.status").value("CANCELLED"));
+
+        assertEquals(OrderStatus.CONFIRMED, orderRepository.findById(first.getId()).orElseThrow().getStatus());
+        assertEquals(OrderStatus.CANCELLED, orderRepository.findById(second.getId()).orElseThrow().getStatus());
+        assertEquals(2, orderOutboxRepository.findAll().stream()
+                .filter(event -> "order-status-changed".equals(event.getTopic()))
+                .count());
+    }
+
     private Order createTestOrder(Long userId, OrderStatus status) {
         Order order = new Order(userId, TEST_CUSTOMER_ID, TEST_DESCRIPTION);
         order.setStatus(status);
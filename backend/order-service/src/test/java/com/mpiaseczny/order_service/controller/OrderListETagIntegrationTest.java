@@ -0,0 +1,175 @@
+package com.mpiaseczny.order_service.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mpiaseczny.order_service.common.enums.OrderStatus;
+import com.mpiaseczny.order_service.dto.CreateOrderRequest;
+import com.mpiaseczny.order_service.entity.Order;
+import com.mpiaseczny.order_service.repository.OrderListVersionRepository;
+import com.mpiaseczny.order_service.repository.OrderOutboxRepository;
+import com.mpiaseczny.order_service.repository.OrderRepository;
+import com.mpiaseczny.order_service.service.OrderListCache;
+import com.mpiaseczny.order_service.service.OrderListVersions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.context.WebApplicationContext;
+
+import java.time.Instant;
+
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.not;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest(properties = "orders.cache.enabled=true")
+@ActiveProfiles("test")
+class OrderListETagIntegrationTest {
+
+    @Autowired
+    private WebApplicationContext webApplicationContext;
+
+    @MockitoSpyBean
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private OrderOutboxRepository orderOutboxRepository;
+
+    @Autowired
+    private OrderListCache orderListCache;
+
+    @Autowired
+    private OrderListVersions orderListVersions;
+
+    @Autowired
+    private OrderListVersionRepository orderListVersionRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @MockitoBean
+    private KafkaTemplate<String, Object> kafkaTemplate;
+
+    private MockMvc mockMvc;
+
+    private static final Long TEST_USER_ID = 1L;
+    private static final Long TEST_CUSTOMER_ID = 100L;
+    private static final String TEST_DESCRIPTION = "Test order description";
+
+    @BeforeEach
+    void setUp() {
+        mockMvc = MockMvcBuilders.webAppContextSetup(webApplicationContext).build();
+        orderRepository.deleteAll();
+        orderOutboxRepository.deleteAll();
+    }
+
+    @AfterEach
+    void tearDown() {
+        orderRepository.deleteAll();
+        orderOutboxRepository.deleteAll();
+        orderListVersionRepository.deleteAll();
+        orderListCache.invalidate(TEST_USER_ID);
+    }
+
+    @Test
+    void getOrders_WithCurrentETag_ShouldReturnNotModifiedUntilAnOrderChanges() throws Exception {
+        // Given
+        orderRepository.save(createTestOrder(OrderStatus.PENDING));
+        String etag = mockMvc.perform(get("/api/orders")
+                        .header("X-User-Id", TEST_USER_ID))
+                .andExpect(status().isOk())
+                .andExpect(header().exists(HttpHeaders.ETAG))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        // When & Then
+        mockMvc.perform(get("/api/orders")
+                        .header("X-User-Id", TEST_USER_ID)
+                        .header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, etag))
+                .andExpect(content().string(""));
+
+        mockMvc.perform(post("/api/orders")
+                        .header("X-User-Id", TEST_USER_ID)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(
+                                new CreateOrderRequest(TEST_CUSTOMER_ID, TEST_DESCRIPTION))))
+                .andExpect(status().isCreated());
+
+        mockMvc.perform(get("/api/orders")
+                        .header("X-User-Id", TEST_USER_ID)
+                        .header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, not(etag)))
+                .andExpect(jsonPath("$", hasSize(2)));
+    }
+
+    @Test
+    void getOrders_WithETagFromAnotherInstance_ShouldReturnNotModified() throws Exception {
+        // Given
+        orderRepository.save(createTestOrder(OrderStatus.PENDING));
+        String etag = mockMvc.perform(get("/api/orders")
+                        .header("X-User-Id", TEST_USER_ID))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        // Another instance has the same rows but has not cached them yet
+        orderListCache.invalidate(TEST_USER_ID);
+        clearInvocations(orderRepository);
+
+        // When & Then
+        mockMvc.perform(get("/api/orders")
+                        .header("X-User-Id", TEST_USER_ID)
+                        .header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+        verify(orderRepository, never()).findByCreatedByIdOrderByCreatedAtDesc(any());
+    }
+
+    @Test
+    void getOrders_AfterAWriteOnAnotherInstance_ShouldNotServeTheCachedList() throws Exception {
+        // Given
+        orderRepository.save(createTestOrder(OrderStatus.PENDING));
+        String etag = mockMvc.perform(get("/api/orders")
+                        .header("X-User-Id", TEST_USER_ID))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        // When
+        // Another instance creates an order; its cache invalidation has not arrived here
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            orderRepository.save(createTestOrder(OrderStatus.PENDING));
+            orderListVersions.bump(TEST_USER_ID);
+        });
+
+        // Then
+        mockMvc.perform(get("/api/orders")
+                        .header("X-User-Id", TEST_USER_ID)
+                        .header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, not(etag)))
+                .andExpect(jsonPath("$", hasSize(2)));
+    }
+
+    private Order createTestOrder(OrderStatus status) {
+        Order order = new Order(TEST_USER_ID, TEST_CUSTOMER_ID, TEST_DESCRIPTION);
+        order.setStatus(status);
+        order.setCreatedAt(Instant.now());
+        return order;
+    }
+}
@@ -0,0 +1,194 @@
+package com.mpiaseczny.order_service.controller;
+
+import com.mpiaseczny.order_service.dto.CreateOrderRequest;
+import com.mpiaseczny.order_service.repository.OrderOutboxRepository;
+import com.mpiaseczny.order_service.repository.OrderRepository;
+import com.mpiaseczny.order_service.service.OrderService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.core.env.Environment;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+/**
+ * Holds {@value #CLIENTS} concurrent HTTP clients against the running service, each sending its next request as soon
+ * as the previous one is answered, and prints throughput and latency percentiles. Nine in ten requests list a user's
+ * active orders, the rest create one; the list cache is off so every request does blocking JDBC. Not picked up by
+ * the default surefire includes. Compare the two execution modes with
+ * {@code mvn test -Dtest=OrderLoadBenchmark} and, on Java 21,
+ * {@code mvn test -Dtest=OrderLoadBenchmark -Dspring.profiles.active=virtual-threads}.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "logging.level.com.mpiaseczny=WARN",
+        "spring.cloud.consul.enabled=false",
+        "orders.cache.enabled=false",
+        "orders.outbox.relay.enabled=false"
+})
+class OrderLoadBenchmark {
+
+    private static final int CLIENTS = 5_000;
+
+    private static final int USERS = 500;
+
+    private static final int ORDERS_PER_USER = 20;
+
+    private static final Duration WARMUP = Duration.ofSeconds(10);
+
+    private static final Duration MEASUREMENT = Duration.ofSeconds(30);
+
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private OrderOutboxRepository orderOutboxRepository;
+
+    @Autowired
+    private Environment environment;
+
+    @MockitoBean
+    private KafkaTemplate<String, Object> kafkaTemplate;
+
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .build();
+
+    @Test
+    void throughputAndLatencyUnderConcurrentClients() throws Exception {
+        // Before Java 21 Boot silently keeps platform threads, which would pass off as a virtual-threads result
+        assertFalse(environment.matchesProfiles("virtual-threads") && !Threading.VIRTUAL.isActive(environment),
+                "The virtual-threads profile needs Java 21 or later, running on Java " + Runtime.version().feature());
+        seed();
+
+        Result warmup = run(WARMUP);
+        Result result = run(MEASUREMENT);
+
+        System.out.printf("mode: %s threads, java %s, %d clients%n",
+                Threading.VIRTUAL.isActive(environment) ? "virtual" : "platform",
+                Runtime.version().feature(), CLIENTS);
+        System.out.printf("%-8s %10s %8s %10s %8s %8s %8s%n", "phase", "requests", "errors", "req/sec", "p50 ms", "p99 ms", "max ms");
+        print("warmup", warmup, WARMUP);
+        print("measured", result, MEASUREMENT);
+    }
+
+    private void seed() {
+        orderOutboxRepository.deleteAllInBatch();
+        orderRepository.deleteAllInBatch();
+        for (long userId = 1; userId <= USERS; userId++) {
+            List<CreateOrderRequest> requests = new ArrayList<>(ORDERS_PER_USER);
+            for (int i = 0; i < ORDERS_PER_USER; i++) {
+                requests.add(new CreateOrderRequest(100L + i, "Load test order " + i));
+            }
+            orderService.createOrders(userId, requests);
+        }
+    }
+
+    private Result run(Duration duration) {
+        Result result = new Result();
+        long deadline = System.nanoTime() + duration.toNanos();
+
+        List<CompletableFuture<Void>> clients = new ArrayList<>(CLIENTS);
+        for (int client = 0; client < CLIENTS; client++) {
+            clients.add(loop(client, 0, deadline, result));
+        }
+        CompletableFuture.allOf(clients.toArray(CompletableFuture[]::new)).join();
+        return result;
+    }
+
+    // Each client is a chain of requests, so 5k clients need no 5k client threads
+    private CompletableFuture<Void> loop(int client, int sequence, long deadline, Result result) {
+        if (System.nanoTime() >= deadline) {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        long start = System.nanoTime();
+        return httpClient.sendAsync(request(client, sequence), HttpResponse.BodyHandlers.discarding())
+                .handle((response, failure) -> {
+                    result.record(System.nanoTime() - start, failure == null && response.statusCode() < 300);
+                    return null;
+                })
+                .thenCompose(ignored -> loop(client, sequence + 1, deadline, result));
+    }
+
+    private HttpRequest request(int client, int sequence) {
+        long userId = 1 + (client + sequence) % USERS;
+        HttpRequest.Builder builder = HttpRequest.newBuilder()
+                .timeout(REQUEST_TIMEOUT)
+                .header("X-User-Id", Long.toString(userId));
+
+        if ((client + sequence) % 10 == 0) {
+            return builder.uri(URI.create("http://localhost:" + port + "/api/orders"))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(
+                            "{\"customerId\":" + (100 + sequence % 50) + ",\"description\":\"Load test order\"}"))
+                    .build();
+        }
+        return builder.uri(URI.create("http://localhost:" + port + "/api/orders?activeOnly=true"))
+                .GET()
+                .build();
+    }
+
+    private static void print(String phase, Result result, Duration duration) {
+        long[] latencies = result.sortedLatencies();
+        System.out.printf("%-8s %10d %8d %10.0f %8.1f %8.1f %8.1f%n",
+                phase,
+                latencies.length,
+                result.errors.get(),
+                latencies.length / (double) duration.toSeconds(),
+                percentile(latencies, 0.50),
+                percentile(latencies, 0.99),
+                latencies.length == 0 ? 0.0 : latencies[latencies.length - 1] / 1_000_000.0);
+    }
+
+    private static double percentile(long[] sorted, double percentile) {
+        if (sorted.length == 0) {
+            return 0.0;
+        }
+        int index = (int) Math.ceil(percentile * sorted.length) - 1;
+        return sorted[Math.max(index, 0)] / 1_000_000.0;
+    }
+
+    private static class Result {
+
+        private final ConcurrentLinkedQueue<Long> latencies = new ConcurrentLinkedQueue<>();
+
+        private final AtomicLong errors = new AtomicLong();
+
+        void record(long latencyNanos, boolean success) {
+            latencies.add(latencyNanos);
+            if (!success) {
+                errors.incrementAndGet();
+            }
+        }
+
+        long[] sortedLatencies() {
+            long[] sorted = latencies.stream().mapToLong(Long::longValue).toArray();
+            Arrays.sort(sorted);
+            return sorted;
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.mpiaseczny.order_service.listener;
+
+import com.mpiaseczny.order_service.common.enums.OrderStatus;
+import com.mpiaseczny.order_service.dto.OrderStatusChangedEvent;
+import com.mpiaseczny.order_service.dto.OrderSummary;
+import com.mpiaseczny.order_service.service.OrderListCache;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.listener.MessageListenerContainer;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+import org.springframework.kafka.test.utils.ContainerTestUtils;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+
+@SpringBootTest(properties = {
+        "spring.kafka.bootstrap-servers=${spring.embedded.kafka.brokers}",
+        "orders.cache.enabled=true",
+        "orders.cache.kafka-invalidation.enabled=true"
+})
+@ActiveProfiles("test")
+@EmbeddedKafka(partitions = 1, topics = {"order-created", "order-status-changed"})
+class OrderCacheInvalidationListenerTest {
+
+    @Autowired
+    private OrderListCache orderListCache;
+
+    @Autowired
+    private KafkaTemplate<String, Object> kafkaTemplate;
+
+    @Autowired
+    private KafkaListenerEndpointRegistry kafkaListenerEndpointRegistry;
+
+    @Autowired
+    private EmbeddedKafkaBroker embeddedKafka;
+
+    @Test
+    void statusChangeFromAnotherInstance_ShouldInvalidateTheOwnersLists() throws Exception {
+        // Given
+        for (MessageListenerContainer container : kafkaListenerEndpointRegistry.getListenerContainers()) {
+            ContainerTestUtils.waitForAssignment(container, 2 * embeddedKafka.getPartitionsPerTopic());
+        }
+        AtomicInteger loads = new AtomicInteger();
+        Supplier<List<OrderSummary>> loader = () -> {
+            loads.incrementAndGet();
+            return List.of(mock(OrderSummary.class));
+        };
+        orderListCache.get(7L, true, 0L, loader);
+        orderListCache.get(8L, true, 0L, loader);
+
+        // When
+        kafkaTemplate.send("order-status-changed", "1",
+                new OrderStatusChangedEvent(1L, OrderStatus.PENDING, OrderStatus.CONFIRMED, 7L, Instant.now())).get();
+
+        // Then
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        while (loads.get() == 2 && System.nanoTime() < deadline) {
+            orderListCache.get(7L, true, 0L, loader);
+            TimeUnit.MILLISECONDS.sleep(50);
+        }
+        assertEquals(3, loads.get());
+        orderListCache.get(8L, true, 0L, loader);
+        assertEquals(3, loads.get());
+    }
+}
@@ -0,0 +1,131 @@
+package com.mpiaseczny.order_service.repository;
+
+import com.mpiaseczny.order_service.common.enums.OrderStatus;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Fills {@code orders} with a million rows spread over {@code USERS} users and prints the latency of both per-user
+ * list queries, first through the composite indexes of V1__create_orders.sql and then, with the indexes dropped, as
+ * full scans. The indexes are recreated afterwards. Not picked up by the default surefire includes; run with
+ * {@code mvn test -Dtest=OrderListingIndexBenchmark}.
+ */
+@SpringBootTest(properties = "logging.level.com.mpiaseczny=WARN")
+@ActiveProfiles("test")
+class OrderListingIndexBenchmark {
+
+    private static final int ROWS = 1_000_000;
+
+    private static final int USERS = 10_000;
+
+    private static final int INDEXED_QUERIES = 5_000;
+
+    private static final int SCAN_QUERIES = 50;
+
+    private static final List<OrderStatus> ACTIVE_STATUSES =
+            List.of(OrderStatus.PENDING, OrderStatus.CONFIRMED, OrderStatus.PROCESSING, OrderStatus.SHIPPED);
+
+    private static final String STATUS_INDEX = "idx_orders_created_by_status_created_at";
+
+    private static final String CREATED_AT_INDEX = "idx_orders_created_by_created_at";
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private OrderOutboxRepository orderOutboxRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @MockitoBean
+    private KafkaTemplate<String, Object> kafkaTemplate;
+
+    @Test
+    void indexedVersusFullScanListing() {
+        clear();
+        // Every user gets ROWS / USERS orders, cycling through all six statuses
+        jdbcTemplate.update("""
+                insert into orders (id, created_at, status, created_by_id, customer_id, description, version)
+                select x, dateadd('SECOND', x, timestamp with time zone '2024-01-01 00:00:00+00'),
+                       array_get(array['PENDING', 'CONFIRMED', 'PROCESSING', 'SHIPPED', 'DELIVERED', 'CANCELLED'],
+                                 cast(mod(x / ?, 6) + 1 as int)),
+                       mod(x, ?) + 1, 100, 'Order ' || x, 0
+                from system_range(1, ?)""", USERS, USERS, ROWS);
+        assertEquals(ROWS, orderRepository.count());
+
+        try {
+            measure(INDEXED_QUERIES / 5);
+            double[] indexed = measure(INDEXED_QUERIES);
+            assertTrue(explain().contains(STATUS_INDEX.toUpperCase()));
+
+            jdbcTemplate.execute("drop index " + STATUS_INDEX);
+            jdbcTemplate.execute("drop index " + CREATED_AT_INDEX);
+            double[] scan = measure(SCAN_QUERIES);
+            assertFalse(explain().contains(STATUS_INDEX.toUpperCase()));
+
+            System.out.printf("%-8s %8s %16s %16s%n", "plan", "queries", "active ms/query", "all ms/query");
+            System.out.printf("%-8s %8d %16.3f %16.3f%n", "index", INDEXED_QUERIES, indexed[0], indexed[1]);
+            System.out.printf("%-8s %8d %16.3f %16.3f%n", "scan", SCAN_QUERIES, scan[0], scan[1]);
+        } finally {
+            jdbcTemplate.execute("create index if not exists " + STATUS_INDEX
+                    + " on orders (created_by_id, status, created_at)");
+            jdbcTemplate.execute("create index if not exists " + CREATED_AT_INDEX
+                    + " on orders (created_by_id, created_at)");
+            clear();
+        }
+    }
+
+    /**
+     * Average milliseconds per query of the active-orders list and of the full list, each for random users.
+     */
+    private double[] measure(int queries) {
+        int rows = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < queries; i++) {
+            rows += orderRepository.findByCreatedByIdAndStatusInOrderByCreatedAtDesc(randomUser(), ACTIVE_STATUSES)
+                    .size();
+        }
+        double active = millis(start) / queries;
+
+        start = System.nanoTime();
+        for (int i = 0; i < queries; i++) {
+            rows += orderRepository.findByCreatedByIdOrderByCreatedAtDesc(randomUser()).size();
+        }
+        double all = millis(start) / queries;
+
+        assertTrue(rows > 0);
+        return new double[]{active, all};
+    }
+
+    private String explain() {
+        return String.join("\n", jdbcTemplate.queryForList(
+                "explain select * from orders where created_by_id = 1 and status in ('PENDING', 'CONFIRMED')"
+                        + " order by created_at desc", String.class));
+    }
+
+    private void clear() {
+        orderOutboxRepository.deleteAllInBatch();
+        orderRepository.deleteAllInBatch();
+    }
+
+    private static long randomUser() {
+        return ThreadLocalRandom.current().nextLong(1, USERS + 1);
+    }
+
+    private static double millis(long start) {
+        return (System.nanoTime() - start) / 1_000_000.0;
+    }
+}
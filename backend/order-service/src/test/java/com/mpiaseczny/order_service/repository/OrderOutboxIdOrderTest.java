@@ -0,0 +1,99 @@
+package com.mpiaseczny.order_service.repository;
+
+import com.mpiaseczny.order_service.entity.OrderOutboxEvent;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.boot.model.naming.CamelCaseToUnderscoresNamingStrategy;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Limit;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Writes the changes of one order alternately through the application's persistence unit and a second one on the
+ * same database, standing in for another order-service instance with its own id generator.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class OrderOutboxIdOrderTest {
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private OrderOutboxRepository orderOutboxRepository;
+
+    @MockitoBean
+    private KafkaTemplate<String, Object> kafkaTemplate;
+
+    private EntityManagerFactory otherInstance;
+
+    @BeforeEach
+    void setUp() {
+        LocalContainerEntityManagerFactoryBean factoryBean = new LocalContainerEntityManagerFactoryBean();
+        factoryBean.setDataSource(dataSource);
+        factoryBean.setPackagesToScan("com.mpiaseczny.order_service.entity");
+        factoryBean.setJpaVendorAdapter(new HibernateJpaVendorAdapter());
+        // Spring Boot's column naming, which a plain factory does not apply
+        factoryBean.setJpaPropertyMap(Map.of(
+                "hibernate.hbm2ddl.auto", "none",
+                "hibernate.physical_naming_strategy", CamelCaseToUnderscoresNamingStrategy.class.getName()
+        ));
+        factoryBean.setPersistenceUnitName("other-instance");
+        factoryBean.afterPropertiesSet();
+        otherInstance = factoryBean.getObject();
+    }
+
+    @AfterEach
+    void tearDown() {
+        otherInstance.close();
+        orderOutboxRepository.deleteAll();
+    }
+
+    @Test
+    void outboxIds_ShouldFollowCommitOrderAcrossInstances() {
+        // Given
+        List<String> committed = new ArrayList<>();
+
+        // When
+        for (int change = 0; change < 6; change++) {
+            EntityManagerFactory instance = change % 2 == 0 ? entityManagerFactory : otherInstance;
+            committed.add(write(instance, "change-" + change));
+        }
+
+        // Then
+        List<String> drained = orderOutboxRepository.findAllByOrderByIdAsc(Limit.of(10)).stream()
+                .map(OrderOutboxEvent::getPayload)
+                .toList();
+        assertEquals(committed, drained);
+    }
+
+    private static String write(EntityManagerFactory instance, String payload) {
+        EntityManager entityManager = instance.createEntityManager();
+        try {
+            entityManager.getTransaction().begin();
+            entityManager.persist(new OrderOutboxEvent(1L, "order-status-changed", "orderStatusChanged", payload));
+            entityManager.getTransaction().commit();
+        } finally {
+            entityManager.close();
+        }
+        return payload;
+    }
+}
@@ -0,0 +1,76 @@
+package com.mpiaseczny.order_service.repository;
+
+import com.mpiaseczny.order_service.common.enums.OrderStatus;
+import com.mpiaseczny.order_service.dto.OrderSummary;
+import com.mpiaseczny.order_service.entity.Order;
+import org.hibernate.Session;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@ActiveProfiles("test")
+class OrderRepositoryTest {
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void activeOrdersQuery_ShouldUseCreatedByStatusCreatedAtIndex() {
+        // When
+        String plan = explain("select * from orders where created_by_id = 1 and status in ('PENDING', 'CONFIRMED') order by created_at desc");
+
+        // Then
+        assertTrue(plan.contains("IDX_ORDERS_CREATED_BY_STATUS_CREATED_AT"), plan);
+    }
+
+    @Test
+    void allOrdersQuery_ShouldUseCreatedByCreatedAtIndex() {
+        // When
+        String plan = explain("select * from orders where created_by_id = 1 order by created_at desc");
+
+        // Then
+        assertTrue(plan.contains("IDX_ORDERS_CREATED_BY_CREATED_AT"), plan);
+    }
+
+    @Test
+    void findByCreatedByIdAndStatusIn_ShouldReturnProjectionsWithoutManagingEntities() {
+        // Given
+        Order pending = entityManager.persist(new Order(1L, 100L, "Pending order"));
+        Order cancelled = new Order(1L, 100L, "Cancelled order");
+        cancelled.setStatus(OrderStatus.CANCELLED);
+        entityManager.persist(cancelled);
+        entityManager.flush();
+        entityManager.clear();
+
+        // When
+        List<OrderSummary> summaries = orderRepository.findByCreatedByIdAndStatusInOrderByCreatedAtDesc(
+                1L, List.of(OrderStatus.PENDING, OrderStatus.CONFIRMED));
+
+        // Then
+        assertEquals(1, summaries.size());
+        OrderSummary summary = summaries.get(0);
+        assertEquals(pending.getId(), summary.getId());
+        assertEquals(OrderStatus.PENDING, summary.getStatus());
+        assertEquals("Pending order", summary.getDescription());
+        assertFalse(summary instanceof Order);
+        assertEquals(0, entityManager.getEntityManager().unwrap(Session.class).getStatistics().getEntityCount());
+    }
+
+    private String explain(String sql) {
+        return String.join("\n", jdbcTemplate.queryForList("explain " + sql, String.class));
+    }
+}
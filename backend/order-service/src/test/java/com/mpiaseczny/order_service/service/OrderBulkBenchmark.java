@@ -0,0 +1,133 @@
+package com.mpiaseczny.order_service.service;
+
+import com.mpiaseczny.order_service.common.enums.OrderStatus;
+import com.mpiaseczny.order_service.dto.BulkItemResult;
+import com.mpiaseczny.order_service.dto.CreateOrderRequest;
+import com.mpiaseczny.order_service.dto.OrderStatusUpdate;
+import com.mpiaseczny.order_service.entity.Order;
+import com.mpiaseczny.order_service.repository.OrderOutboxRepository;
+import com.mpiaseczny.order_service.repository.OrderRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Creates orders and then changes their status, once one item per call and once through the bulk methods, and
+ * prints items/sec for each path. Both paths write the same outbox rows; the relay is disabled. Not picked up by
+ * the default surefire includes; run with {@code mvn test -Dtest=OrderBulkBenchmark}.
+ */
+@SpringBootTest(properties = "logging.level.com.mpiaseczny=WARN")
+@ActiveProfiles("test")
+class OrderBulkBenchmark {
+
+    private static final int WARMUP_ORDERS = 5_000;
+
+    private static final int MEASURED_ORDERS = 20_000;
+
+    private static final int BULK_SIZE = 500;
+
+    private static final Long USER_ID = 1L;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private OrderOutboxRepository orderOutboxRepository;
+
+    @MockitoBean
+    private KafkaTemplate<String, Object> kafkaTemplate;
+
+    @Test
+    void singleItemVersusBulkThroughput() {
+        run(WARMUP_ORDERS);
+
+        double[] single = measureSingleItem(MEASURED_ORDERS);
+        double[] bulk = measureBulk(MEASURED_ORDERS);
+
+        System.out.printf("%-8s %12s %12s%n", "path", "creates/sec", "updates/sec");
+        System.out.printf("%-8s %,12.0f %,12.0f%n", "single", single[0], single[1]);
+        System.out.printf("%-8s %,12.0f %,12.0f%n", "bulk", bulk[0], bulk[1]);
+    }
+
+    private void run(int orders) {
+        measureSingleItem(orders);
+        measureBulk(orders);
+    }
+
+    private double[] measureSingleItem(int orders) {
+        clear();
+        List<Long> orderIds = new ArrayList<>(orders);
+
+        long start = System.nanoTime();
+        for (int i = 0; i < orders; i++) {
+            orderIds.add(orderService.createOrder(USER_ID, request(i)).getId());
+        }
+        double creates = orders / seconds(start);
+
+        start = System.nanoTime();
+        for (Long orderId : orderIds) {
+            orderService.updateOrderStatus(orderId, OrderStatus.CONFIRMED);
+        }
+        double updates = orders / seconds(start);
+
+        assertEquals(orders * 2L, orderOutboxRepository.count());
+        return new double[]{creates, updates};
+    }
+
+    private double[] measureBulk(int orders) {
+        clear();
+        List<Long> orderIds = new ArrayList<>(orders);
+
+        long start = System.nanoTime();
+        for (int from = 0; from < orders; from += BULK_SIZE) {
+            List<CreateOrderRequest> requests = new ArrayList<>(BULK_SIZE);
+            for (int i = from; i < Math.min(from + BULK_SIZE, orders); i++) {
+                requests.add(request(i));
+            }
+            for (BulkItemResult result : orderService.createOrders(USER_ID, requests)) {
+                orderIds.add(result.getOrder().getId());
+            }
+        }
+        double creates = orders / seconds(start);
+
+        start = System.nanoTime();
+        for (int from = 0; from < orders; from += BULK_SIZE) {
+            List<OrderStatusUpdate> updates = new ArrayList<>(BULK_SIZE);
+            for (Long orderId : orderIds.subList(from, Math.min(from + BULK_SIZE, orders))) {
+                updates.add(new OrderStatusUpdate(orderId, OrderStatus.CONFIRMED));
+            }
+            orderService.updateOrderStatuses(updates);
+        }
+        double updates = orders / seconds(start);
+
+        assertEquals(orders * 2L, orderOutboxRepository.count());
+        assertEquals(orders, orderRepository.findAll().stream().map(Order::getStatus)
+                .filter(OrderStatus.CONFIRMED::equals)
+                .count());
+        return new double[]{creates, updates};
+    }
+
+    private void clear() {
+        orderOutboxRepository.deleteAllInBatch();
+        orderRepository.deleteAllInBatch();
+    }
+
+    private static CreateOrderRequest request(int i) {
+        return new CreateOrderRequest(100L + i % 50, "Imported order " + i);
+    }
+
+    private static double seconds(long start) {
+        return (System.nanoTime() - start) / 1_000_000_000.0;
+    }
+}
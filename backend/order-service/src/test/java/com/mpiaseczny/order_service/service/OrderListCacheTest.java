@@ -0,0 +1,140 @@
+package com.mpiaseczny.order_service.service;
+
+import com.mpiaseczny.order_service.dto.OrderList;
+import com.mpiaseczny.order_service.dto.OrderSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.Mockito.mock;
+
+class OrderListCacheTest {
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final AtomicInteger loads = new AtomicInteger();
+
+    private final List<OrderSummary> orders = List.of(mock(OrderSummary.class));
+
+    private OrderListCache orderListCache;
+
+    @BeforeEach
+    void setUp() {
+        orderListCache = new OrderListCache();
+        ReflectionTestUtils.setField(orderListCache, "meterRegistry", meterRegistry);
+        orderListCache.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void get_ShouldLoadEachListOncePerUser() {
+        // When
+        orderListCache.get(1L, false, 0L, loader());
+        orderListCache.get(1L, false, 0L, loader());
+        orderListCache.get(1L, true, 0L, loader());
+        List<OrderSummary> result = orderListCache.get(2L, false, 0L, loader());
+
+        // Then
+        assertEquals(orders, result);
+        assertEquals(3, loads.get());
+        assertEquals(1.0, meterRegistry.get("cache.gets").tag("cache", "orders.lists").tag("result", "hit")
+                .functionCounter().count());
+    }
+
+    @Test
+    void getWithETag_ShouldReloadACachedListOnceANewerVersionIsRead() {
+        // Given
+        OrderList cached = orderListCache.getWithETag(1L, false, 3L, loader());
+
+        // When
+        OrderList sameVersion = orderListCache.getWithETag(1L, false, 3L, loader());
+        OrderList olderVersion = orderListCache.getWithETag(1L, false, 2L, loader());
+        // Another instance changed the user's orders and its invalidation has not arrived
+        OrderList newerVersion = orderListCache.getWithETag(1L, false, 4L, loader());
+
+        // Then
+        assertEquals(2, loads.get());
+        assertSame(cached, sameVersion);
+        assertSame(cached, olderVersion);
+        assertEquals(4L, newerVersion.getVersion());
+        assertEquals(OrderList.etag(1L, false, 4L), newerVersion.getEtag());
+        assertNotEquals(cached.getEtag(), newerVersion.getEtag());
+        assertNotEquals(cached.getEtag(), orderListCache.getWithETag(1L, true, 3L, loader()).getEtag());
+    }
+
+    @Test
+    void invalidate_ShouldDropBothListsOfTheUserOnly() {
+        // Given
+        orderListCache.get(1L, false, 0L, loader());
+        orderListCache.get(1L, true, 0L, loader());
+        orderListCache.get(2L, false, 0L, loader());
+
+        // When
+        orderListCache.invalidate(1L);
+        orderListCache.get(1L, false, 0L, loader());
+        orderListCache.get(1L, true, 0L, loader());
+        orderListCache.get(2L, false, 0L, loader());
+
+        // Then
+        assertEquals(5, loads.get());
+    }
+
+    @Test
+    void invalidateAfterCommit_ShouldKeepListsUntilTheTransactionCommits() {
+        // Given
+        orderListCache.get(1L, false, 0L, loader());
+        TransactionSynchronizationManager.initSynchronization();
+
+        // When
+        orderListCache.invalidateAfterCommit(1L);
+        orderListCache.get(1L, false, 0L, loader());
+
+        // Then
+        assertEquals(1, loads.get());
+
+        // When
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        orderListCache.get(1L, false, 0L, loader());
+
+        // Then
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void get_WhenDisabled_ShouldAlwaysLoad() {
+        // Given
+        ReflectionTestUtils.setField(orderListCache, "enabled", false);
+
+        // When
+        orderListCache.get(1L, false, 0L, loader());
+        orderListCache.get(1L, false, 0L, loader());
+
+        // Then
+        assertEquals(2, loads.get());
+    }
+
+    private Supplier<List<OrderSummary>> loader() {
+        return () -> {
+            loads.incrementAndGet();
+            return orders;
+        };
+    }
+}
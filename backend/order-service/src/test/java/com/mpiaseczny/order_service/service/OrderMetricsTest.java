@@ -0,0 +1,86 @@
+package com.mpiaseczny.order_service.service;
+
+import com.mpiaseczny.order_service.jfr.OrderCreated;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OrderMetricsTest {
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final OrderMetrics orderMetrics = new OrderMetrics(meterRegistry);
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void time_WithoutTransaction_ShouldRecordOutcomeRightAway() {
+        // When
+        String result = orderMetrics.time("create", () -> "order");
+        assertThrows(IllegalStateException.class, () -> orderMetrics.time("create", () -> {
+            throw new IllegalStateException("failed");
+        }));
+
+        // Then
+        assertEquals("order", result);
+        assertEquals(1, count("create", "success"));
+        assertEquals(1, count("create", "failure"));
+    }
+
+    @Test
+    void time_InTransaction_ShouldRecordWhenTheTransactionCompletes() {
+        // Given
+        TransactionSynchronizationManager.initSynchronization();
+
+        // When
+        orderMetrics.time("update_status", () -> "order");
+
+        // Then
+        assertNull(meterRegistry.find("orders.operation").timer());
+
+        TransactionSynchronizationManager.getSynchronizations()
+                .forEach(synchronization -> synchronization.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+        assertEquals(1, count("update_status", "failure"));
+    }
+
+    @Test
+    void time_WithFlightEvent_ShouldCommitItWithTheTimerOutcome() {
+        // Given
+        OrderCreated committed = new OrderCreated();
+        OrderCreated rolledBack = new OrderCreated();
+        TransactionSynchronizationManager.initSynchronization();
+
+        // When
+        orderMetrics.time("create", committed, () -> "order");
+        orderMetrics.time("create", rolledBack, () -> "order");
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        synchronizations.get(0).afterCompletion(TransactionSynchronization.STATUS_COMMITTED);
+        synchronizations.get(1).afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK);
+
+        // Then
+        assertTrue(committed.succeeded);
+        assertFalse(rolledBack.succeeded);
+        assertEquals(1, count("create", "success"));
+        assertEquals(1, count("create", "failure"));
+    }
+
+    private long count(String operation, String outcome) {
+        return meterRegistry.get("orders.operation").tag("operation", operation).tag("outcome", outcome).timer().count();
+    }
+}
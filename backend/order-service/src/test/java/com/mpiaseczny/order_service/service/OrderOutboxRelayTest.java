@@ -0,0 +1,167 @@
+package com.mpiaseczny.order_service.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.mpiaseczny.order_service.common.enums.OrderStatus;
+import com.mpiaseczny.order_service.dto.OrderStatusChangedEvent;
+import com.mpiaseczny.order_service.entity.OrderOutboxDeadLetter;
+import com.mpiaseczny.order_service.entity.OrderOutboxEvent;
+import com.mpiaseczny.order_service.repository.OrderOutboxDeadLetterRepository;
+import com.mpiaseczny.order_service.repository.OrderOutboxRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class OrderOutboxRelayTest {
+
+    @Mock
+    private OrderOutboxRepository orderOutboxRepository;
+
+    @Mock
+    private OrderOutboxDeadLetterRepository orderOutboxDeadLetterRepository;
+
+    @Mock
+    private KafkaTemplate<String, Object> kafkaTemplate;
+
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+
+    @Spy
+    private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @InjectMocks
+    private OrderOutboxRelay orderOutboxRelay;
+
+    @BeforeEach
+    void setUp() {
+        orderOutboxRelay.registerMeters();
+    }
+
+    @Test
+    void relayBatch_ShouldPublishTypedEventsAndDeleteAcknowledgedRows() throws Exception {
+        // Given
+        OrderOutboxEvent outboxEvent = createOutboxEvent(1L);
+        when(orderOutboxRepository.findAllByOrderByIdAsc(any(Limit.class))).thenReturn(List.of(outboxEvent));
+        when(kafkaTemplate.send(any(ProducerRecord.class))).thenReturn(CompletableFuture.completedFuture(mock(SendResult.class)));
+
+        // When
+        int processed = orderOutboxRelay.relayBatch();
+
+        // Then
+        assertEquals(1, processed);
+
+        ArgumentCaptor<ProducerRecord<String, Object>> recordCaptor = ArgumentCaptor.forClass(ProducerRecord.class);
+        verify(kafkaTemplate).send(recordCaptor.capture());
+        ProducerRecord<String, Object> record = recordCaptor.getValue();
+        assertEquals("order-status-changed", record.topic());
+        assertEquals("10", record.key());
+        OrderStatusChangedEvent event = assertInstanceOf(OrderStatusChangedEvent.class, record.value());
+        assertEquals(OrderStatus.CONFIRMED, event.getNewStatus());
+        assertEquals(1L, event.getCreatedById());
+        assertEquals(outboxEvent.getEventId(),
+                new String(record.headers().lastHeader(OrderOutboxRelay.EVENT_ID_HEADER).value(), StandardCharsets.UTF_8));
+        assertEquals("request-1",
+                new String(record.headers().lastHeader(OrderOutboxRelay.CORRELATION_ID_HEADER).value(), StandardCharsets.UTF_8));
+        assertEquals(Long.toString(outboxEvent.getCreatedAt().toEpochMilli()),
+                new String(record.headers().lastHeader(OrderOutboxRelay.PRODUCED_AT_HEADER).value(), StandardCharsets.UTF_8));
+        assertNull(record.headers().lastHeader(OrderOutboxRelay.TRACE_PARENT_HEADER));
+
+        verify(orderOutboxRepository).deleteAllByIdInBatch(List.of(1L));
+        assertEquals(1.0, meterRegistry.counter("orders.outbox.published").count());
+    }
+
+    @Test
+    void relayBatch_WhenSendFails_ShouldKeepFailedEventAndEverythingAfterIt() throws Exception {
+        // Given
+        List<OrderOutboxEvent> batch = List.of(createOutboxEvent(1L), createOutboxEvent(2L), createOutboxEvent(3L));
+        when(orderOutboxRepository.findAllByOrderByIdAsc(any(Limit.class))).thenReturn(batch);
+        when(kafkaTemplate.send(any(ProducerRecord.class)))
+                .thenReturn(CompletableFuture.completedFuture(mock(SendResult.class)))
+                .thenReturn(CompletableFuture.failedFuture(new RuntimeException("broker unavailable")))
+                .thenReturn(CompletableFuture.completedFuture(mock(SendResult.class)));
+
+        // When
+        int processed = orderOutboxRelay.relayBatch();
+
+        // Then
+        assertEquals(1, processed);
+        verify(orderOutboxRepository).deleteAllByIdInBatch(List.of(1L));
+        assertEquals(1.0, meterRegistry.counter("orders.outbox.failed").count());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void relayBatch_WithUnreadablePayload_ShouldMoveItToTheDeadLetterTable() throws Exception {
+        // Given
+        OrderOutboxEvent unreadable = createOutboxEvent(1L);
+        unreadable.setPayload("{not json");
+        List<OrderOutboxEvent> batch = List.of(unreadable, createOutboxEvent(2L));
+        when(orderOutboxRepository.findAllByOrderByIdAsc(any(Limit.class))).thenReturn(batch);
+        when(kafkaTemplate.send(any(ProducerRecord.class))).thenReturn(CompletableFuture.completedFuture(mock(SendResult.class)));
+
+        // When
+        int processed = orderOutboxRelay.relayBatch();
+
+        // Then
+        assertEquals(2, processed);
+        verify(kafkaTemplate, times(1)).send(any(ProducerRecord.class));
+        ArgumentCaptor<List<OrderOutboxDeadLetter>> deadLetters = ArgumentCaptor.forClass(List.class);
+        verify(orderOutboxDeadLetterRepository).saveAll(deadLetters.capture());
+        OrderOutboxDeadLetter deadLetter = deadLetters.getValue().get(0);
+        assertEquals(1, deadLetters.getValue().size());
+        assertEquals(1L, deadLetter.getId());
+        assertEquals(unreadable.getEventId(), deadLetter.getEventId());
+        assertEquals("{not json", deadLetter.getPayload());
+        assertNotNull(deadLetter.getError());
+        verify(orderOutboxRepository).deleteAllByIdInBatch(List.of(1L, 2L));
+    }
+
+    @Test
+    void relayBatch_WhenOutboxEmpty_ShouldNotTouchKafka() {
+        // Given
+        when(orderOutboxRepository.findAllByOrderByIdAsc(any(Limit.class))).thenReturn(List.of());
+
+        // When
+        int processed = orderOutboxRelay.relayBatch();
+
+        // Then
+        assertEquals(0, processed);
+        verifyNoInteractions(kafkaTemplate);
+        verify(orderOutboxRepository, never()).deleteAllByIdInBatch(any());
+    }
+
+    private OrderOutboxEvent createOutboxEvent(Long id) throws Exception {
+        OrderStatusChangedEvent event = new OrderStatusChangedEvent(10L, OrderStatus.PENDING, OrderStatus.CONFIRMED, 1L, Instant.now());
+        OrderOutboxEvent outboxEvent = new OrderOutboxEvent(
+                event.getOrderId(),
+                "order-status-changed",
+                OrderStatusChangedEvent.class.getName(),
+                objectMapper.writeValueAsString(event)
+        );
+        outboxEvent.setId(id);
+        outboxEvent.setCreatedAt(Instant.now());
+        outboxEvent.setCorrelationId("request-" + id);
+        return outboxEvent;
+    }
+}
@@ -0,0 +1,109 @@
+package com.mpiaseczny.order_service.service;
+
+import com.mpiaseczny.order_service.dto.CreateOrderRequest;
+import com.mpiaseczny.order_service.repository.OrderOutboxRepository;
+import com.mpiaseczny.order_service.repository.OrderRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.IntConsumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Measures the create and list paths against the datasource of the active profile, from several threads so the
+ * connection pool is exercised, and prints operations/sec for each. Runs without the test profile so it sees the
+ * same JPA and pool settings as the application; the list cache and the outbox relay are disabled. Not picked up
+ * by the default surefire includes; run with {@code mvn test -Dtest=OrderPersistenceBenchmark}, adding
+ * {@code -Dspring.profiles.active=h2-file} to measure the file-based stand-in for the production database.
+ */
+@SpringBootTest(properties = {
+        "logging.level.com.mpiaseczny=WARN",
+        "spring.cloud.consul.enabled=false",
+        "orders.cache.enabled=false",
+        "orders.outbox.relay.enabled=false"
+})
+class OrderPersistenceBenchmark {
+
+    private static final int THREADS = 8;
+
+    private static final int USERS = 100;
+
+    private static final int WARMUP_ORDERS = 5_000;
+
+    private static final int MEASURED_ORDERS = 20_000;
+
+    private static final int MEASURED_LISTS = 5_000;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private OrderOutboxRepository orderOutboxRepository;
+
+    @MockitoBean
+    private KafkaTemplate<String, Object> kafkaTemplate;
+
+    @Test
+    void createAndListThroughput() throws Exception {
+        clear();
+        measure(WARMUP_ORDERS, this::create);
+        measure(WARMUP_ORDERS, this::list);
+        clear();
+
+        double creates = measure(MEASURED_ORDERS, this::create);
+        assertEquals(MEASURED_ORDERS, orderRepository.count());
+        double lists = measure(MEASURED_LISTS, this::list);
+
+        System.out.printf("%-8s %12s%n", "path", "ops/sec");
+        System.out.printf("%-8s %,12.0f%n", "create", creates);
+        System.out.printf("%-8s %,12.0f%n", "list", lists);
+    }
+
+    private void create(int i) {
+        orderService.createOrder(1L + i % USERS, new CreateOrderRequest(100L + i % 50, "Benchmark order " + i));
+    }
+
+    // Every user holds MEASURED_ORDERS / USERS orders once the create phase is done
+    private void list(int i) {
+        orderService.getOrders(1L + i % USERS, i % 2 == 0);
+    }
+
+    private double measure(int operations, IntConsumer operation) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<?>> workers = new ArrayList<>(THREADS);
+            long start = System.nanoTime();
+            for (int t = 0; t < THREADS; t++) {
+                int thread = t;
+                workers.add(executor.submit(() -> {
+                    for (int i = thread; i < operations; i += THREADS) {
+                        operation.accept(i);
+                    }
+                }));
+            }
+            for (Future<?> worker : workers) {
+                worker.get();
+            }
+            return operations / ((System.nanoTime() - start) / 1_000_000_000.0);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private void clear() {
+        orderOutboxRepository.deleteAllInBatch();
+        orderRepository.deleteAllInBatch();
+    }
+}
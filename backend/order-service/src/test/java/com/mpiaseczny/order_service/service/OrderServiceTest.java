@@ -1,25 +1,35 @@
 package com.mpiaseczny.order_service.service;
 
 import com.mpiaseczny.order_service.common.enums.OrderStatus;
+import com.mpiaseczny.order_service.common.pagination.OrderCursor;
+import com.mpiaseczny.order_service.dto.BulkItemResult;
 import com.mpiaseczny.order_service.dto.CreateOrderRequest;
 import com.mpiaseczny.order_service.dto.OrderCreatedEvent;
+import com.mpiaseczny.order_service.dto.OrderPage;
+import com.mpiaseczny.order_service.dto.OrderSummary;
 import com.mpiaseczny.order_service.dto.OrderStatusChangedEvent;
+import com.mpiaseczny.order_service.dto.OrderStatusUpdate;
 import com.mpiaseczny.order_service.entity.Order;
 import com.mpiaseczny.order_service.repository.OrderRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.data.domain.Limit;
 
 import java.time.Instant;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Supplier;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
@@ -32,11 +42,26 @@ class OrderServiceTest {
     private OrderRepository orderRepository;
 
     @Mock
-    private KafkaTemplate<String, Object> kafkaTemplate;
+    private OrderOutboxService orderOutboxService;
+
+    @Spy
+    private Validator validator = Validation.buildDefaultValidatorFactory().getValidator();
+
+    @Mock
+    private OrderListCache orderListCache;
+
+    @Mock
+    private OrderListVersions orderListVersions;
+
+    @Spy
+    private OrderMetrics orderMetrics = new OrderMetrics(new SimpleMeterRegistry());
 
     @InjectMocks
     private OrderService orderService;
 
+    @Mock
+    private OrderSummary testOrderSummary;
+
     private Order testOrder;
     private CreateOrderRequest createOrderRequest;
     private final Long userId = 1L;
@@ -49,14 +74,18 @@ class OrderServiceTest {
         testOrder.setId(1L);
         testOrder.setCreatedAt(Instant.now());
         testOrder.setStatus(OrderStatus.PENDING);
+        testOrder.setVersion(0L);
 
         createOrderRequest = new CreateOrderRequest(customerId, description);
+
+        lenient().when(orderListCache.get(any(), anyBoolean(), anyLong(), any()))
+                .thenAnswer(invocation -> invocation.<Supplier<List<OrderSummary>>>getArgument(3).get());
     }
 
     @Test
     void getOrders_WhenActiveOnlyTrue_ShouldReturnActiveOrders() {
         // Given
-        List<Order> expectedOrders = Collections.singletonList(testOrder);
+        List<OrderSummary> expectedOrders = Collections.singletonList(testOrderSummary);
         List<OrderStatus> activeStatuses = List.of(
                 OrderStatus.PENDING,
                 OrderStatus.CONFIRMED,
@@ -68,7 +97,7 @@ class OrderServiceTest {
                 .thenReturn(expectedOrders);
 
         // When
-        List<Order> result = orderService.getOrders(userId, true);
+        List<OrderSummary> result = orderService.getOrders(userId, true);
 
         // Then
         assertEquals(expectedOrders, result);
@@ -79,12 +108,12 @@ class OrderServiceTest {
     @Test
     void getOrders_WhenActiveOnlyFalse_ShouldReturnAllOrders() {
         // Given
-        List<Order> expectedOrders = Collections.singletonList(testOrder);
+        List<OrderSummary> expectedOrders = Collections.singletonList(testOrderSummary);
         when(orderRepository.findByCreatedByIdOrderByCreatedAtDesc(userId))
                 .thenReturn(expectedOrders);
 
         // When
-        List<Order> result = orderService.getOrders(userId, false);
+        List<OrderSummary> result = orderService.getOrders(userId, false);
 
         // Then
         assertEquals(expectedOrders, result);
@@ -97,7 +126,7 @@ class OrderServiceTest {
         // Given
         ArgumentCaptor<List<OrderStatus>> statusCaptor = ArgumentCaptor.forClass(List.class);
         when(orderRepository.findByCreatedByIdAndStatusInOrderByCreatedAtDesc(eq(userId), statusCaptor.capture()))
-                .thenReturn(Collections.singletonList(testOrder));
+                .thenReturn(Collections.singletonList(testOrderSummary));
 
         // When
         orderService.getOrders(userId, true);
@@ -114,7 +143,7 @@ class OrderServiceTest {
     }
 
     @Test
-    void createOrder_ShouldSaveOrderAndSendKafkaEvent() {
+    void createOrder_ShouldSaveOrderAndEnqueueOutboxEvent() {
         // Given
         when(orderRepository.save(any(Order.class))).thenReturn(testOrder);
 
@@ -135,7 +164,7 @@ class OrderServiceTest {
 
         ArgumentCaptor<String> topicCaptor = ArgumentCaptor.forClass(String.class);
         ArgumentCaptor<OrderCreatedEvent> eventCaptor = ArgumentCaptor.forClass(OrderCreatedEvent.class);
-        verify(kafkaTemplate).send(topicCaptor.capture(), eventCaptor.capture());
+        verify(orderOutboxService).enqueue(topicCaptor.capture(), eq(testOrder.getId()), eventCaptor.capture());
 
         assertEquals("order-created", topicCaptor.getValue());
         OrderCreatedEvent event = eventCaptor.getValue();
@@ -145,43 +174,76 @@ class OrderServiceTest {
         assertEquals(testOrder.getCreatedById(), event.getCreatedById());
         assertEquals(testOrder.getCustomerId(), event.getCustomerId());
         assertEquals(testOrder.getDescription(), event.getDescription());
+        verify(orderListVersions).bump(userId);
+        verify(orderListCache).invalidateAfterCommit(userId);
     }
 
     @Test
-    void updateOrderStatus_WhenOrderExists_ShouldUpdateStatusAndSendEvent() {
+    void updateOrderStatus_WhenOrderExists_ShouldUpdateStatusAndEnqueueEvent() {
         // Given
         Long orderId = 1L;
         OrderStatus newStatus = OrderStatus.CONFIRMED;
         OrderStatus oldStatus = OrderStatus.PENDING;
         
         testOrder.setStatus(oldStatus);
-        Order updatedOrder = new Order(userId, customerId, description);
-        updatedOrder.setId(orderId);
-        updatedOrder.setStatus(newStatus);
-        updatedOrder.setCreatedAt(testOrder.getCreatedAt());
 
         when(orderRepository.findById(orderId)).thenReturn(Optional.of(testOrder));
-        when(orderRepository.save(testOrder)).thenReturn(updatedOrder);
+        when(orderRepository.transitionStatus(orderId, oldStatus, 0L, newStatus)).thenReturn(1);
 
         // When
         Order result = orderService.updateOrderStatus(orderId, newStatus);
 
         // Then
-        assertEquals(updatedOrder, result);
-        assertEquals(newStatus, testOrder.getStatus());
+        assertEquals(newStatus, result.getStatus());
+        assertEquals(1L, result.getVersion());
 
         verify(orderRepository).findById(orderId);
-        verify(orderRepository).save(testOrder);
+        verify(orderRepository).transitionStatus(orderId, oldStatus, 0L, newStatus);
+        verify(orderRepository, never()).save(any());
 
         ArgumentCaptor<String> topicCaptor = ArgumentCaptor.forClass(String.class);
         ArgumentCaptor<OrderStatusChangedEvent> eventCaptor = ArgumentCaptor.forClass(OrderStatusChangedEvent.class);
-        verify(kafkaTemplate).send(topicCaptor.capture(), eventCaptor.capture());
+        verify(orderOutboxService).enqueue(topicCaptor.capture(), eq(orderId), eventCaptor.capture());
 
         assertEquals("order-status-changed", topicCaptor.getValue());
         OrderStatusChangedEvent event = eventCaptor.getValue();
         assertEquals(orderId, event.getOrderId());
         assertEquals(oldStatus, event.getOldStatus());
         assertEquals(newStatus, event.getNewStatus());
+        assertEquals(userId, event.getCreatedById());
+        assertNotNull(event.getChangedAt());
+        verify(orderListVersions).bump(userId);
+        verify(orderListCache).invalidateAfterCommit(userId);
+    }
+
+    @Test
+    void updateOrderStatus_WhenTransitionNotAllowed_ShouldThrowConflictWithoutUpdating() {
+        // Given
+        testOrder.setStatus(OrderStatus.DELIVERED);
+        when(orderRepository.findById(1L)).thenReturn(Optional.of(testOrder));
+
+        // When & Then
+        OrderStatusConflictException exception = assertThrows(OrderStatusConflictException.class,
+                () -> orderService.updateOrderStatus(1L, OrderStatus.CANCELLED));
+
+        assertEquals("Cannot change status of order 1 from DELIVERED to CANCELLED", exception.getMessage());
+        verify(orderRepository, never()).transitionStatus(any(), any(), any(), any());
+        verifyNoInteractions(orderOutboxService);
+    }
+
+    @Test
+    void updateOrderStatus_WhenAnotherUpdateWonTheRace_ShouldThrowConflictWithoutEvent() {
+        // Given
+        when(orderRepository.findById(1L)).thenReturn(Optional.of(testOrder));
+        when(orderRepository.transitionStatus(1L, OrderStatus.PENDING, 0L, OrderStatus.CONFIRMED)).thenReturn(0);
+
+        // When & Then
+        assertThrows(OrderStatusConflictException.class,
+                () -> orderService.updateOrderStatus(1L, OrderStatus.CONFIRMED));
+
+        verifyNoInteractions(orderOutboxService);
+        verify(orderListVersions, never()).bump(any());
+        verify(orderListCache, never()).invalidateAfterCommit(any());
     }
 
     @Test
@@ -199,11 +261,11 @@ class OrderServiceTest {
         assertEquals("Order not found with id: " + orderId, exception.getMessage());
 
         verify(orderRepository, never()).save(any());
-        verify(kafkaTemplate, never()).send(anyString(), any());
+        verifyNoInteractions(orderOutboxService);
     }
 
     @Test
-    void updateOrderStatus_ShouldSendEventAfterUpdatingStatus() {
+    void updateOrderStatus_ShouldEnqueueEventAfterUpdatingStatus() {
         // Given
         Long orderId = 1L;
         OrderStatus newStatus = OrderStatus.SHIPPED;
@@ -212,14 +274,14 @@ class OrderServiceTest {
         testOrder.setStatus(oldStatus);
 
         when(orderRepository.findById(orderId)).thenReturn(Optional.of(testOrder));
-        when(orderRepository.save(testOrder)).thenReturn(testOrder);
+        when(orderRepository.transitionStatus(orderId, oldStatus, 0L, newStatus)).thenReturn(1);
 
         // When
         orderService.updateOrderStatus(orderId, newStatus);
 
         // Then
         ArgumentCaptor<OrderStatusChangedEvent> eventCaptor = ArgumentCaptor.forClass(OrderStatusChangedEvent.class);
-        verify(kafkaTemplate).send(eq("order-status-changed"), eventCaptor.capture());
+        verify(orderOutboxService).enqueue(eq("order-status-changed"), eq(orderId), eventCaptor.capture());
 
         OrderStatusChangedEvent event = eventCaptor.getValue();
         assertEquals(oldStatus, event.getOldStatus());
@@ -249,10 +311,151 @@ class OrderServiceTest {
                 .thenReturn(List.of());
 
         // When
-        List<Order> result = orderService.getOrders(userId, false);
+        List<OrderSummary> result = orderService.getOrders(userId, false);
 
         // Then
         assertTrue(result.isEmpty());
         verify(orderRepository).findByCreatedByIdOrderByCreatedAtDesc(userId);
     }
+
+    @Test
+    void getOrdersPage_WhenMoreRowsThanPageSize_ShouldReturnNextCursor() {
+        // Given
+        Order first = createOrder(3L, Instant.parse("2025-01-03T00:00:00Z"));
+        Order second = createOrder(2L, Instant.parse("2025-01-02T00:00:00Z"));
+        Order third = createOrder(1L, Instant.parse("2025-01-01T00:00:00Z"));
+
+        when(orderRepository.findByCreatedByIdOrderByCreatedAtDescIdDesc(userId, Limit.of(3)))
+                .thenReturn(List.of(first, second, third));
+
+        // When
+        OrderPage page = orderService.getOrdersPage(userId, false, null, 2);
+
+        // Then
+        assertEquals(List.of(first, second), page.getItems());
+        OrderCursor cursor = OrderCursor.decode(page.getNextCursor());
+        assertEquals(second.getCreatedAt(), cursor.getCreatedAt());
+        assertEquals(second.getId(), cursor.getId());
+    }
+
+    @Test
+    void getOrdersPage_WithCursor_ShouldContinueAfterCursorPosition() {
+        // Given
+        Instant createdAt = Instant.parse("2025-01-02T00:00:00Z");
+        String cursor = new OrderCursor(createdAt, 2L).encode();
+        Order last = createOrder(1L, Instant.parse("2025-01-01T00:00:00Z"));
+
+        when(orderRepository.findPageAfterWithStatusIn(eq(userId), anyList(), eq(createdAt), eq(2L), eq(Limit.of(3))))
+                .thenReturn(List.of(last));
+
+        // When
+        OrderPage page = orderService.getOrdersPage(userId, true, cursor, 2);
+
+        // Then
+        assertEquals(List.of(last), page.getItems());
+        assertNull(page.getNextCursor());
+    }
+
+    @Test
+    void getOrdersPage_WhenSizeExceedsMax_ShouldCapPageSize() {
+        // Given
+        when(orderRepository.findByCreatedByIdOrderByCreatedAtDescIdDesc(userId, Limit.of(101)))
+                .thenReturn(List.of());
+
+        // When
+        OrderPage page = orderService.getOrdersPage(userId, false, null, 10_000);
+
+        // Then
+        assertTrue(page.getItems().isEmpty());
+        verify(orderRepository).findByCreatedByIdOrderByCreatedAtDescIdDesc(userId, Limit.of(101));
+    }
+
+    @Test
+    void getOrdersPage_WithInvalidCursor_ShouldThrowIllegalArgumentException() {
+        assertThrows(IllegalArgumentException.class,
+                () -> orderService.getOrdersPage(userId, false, "not-a-cursor", 10));
+
+        verifyNoInteractions(orderRepository);
+    }
+
+    @Test
+    void createOrders_ShouldCreateValidItemsAndReportInvalidOnes() {
+        // Given
+        when(orderRepository.save(any(Order.class))).thenAnswer(invocation -> {
+            Order order = invocation.getArgument(0);
+            order.setId(order.getCustomerId());
+            return order;
+        });
+        List<CreateOrderRequest> requests = Arrays.asList(
+                new CreateOrderRequest(10L, "First"),
+                new CreateOrderRequest(null, "Missing customer"),
+                null,
+                new CreateOrderRequest(11L, "Second")
+        );
+
+        // When
+        List<BulkItemResult> results = orderService.createOrders(userId, requests);
+
+        // Then
+        assertEquals(List.of(201, 400, 400, 201), results.stream().map(BulkItemResult::getStatus).toList());
+        assertEquals(List.of(0, 1, 2, 3), results.stream().map(BulkItemResult::getIndex).toList());
+        assertEquals("Customer id is required", results.get(1).getError());
+        assertEquals(10L, results.get(0).getOrder().getId());
+        assertEquals(userId, results.get(3).getOrder().getCreatedById());
+
+        ArgumentCaptor<OrderCreatedEvent> eventCaptor = ArgumentCaptor.forClass(OrderCreatedEvent.class);
+        verify(orderOutboxService, times(2)).enqueue(eq("order-created"), anyLong(), eventCaptor.capture());
+        assertEquals(List.of("First", "Second"),
+                eventCaptor.getAllValues().stream().map(OrderCreatedEvent::getDescription).toList());
+    }
+
+    @Test
+    void createOrders_WhenTooManyItems_ShouldThrowIllegalArgumentException() {
+        List<CreateOrderRequest> requests = Collections.nCopies(1001, createOrderRequest);
+
+        assertThrows(IllegalArgumentException.class, () -> orderService.createOrders(userId, requests));
+
+        verifyNoInteractions(orderRepository, orderOutboxService);
+    }
+
+    @Test
+    void updateOrderStatuses_ShouldLoadOrdersOnceAndApplyChangesInOrder() {
+        // Given
+        when(orderRepository.findAllById(anyIterable())).thenReturn(List.of(testOrder));
+        List<OrderStatusUpdate> updates = List.of(
+                new OrderStatusUpdate(1L, OrderStatus.CONFIRMED),
+                new OrderStatusUpdate(999L, OrderStatus.CONFIRMED),
+                new OrderStatusUpdate(1L, OrderStatus.PROCESSING),
+                new OrderStatusUpdate(1L, null),
+                new OrderStatusUpdate(1L, OrderStatus.PENDING)
+        );
+
+        // When
+        List<BulkItemResult> results = orderService.updateOrderStatuses(updates);
+
+        // Then
+        assertEquals(List.of(200, 404, 200, 400, 409), results.stream().map(BulkItemResult::getStatus).toList());
+        assertEquals("Order not found with id: 999", results.get(1).getError());
+        assertEquals("Cannot change status of order 1 from PROCESSING to PENDING", results.get(4).getError());
+        assertEquals(OrderStatus.PROCESSING, testOrder.getStatus());
+        verify(orderRepository, times(1)).findAllById(anyIterable());
+        verify(orderRepository, never()).save(any());
+
+        ArgumentCaptor<OrderStatusChangedEvent> eventCaptor = ArgumentCaptor.forClass(OrderStatusChangedEvent.class);
+        verify(orderOutboxService, times(2)).enqueue(eq("order-status-changed"), eq(1L), eventCaptor.capture());
+        List<OrderStatusChangedEvent> events = eventCaptor.getAllValues();
+        assertEquals(OrderStatus.PENDING, events.get(0).getOldStatus());
+        assertEquals(OrderStatus.CONFIRMED, events.get(0).getNewStatus());
+        assertEquals(OrderStatus.CONFIRMED, events.get(1).getOldStatus());
+        assertEquals(OrderStatus.PROCESSING, events.get(1).getNewStatus());
+        verify(orderListVersions).bump(userId);
+        verify(orderListCache).invalidateAfterCommit(userId);
+    }
+
+    private Order createOrder(Long id, Instant createdAt) {
+        Order order = new Order(userId, customerId, description);
+        order.setId(id);
+        order.setCreatedAt(createdAt);
+        return order;
+    }
 }
@@ -0,0 +1,132 @@
+package com.mpiaseczny.order_service.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mpiaseczny.order_service.common.enums.OrderStatus;
+import com.mpiaseczny.order_service.dto.OrderStatusChangedEvent;
+import com.mpiaseczny.order_service.entity.Order;
+import com.mpiaseczny.order_service.entity.OrderOutboxEvent;
+import com.mpiaseczny.order_service.repository.OrderOutboxRepository;
+import com.mpiaseczny.order_service.repository.OrderRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Lets several threads change the status of the same order at the same moment, half of them to CONFIRMED and half
+ * to CANCELLED. Every status the order passes through must be won by exactly one thread: the events form a chain of
+ * allowed transitions from PENDING, one per winner, ending at the stored status and version.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class OrderStatusTransitionConcurrencyTest {
+
+    private static final int THREADS = 8;
+
+    private static final int ORDERS = 50;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private OrderOutboxRepository orderOutboxRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @MockitoBean
+    private KafkaTemplate<String, Object> kafkaTemplate;
+
+    @AfterEach
+    void tearDown() {
+        orderOutboxRepository.deleteAll();
+        orderRepository.deleteAll();
+    }
+
+    @Test
+    void concurrentTransitionsOfOneOrder_ShouldHaveExactlyOneWinnerPerStatus() throws Exception {
+        Map<Long, List<OrderStatus>> winnersByOrder = new HashMap<>();
+        ExecutorService clients = Executors.newFixedThreadPool(THREADS);
+        try {
+            for (int i = 0; i < ORDERS; i++) {
+                Order order = orderRepository.save(new Order(1L, 100L, "Contended order " + i));
+                winnersByOrder.put(order.getId(), race(clients, order.getId()));
+            }
+        } finally {
+            clients.shutdownNow();
+        }
+
+        Map<Long, List<OrderStatusChangedEvent>> eventsByOrder = new HashMap<>();
+        List<OrderOutboxEvent> outboxEvents = orderOutboxRepository.findAll();
+        outboxEvents.sort(Comparator.comparing(OrderOutboxEvent::getId));
+        for (OrderOutboxEvent outboxEvent : outboxEvents) {
+            OrderStatusChangedEvent event = objectMapper.readValue(outboxEvent.getPayload(), OrderStatusChangedEvent.class);
+            eventsByOrder.computeIfAbsent(event.getOrderId(), orderId -> new ArrayList<>()).add(event);
+        }
+
+        for (Map.Entry<Long, List<OrderStatus>> entry : winnersByOrder.entrySet()) {
+            Long orderId = entry.getKey();
+            List<OrderStatus> winners = entry.getValue();
+            List<OrderStatusChangedEvent> events = eventsByOrder.getOrDefault(orderId, List.of());
+            assertEquals(winners.size(), events.size(), "Winners " + winners + " of order " + orderId);
+            assertFalse(winners.isEmpty(), "No winner for order " + orderId);
+
+            OrderStatus current = OrderStatus.PENDING;
+            for (OrderStatusChangedEvent event : events) {
+                assertEquals(current, event.getOldStatus(), "Events of order " + orderId);
+                assertTrue(current.canTransitionTo(event.getNewStatus()), "Events of order " + orderId);
+                current = event.getNewStatus();
+            }
+
+            Order stored = orderRepository.findById(orderId).orElseThrow();
+            assertEquals(current, stored.getStatus());
+            assertEquals(winners.size(), stored.getVersion());
+        }
+    }
+
+    private List<OrderStatus> race(ExecutorService clients, Long orderId) throws Exception {
+        CyclicBarrier start = new CyclicBarrier(THREADS);
+        List<Future<OrderStatus>> attempts = new ArrayList<>(THREADS);
+        for (int t = 0; t < THREADS; t++) {
+            OrderStatus target = t % 2 == 0 ? OrderStatus.CONFIRMED : OrderStatus.CANCELLED;
+            attempts.add(clients.submit(() -> {
+                start.await();
+                try {
+                    return orderService.updateOrderStatus(orderId, target).getStatus();
+                } catch (OrderStatusConflictException e) {
+                    return null;
+                }
+            }));
+        }
+
+        List<OrderStatus> winners = new ArrayList<>();
+        for (Future<OrderStatus> attempt : attempts) {
+            OrderStatus winner = attempt.get(30, TimeUnit.SECONDS);
+            if (winner != null) {
+                winners.add(winner);
+            }
+        }
+        return winners;
+    }
+}
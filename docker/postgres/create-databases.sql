@@ -0,0 +1,2 @@
+-- The orders database is created from POSTGRES_DB
+CREATE DATABASE auth;
@@ -3,6 +3,8 @@ import '@lion/ui/define/lion-checkbox.js';
 import { apiService } from '../services/api.js';
 import { notificationService } from '../services/kafka.js';
 
+const ACTIVE_STATUSES = ['PENDING', 'CONFIRMED', 'PROCESSING', 'SHIPPED'];
+
 export class OrdersPanel extends LitElement {
   static properties = {
     orders: { state: true },
@@ -163,10 +165,19 @@ export class OrdersPanel extends LitElement {
       if (type === 'order-created') {
         this.showNotification('New order created!');
         this.loadOrders();
+      } else if (type === 'order-status-changed') {
+        this.applyStatusChange(data);
       }
     });
   }
 
+  applyStatusChange({ orderId, newStatus }) {
+    // Updated in place, so status changes no longer need a reload of the whole list
+    this.orders = this.orders
+      .map(order => (order.id === orderId ? { ...order, status: newStatus } : order))
+      .filter(order => !this.activeOnly || order.id !== orderId || ACTIVE_STATUSES.includes(newStatus));
+  }
+
   showNotification(message) {
     const notification = document.createElement('div');
     notification.className = 'notification';
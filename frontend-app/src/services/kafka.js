@@ -47,6 +47,15 @@ class NotificationService {
         }
       });
 
+      this.eventSource.addEventListener('order-status-changed', (event) => {
+        try {
+          const statusData = JSON.parse(event.data);
+          this.notifyListeners('order-status-changed', statusData);
+        } catch (error) {
+          console.error('Error parsing order-status-changed event:', error);
+        }
+      });
+
       this.eventSource.onerror = (error) => {
         console.error('SSE error:', error);
         this.notifyListeners('error', error);
@@ -252,6 +252,34 @@ describe('OrdersPanel', () => {
       expect(apiServiceStub.getOrders).to.have.been.calledOnce;
     });
 
+    it('should update order status in place on order-status-changed notifications', async () => {
+      // Given
+      const mockCallback = notificationServiceStub.firstCall.args[0];
+      apiServiceStub.getOrders.resetHistory();
+
+      // When
+      mockCallback({ type: 'order-status-changed', data: { orderId: 1, oldStatus: 'PENDING', newStatus: 'SHIPPED' } });
+      await element.updateComplete;
+
+      // Then
+      expect(element.orders.find(order => order.id === 1).status).to.equal('SHIPPED');
+      expect(element.orders.find(order => order.id === 2).status).to.equal('CONFIRMED');
+      expect(apiServiceStub.getOrders).to.not.have.been.called;
+    });
+
+    it('should drop orders that became inactive when showing active orders only', async () => {
+      // Given
+      const mockCallback = notificationServiceStub.firstCall.args[0];
+      element.activeOnly = true;
+
+      // When
+      mockCallback({ type: 'order-status-changed', data: { orderId: 2, oldStatus: 'CONFIRMED', newStatus: 'CANCELLED' } });
+      await element.updateComplete;
+
+      // Then
+      expect(element.orders.map(order => order.id)).to.deep.equal([1]);
+    });
+
     it('should unsubscribe from notifications on disconnect', async () => {
       // Given
       const mockUnsubscribe = sinon.stub();